@@ -0,0 +1,192 @@
+package itcareservas.bench;
+
+import itcareservas.excepciones.ConflictoHorarioException;
+import itcareservas.modelo.Aula;
+import itcareservas.modelo.Reserva;
+import itcareservas.modelo.ReservaClase;
+import itcareservas.servicios.GestorReservas;
+import itcareservas.servicios.PersistenciaUtil;
+import itcareservasmodelo.enums.TipoAula;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.regex.Pattern;
+
+// Benchmarks de los caminos calientes de GestorReservas y PersistenciaUtil,
+// para cada combinacion de tamanos de dataset. Uso:
+//
+//   ant bench -Dbench.args="--reservas 1000,1000000 --aulas 10,10000"
+//
+// Opciones (valores por defecto entre parentesis):
+//   --reservas 1000,100000,1000000   cantidades de reservas, separadas por coma
+//   --aulas 10,1000                  cantidades de aulas
+//   --calentamiento 3 --iteraciones 5 --tiempo 1000 (ms por iteracion)
+//   --filtro <regex>                 solo los benchmarks cuyo nombre coincide
+//   --salida resultados.csv          CSV con el formato de JMH (-rf csv)
+//   --semilla 42
+//
+// 10M de reservas necesitan un heap de varios GB (-Dbench.jvmargs=-Xmx16g).
+// Los benchmarks de persistencia escriben reservas.csv en el directorio de
+// trabajo; si al arrancar ya hay un aulas.csv ahi se omiten, para no pisar
+// datos reales.
+public class BenchmarksReservas {
+    private static final int CANDIDATOS = 4096;
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> opciones = new LinkedHashMap<>();
+        opciones.put("reservas", "1000,100000,1000000");
+        opciones.put("aulas", "10,1000");
+        opciones.put("calentamiento", "3");
+        opciones.put("iteraciones", "5");
+        opciones.put("tiempo", "1000");
+        opciones.put("filtro", ".*");
+        opciones.put("salida", "resultados.csv");
+        opciones.put("semilla", "42");
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            if (!args[i].startsWith("--") || !opciones.containsKey(args[i].substring(2))) {
+                throw new IllegalArgumentException("Opcion desconocida: " + args[i]);
+            }
+            opciones.put(args[i].substring(2), args[i + 1]);
+        }
+
+        Medidor medidor = new Medidor(Integer.parseInt(opciones.get("calentamiento")),
+                                      Integer.parseInt(opciones.get("iteraciones")),
+                                      Long.parseLong(opciones.get("tiempo")));
+        Pattern filtro = Pattern.compile(opciones.get("filtro"));
+        long semilla = Long.parseLong(opciones.get("semilla"));
+        boolean persistencia = !Files.exists(Paths.get("aulas.csv"));
+        if (!persistencia) {
+            System.out.println("Hay un aulas.csv en el directorio de trabajo: se omiten los benchmarks de persistencia.");
+        }
+
+        for (String aulas : opciones.get("aulas").split(",")) {
+            for (String reservas : opciones.get("reservas").split(",")) {
+                Map<String, String> parametros = new LinkedHashMap<>();
+                parametros.put("aulas", aulas.trim());
+                parametros.put("reservas", reservas.trim());
+                medidor.setParametros(parametros);
+                new BenchmarksReservas(Integer.parseInt(aulas.trim()), Integer.parseInt(reservas.trim()), semilla)
+                    .correr(medidor, filtro, persistencia);
+                System.gc();
+            }
+        }
+
+        Path salida = Paths.get(opciones.get("salida"));
+        medidor.escribirCsv(salida);
+        System.out.println("Resultados en " + salida.toAbsolutePath());
+    }
+
+    private final int cantidadAulas;
+    private final int cantidadReservas;
+    private final long semilla;
+    private final GestorReservas gestor = new GestorReservas();
+    private final List<Aula> aulas;
+
+    private BenchmarksReservas(int cantidadAulas, int cantidadReservas, long semilla) {
+        this.cantidadAulas = cantidadAulas;
+        this.cantidadReservas = cantidadReservas;
+        this.semilla = semilla;
+        this.aulas = DatosPrueba.aulas(cantidadAulas, semilla);
+        gestor.cargarAulas(aulas);
+        gestor.cargarReservas(DatosPrueba.reservas(aulas, cantidadReservas, semilla));
+    }
+
+    private void correr(Medidor medidor, Pattern filtro, boolean persistencia) throws Exception {
+        SplittableRandom azar = new SplittableRandom(semilla);
+        int mascara = CANDIDATOS - 1;
+
+        // Alta en horarios libres (despues del ultimo dia del dataset) seguida
+        // de la baja, para que el tamano no cambie entre iteraciones.
+        List<Aula> teoricas = new ArrayList<>();
+        for (Aula aula : aulas) {
+            if (aula.getTipo() == TipoAula.TEORICA) teoricas.add(aula);
+        }
+        Reserva[] libres = new Reserva[CANDIDATOS];
+        for (int i = 0; i < CANDIDATOS; i++) {
+            LocalTime inicio = LocalTime.of(7 + i % 12, 0);
+            libres[i] = new ReservaClase("BENCH-" + i, teoricas.get(i % teoricas.size()),
+                                         DatosPrueba.primerDiaLibre(cantidadAulas, cantidadReservas).plusDays(i / 12),
+                                         inicio, inicio.plusHours(1), DatosPrueba.responsable(azar), "Materia", "G1");
+        }
+        int[] siguiente = { 0 };
+        if (filtro.matcher("registrarEliminarReserva").matches()) {
+            medidor.rendimiento("registrarEliminarReserva", () -> {
+                Reserva reserva = libres[siguiente[0]++ & mascara];
+                gestor.registrarReserva(reserva);
+                gestor.eliminarReserva(reserva.getId());
+                return reserva;
+            });
+        }
+
+        // Mismo horario que una reserva existente: el alta termina en
+        // validarSolapamiento con ConflictoHorarioException.
+        List<Reserva> chocan = new ArrayList<>();
+        for (int i = 0; i < cantidadReservas && chocan.size() < CANDIDATOS; i += 1 + azar.nextInt(7)) {
+            Reserva existente = gestor.buscarReservaPorId("R" + i);
+            if (existente.getAula().getTipo() != TipoAula.TEORICA) continue;
+            chocan.add(new ReservaClase("CHOQUE-" + i, existente.getAula(), existente.getFecha(),
+                                        existente.getHoraInicio(), existente.getHoraFin(), "Otro", "Materia", "G1"));
+        }
+        if (!chocan.isEmpty() && filtro.matcher("registrarReservaConflicto").matches()) {
+            medidor.rendimiento("registrarReservaConflicto", () -> {
+                try {
+                    gestor.registrarReserva(chocan.get(siguiente[0]++ % chocan.size()));
+                    throw new IllegalStateException("Se esperaba un conflicto de horario");
+                } catch (ConflictoHorarioException e) {
+                    return e;
+                }
+            });
+        }
+
+        String[] ids = new String[CANDIDATOS];
+        String[] apellidos = new String[CANDIDATOS];
+        for (int i = 0; i < CANDIDATOS; i++) {
+            ids[i] = aulas.get(azar.nextInt(cantidadAulas)).getId();
+            apellidos[i] = DatosPrueba.apellido(azar);
+        }
+        if (filtro.matcher("buscarAulaPorId").matches()) {
+            medidor.rendimiento("buscarAulaPorId", () -> gestor.buscarAulaPorId(ids[siguiente[0]++ & mascara]));
+        }
+        if (filtro.matcher("buscarPorResponsable").matches()) {
+            medidor.rendimiento("buscarPorResponsable",
+                                () -> gestor.buscarPorResponsable(apellidos[siguiente[0]++ & mascara]));
+        }
+
+        for (String orden : new String[] { "id", "fecha", "responsable", "aula" }) {
+            String nombre = "listarReservas_" + orden;
+            if (filtro.matcher(nombre).matches()) {
+                medidor.rendimiento(nombre, () -> gestor.listarReservas(orden));
+            }
+        }
+
+        if (filtro.matcher("reporteTopAulasPorHoras").matches()) {
+            medidor.rendimiento("reporteTopAulasPorHoras", gestor::reporteTopAulasPorHoras);
+        }
+        if (filtro.matcher("reporteHorasPorTipoAula").matches()) {
+            medidor.rendimiento("reporteHorasPorTipoAula", gestor::reporteHorasPorTipoAula);
+        }
+        if (filtro.matcher("reporteDistribucionPorTipo").matches()) {
+            medidor.rendimiento("reporteDistribucionPorTipo", gestor::reporteDistribucionPorTipo);
+        }
+
+        if (!persistencia) return;
+        PersistenciaUtil persistenciaUtil = new PersistenciaUtil(gestor);
+        if (filtro.matcher("guardarReservas").matches()) {
+            medidor.unaVez("guardarReservas", () -> { }, () -> {
+                persistenciaUtil.guardarReservas(gestor.getReservas());
+                return gestor;
+            });
+        }
+        if (filtro.matcher("cargarReservas").matches()) {
+            persistenciaUtil.guardarReservas(gestor.getReservas());
+            medidor.unaVez("cargarReservas", () -> { }, persistenciaUtil::cargarReservas);
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package itcareservas.bench;
+
+import itcareservas.modelo.Aula;
+import itcareservas.modelo.Reserva;
+import itcareservas.modelo.ReservaClase;
+import itcareservas.modelo.ReservaEvento;
+import itcareservas.modelo.ReservaPractica;
+import itcareservasmodelo.enums.TipoAula;
+import itcareservasmodelo.enums.TipoEvento;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+// Datos deterministas para los benchmarks: mismas aulas y reservas para la
+// misma semilla. Las reservas llenan franjas de 2 horas (07:00 a 19:00) aula
+// por aula y dia por dia, asi que ninguna se solapa y todas son validas para
+// el tipo de su aula.
+final class DatosPrueba {
+    static final LocalDate INICIO = LocalDate.of(2025, 1, 6);
+    static final int FRANJAS_POR_DIA = 6;
+
+    private static final String[] NOMBRES = {
+        "María", "José", "Ana", "Luis", "Carmen", "Jorge", "Sofía", "Óscar", "Lucía", "Raúl",
+        "Elena", "Andrés", "Paula", "Héctor", "Rocío", "Iván", "Marta", "Tomás", "Irene", "Julián"
+    };
+    private static final String[] APELLIDOS = {
+        "López", "Martínez", "González", "Hernández", "Pérez", "Rodríguez", "Sánchez", "Ramírez",
+        "Flores", "Gómez", "Díaz", "Cruz", "Morales", "Núñez", "Ortiz", "Castillo", "Jiménez",
+        "Vásquez", "Romero", "Álvarez", "Mejía", "Rivas", "Peña", "Aguilar", "Chávez"
+    };
+
+    private DatosPrueba() {
+    }
+
+    static List<Aula> aulas(int cantidad, long semilla) {
+        SplittableRandom azar = new SplittableRandom(semilla);
+        TipoAula[] tipos = TipoAula.values();
+        List<Aula> aulas = new ArrayList<>(cantidad);
+        for (int i = 0; i < cantidad; i++) {
+            TipoAula tipo = tipos[i % tipos.length];
+            int capacidad = tipo == TipoAula.AUDITORIO ? 100 + azar.nextInt(400) : 20 + azar.nextInt(40);
+            aulas.add(new Aula("A" + i, "Aula " + i, capacidad, tipo));
+        }
+        return aulas;
+    }
+
+    static List<Reserva> reservas(List<Aula> aulas, int cantidad, long semilla) {
+        SplittableRandom azar = new SplittableRandom(semilla);
+        List<Reserva> reservas = new ArrayList<>(cantidad);
+        for (int i = 0; i < cantidad; i++) {
+            Aula aula = aulas.get(i % aulas.size());
+            int franja = i / aulas.size();
+            LocalDate fecha = INICIO.plusDays(franja / FRANJAS_POR_DIA);
+            LocalTime inicio = LocalTime.of(7 + 2 * (franja % FRANJAS_POR_DIA), 0);
+            LocalTime fin = inicio.plusHours(2);
+            String id = "R" + i;
+            String responsable = responsable(azar);
+            switch (aula.getTipo()) {
+                case LABORATORIO:
+                    reservas.add(azar.nextBoolean()
+                        ? new ReservaPractica(id, aula, fecha, inicio, fin, responsable, "Equipo " + azar.nextInt(20))
+                        : new ReservaClase(id, aula, fecha, inicio, fin, responsable, "Materia " + azar.nextInt(50), "G" + azar.nextInt(9)));
+                    break;
+                case AUDITORIO:
+                    reservas.add(new ReservaEvento(id, aula, fecha, inicio, fin, responsable, TipoEvento.CONFERENCIA,
+                                                   1 + azar.nextInt(aula.getCapacidad())));
+                    break;
+                default:
+                    reservas.add(new ReservaClase(id, aula, fecha, inicio, fin, responsable,
+                                                  "Materia " + azar.nextInt(50), "G" + azar.nextInt(9)));
+            }
+        }
+        return reservas;
+    }
+
+    // Primer dia sin ninguna reserva del dataset.
+    static LocalDate primerDiaLibre(int aulas, int reservas) {
+        int franjas = (reservas + aulas - 1) / aulas;
+        return INICIO.plusDays((franjas + FRANJAS_POR_DIA - 1) / FRANJAS_POR_DIA);
+    }
+
+    static String responsable(SplittableRandom azar) {
+        return NOMBRES[azar.nextInt(NOMBRES.length)] + " " + APELLIDOS[azar.nextInt(APELLIDOS.length)];
+    }
+
+    static String apellido(SplittableRandom azar) {
+        return APELLIDOS[azar.nextInt(APELLIDOS.length)];
+    }
+}
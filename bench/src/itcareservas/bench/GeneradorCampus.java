@@ -0,0 +1,349 @@
+package itcareservas.bench;
+
+import itcareservasmodelo.enums.EstadoReserva;
+import itcareservasmodelo.enums.TipoAula;
+import itcareservasmodelo.enums.TipoEvento;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+// Genera un campus sintetico en aulas.csv y reservas.csv, con el formato que
+// lee PersistenciaUtil. Con la misma semilla y opciones el resultado es
+// identico byte a byte. Uso:
+//
+//   ant generar-datos -Dgenerador.args="--aulas 500 --reservas 20000000"
+//
+// Opciones (valores por defecto entre parentesis):
+//   --aulas 200 --reservas 100000 --semilla 42
+//   --desde 2025-01-06          primer lunes del primer semestre
+//   --cancelacion 0.05          fraccion de reservas CANCELADAS
+//   --conflictos 0              fraccion de reservas ACTIVAS extra que se
+//                               solapan con la anterior en la misma aula
+//   --destino .                 carpeta de salida
+//   --sobrescribir no           si ya hay CSV en el destino, los reemplaza
+//
+// Las reservas salen en orden de fecha, semana a semana, y se escriben a
+// medida que se generan: la memoria solo depende del numero de aulas (el
+// horario semanal de cada una), no del de reservas.
+//
+// Distribucion: 60% de aulas TEORICA, 30% LABORATORIO y 10% AUDITORIO.
+// Cada semestre (16 semanas y 2 de receso) cada aula teorica o laboratorio
+// recibe un horario semanal de clases en bloques de 2 horas de lunes a
+// sabado, que se repite todas las semanas; en los laboratorios parte de los
+// bloques son practicas. En los bloques libres y en el receso hay talleres y
+// reuniones sueltas, y los auditorios tienen conferencias y reuniones de 2 a
+// 4 horas con aforo dentro de su capacidad. Sin conflictos, ninguna reserva
+// ACTIVA se solapa con otra.
+public class GeneradorCampus {
+    private static final int SEMANAS_CLASES = 16;
+    private static final int SEMANAS_RECESO = 2;
+    private static final int DIAS = 6;
+    private static final int PRIMER_BLOQUE = 7 * 60;
+    private static final int BLOQUES = 7;
+    private static final int MINUTOS_BLOQUE = 120;
+    // Probabilidad de que un bloque (de 07:00 a 19:00) tenga clase en el semestre.
+    private static final double[] OCUPACION_BLOQUE = { 0.55, 0.9, 0.9, 0.6, 0.8, 0.75, 0.45 };
+    private static final double OCUPACION_SABADO = 0.3;
+    private static final double PRACTICAS_EN_LABORATORIO = 0.6;
+    private static final double EVENTO_EN_BLOQUE_LIBRE = 0.03;
+    private static final int SIN_CLASE = -1;
+
+    private static final String[] NOMBRES = {
+        "María", "José", "Ana", "Luis", "Carmen", "Jorge", "Sofía", "Óscar", "Lucía", "Raúl", "Elena",
+        "Andrés", "Paula", "Héctor", "Rocío", "Iván", "Marta", "Tomás", "Irene", "Julián", "Gilbert",
+        "Bryan", "Karla", "Ernesto", "Beatriz", "Mauricio", "Gabriela", "Rubén", "Noemí", "Álvaro"
+    };
+    private static final String[] APELLIDOS = {
+        "López", "Martínez", "González", "Hernández", "Pérez", "Rodríguez", "Sánchez", "Ramírez",
+        "Flores", "Gómez", "Díaz", "Cruz", "Morales", "Núñez", "Ortiz", "Castillo", "Jiménez",
+        "Vásquez", "Romero", "Álvarez", "Mejía", "Rivas", "Peña", "Aguilar", "Chávez", "Guzmán",
+        "Orellana", "Portillo", "Menjívar", "Quintanilla"
+    };
+    private static final String[] MATERIAS = {
+        "Programacion I", "Programacion II", "Bases de Datos", "Redes", "Sistemas Operativos",
+        "Matematica I", "Matematica II", "Fisica", "Estadistica", "Contabilidad", "Ingles Tecnico",
+        "Electronica Digital", "Circuitos Electricos", "Dibujo Tecnico", "Analisis de Sistemas",
+        "Desarrollo Web", "Seguridad Informatica", "Mantenimiento de Equipos", "Automatizacion",
+        "Etica Profesional", "Administracion de Servidores", "Metodologia de la Investigacion"
+    };
+    private static final String[] CARRERAS = { "DS", "IS", "RC", "ME", "EL", "AD" };
+    private static final String[] EQUIPOS = {
+        "Laptops", "Osciloscopios", "Routers", "Kits Arduino", "Multimetros", "Impresora 3D",
+        "Proyector", "Servidores", "PLC", "Soldadores"
+    };
+
+    public static void main(String[] args) throws IOException {
+        Map<String, String> opciones = new LinkedHashMap<>();
+        opciones.put("aulas", "200");
+        opciones.put("reservas", "100000");
+        opciones.put("semilla", "42");
+        opciones.put("desde", "2025-01-06");
+        opciones.put("cancelacion", "0.05");
+        opciones.put("conflictos", "0");
+        opciones.put("destino", ".");
+        opciones.put("sobrescribir", "no");
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            if (!args[i].startsWith("--") || !opciones.containsKey(args[i].substring(2))) {
+                throw new IllegalArgumentException("Opcion desconocida: " + args[i]);
+            }
+            opciones.put(args[i].substring(2), args[i + 1]);
+        }
+
+        Path destino = Paths.get(opciones.get("destino"));
+        Path aulas = destino.resolve("aulas.csv");
+        Path reservas = destino.resolve("reservas.csv");
+        if (!"si".equals(opciones.get("sobrescribir")) && (Files.exists(aulas) || Files.exists(reservas))) {
+            System.err.println("Ya existen aulas.csv o reservas.csv en " + destino.toAbsolutePath()
+                               + "; use --sobrescribir si para reemplazarlos.");
+            System.exit(1);
+        }
+        Files.createDirectories(destino);
+
+        GeneradorCampus generador = new GeneradorCampus(Integer.parseInt(opciones.get("aulas")),
+                                                        Long.parseLong(opciones.get("semilla")),
+                                                        LocalDate.parse(opciones.get("desde")),
+                                                        Double.parseDouble(opciones.get("cancelacion")),
+                                                        Double.parseDouble(opciones.get("conflictos")));
+        long inicio = System.nanoTime();
+        try (BufferedWriter salida = Files.newBufferedWriter(aulas, StandardCharsets.UTF_8)) {
+            generador.escribirAulas(salida);
+        }
+        try (Writer salida = new BufferedWriter(Files.newBufferedWriter(reservas, StandardCharsets.UTF_8), 1 << 20)) {
+            generador.escribirReservas(salida, Long.parseLong(opciones.get("reservas")));
+        }
+        double segundos = (System.nanoTime() - inicio) / 1e9;
+        System.out.printf("%d aulas y %d reservas (%d clases, %d practicas, %d eventos; %d canceladas, %d en conflicto)%n",
+                          generador.tipos.length, generador.filas, generador.clases, generador.practicas,
+                          generador.eventos, generador.canceladas, generador.conflictos);
+        System.out.printf("Hasta %s, en %.1f s (%.0f filas/s) en %s%n", generador.ultimaFecha, segundos,
+                          generador.filas / segundos, destino.toAbsolutePath());
+    }
+
+    private final SplittableRandom azar;
+    private final int semilla;
+    private final LocalDate desde;
+    private final double tasaCancelacion;
+    private final double tasaConflictos;
+    private final TipoAula[] tipos;
+    private final int[] capacidades;
+
+    // Horario del semestre: por aula, un valor por dia y bloque con la clase
+    // (indice de docente, materia y grupo mezclados) o SIN_CLASE.
+    private final int[][] horario;
+    private final boolean[][] practica;
+
+    private final StringBuilder linea = new StringBuilder(160);
+    private long filas;
+    private long clases;
+    private long practicas;
+    private long eventos;
+    private long canceladas;
+    private long conflictos;
+    private LocalDate ultimaFecha;
+    private long totalFilas;
+
+    GeneradorCampus(int aulas, long semilla, LocalDate desde, double tasaCancelacion, double tasaConflictos) {
+        this.azar = new SplittableRandom(semilla);
+        this.semilla = (int) (semilla ^ (semilla >>> 32));
+        this.desde = desde.with(DayOfWeek.MONDAY);
+        this.tasaCancelacion = tasaCancelacion;
+        this.tasaConflictos = tasaConflictos;
+        this.tipos = new TipoAula[aulas];
+        this.capacidades = new int[aulas];
+        this.horario = new int[aulas][DIAS * BLOQUES];
+        this.practica = new boolean[aulas][DIAS * BLOQUES];
+        for (int i = 0; i < aulas; i++) {
+            double tipo = azar.nextDouble();
+            if (tipo < 0.6) {
+                tipos[i] = TipoAula.TEORICA;
+                capacidades[i] = 25 + 5 * azar.nextInt(8);
+            } else if (tipo < 0.9) {
+                tipos[i] = TipoAula.LABORATORIO;
+                capacidades[i] = 15 + 5 * azar.nextInt(5);
+            } else {
+                tipos[i] = TipoAula.AUDITORIO;
+                capacidades[i] = 100 + 50 * azar.nextInt(9);
+            }
+        }
+    }
+
+    void escribirAulas(Writer salida) throws IOException {
+        for (int i = 0; i < tipos.length; i++) {
+            salida.write(idAula(i) + "," + prefijo(tipos[i]) + (i + 1) + "," + capacidades[i] + "," + tipos[i] + "\n");
+        }
+    }
+
+    void escribirReservas(Writer salida, long total) throws IOException {
+        totalFilas = total;
+        for (int semana = 0; filas < total; semana++) {
+            int enSemestre = semana % (SEMANAS_CLASES + SEMANAS_RECESO);
+            if (enSemestre == 0) armarHorario();
+            boolean receso = enSemestre >= SEMANAS_CLASES;
+            for (int dia = 0; dia < DIAS && filas < total; dia++) {
+                LocalDate fecha = desde.plusDays(semana * 7L + dia);
+                for (int aula = 0; aula < tipos.length && filas < total; aula++) {
+                    if (tipos[aula] == TipoAula.AUDITORIO) {
+                        escribirAuditorio(salida, aula, fecha, total);
+                    } else {
+                        escribirBloques(salida, aula, dia, fecha, receso, total);
+                    }
+                }
+                ultimaFecha = fecha;
+            }
+        }
+    }
+
+    private void armarHorario() {
+        int docentes = Math.max(50, tipos.length * 2);
+        for (int aula = 0; aula < tipos.length; aula++) {
+            for (int dia = 0; dia < DIAS; dia++) {
+                for (int bloque = 0; bloque < BLOQUES; bloque++) {
+                    int i = dia * BLOQUES + bloque;
+                    double ocupacion = dia == DIAS - 1 ? (bloque < 3 ? OCUPACION_SABADO : 0) : OCUPACION_BLOQUE[bloque];
+                    boolean hayClase = tipos[aula] != TipoAula.AUDITORIO && azar.nextDouble() < ocupacion;
+                    horario[aula][i] = hayClase ? azar.nextInt(docentes) * 1024 + azar.nextInt(1024) : SIN_CLASE;
+                    practica[aula][i] = hayClase && tipos[aula] == TipoAula.LABORATORIO
+                                        && azar.nextDouble() < PRACTICAS_EN_LABORATORIO;
+                }
+            }
+        }
+    }
+
+    // Clases y practicas del horario (salvo en receso) y eventos sueltos en
+    // los bloques libres. Las clases duran 90 o 120 minutos.
+    private void escribirBloques(Writer salida, int aula, int dia, LocalDate fecha, boolean receso, long total)
+            throws IOException {
+        for (int bloque = 0; bloque < BLOQUES && filas < total; bloque++) {
+            int inicio = PRIMER_BLOQUE + bloque * MINUTOS_BLOQUE;
+            int clase = horario[aula][dia * BLOQUES + bloque];
+            if (clase != SIN_CLASE && !receso) {
+                int duracion = (clase & 1) == 0 ? 120 : 90;
+                String docente = docente(clase >>> 10);
+                if (practica[aula][dia * BLOQUES + bloque]) {
+                    escribirPractica(salida, aula, fecha, inicio, duracion, docente, clase);
+                } else {
+                    escribirClase(salida, aula, fecha, inicio, duracion, docente, clase);
+                }
+            } else if (azar.nextDouble() < EVENTO_EN_BLOQUE_LIBRE) {
+                TipoEvento tipo = azar.nextBoolean() ? TipoEvento.TALLER : TipoEvento.REUNION;
+                escribirEvento(salida, aula, fecha, inicio, MINUTOS_BLOQUE, docente(azar.nextInt(1 << 16)), tipo);
+            }
+        }
+    }
+
+    // De 0 a 3 eventos por dia, uno detras de otro desde las 08:00.
+    private void escribirAuditorio(Writer salida, int aula, LocalDate fecha, long total) throws IOException {
+        int inicio = 8 * 60 + 30 * azar.nextInt(4);
+        int cantidad = azar.nextInt(4);
+        for (int i = 0; i < cantidad && filas < total; i++) {
+            int duracion = 60 * (2 + azar.nextInt(3));
+            if (inicio + duracion > 21 * 60) break;
+            TipoEvento tipo = azar.nextDouble() < 0.7 ? TipoEvento.CONFERENCIA : TipoEvento.REUNION;
+            escribirEvento(salida, aula, fecha, inicio, duracion, docente(azar.nextInt(1 << 16)), tipo);
+            inicio += duracion + 30 * azar.nextInt(3);
+        }
+    }
+
+    private void escribirClase(Writer salida, int aula, LocalDate fecha, int inicio, int duracion,
+                               String docente, int clase) throws IOException {
+        comenzar("CLASE", aula, fecha, inicio, duracion, docente);
+        linea.append(',').append(MATERIAS[(clase >>> 1) % MATERIAS.length])
+             .append(',').append(CARRERAS[(clase >>> 5) % CARRERAS.length]).append(100 + (clase >>> 3) % 400);
+        terminar(salida, aula, fecha, inicio, duracion);
+        clases++;
+    }
+
+    private void escribirPractica(Writer salida, int aula, LocalDate fecha, int inicio, int duracion,
+                                  String docente, int clase) throws IOException {
+        comenzar("PRACTICA", aula, fecha, inicio, duracion, docente);
+        linea.append(',').append(EQUIPOS[(clase >>> 2) % EQUIPOS.length]);
+        terminar(salida, aula, fecha, inicio, duracion);
+        practicas++;
+    }
+
+    private void escribirEvento(Writer salida, int aula, LocalDate fecha, int inicio, int duracion,
+                                String responsable, TipoEvento tipo) throws IOException {
+        comenzar("EVENTO", aula, fecha, inicio, duracion, responsable);
+        int aforo = Math.max(1, (int) (capacidades[aula] * (0.3 + 0.7 * azar.nextDouble())));
+        linea.append(',').append(tipo).append(',').append(aforo);
+        terminar(salida, aula, fecha, inicio, duracion);
+        eventos++;
+    }
+
+    private void comenzar(String tipo, int aula, LocalDate fecha, int inicio, int duracion, String responsable) {
+        boolean cancelada = azar.nextDouble() < tasaCancelacion;
+        linea.setLength(0);
+        linea.append(tipo).append(',').append(idReserva(filas)).append(',').append(idAula(aula))
+             .append(',').append(fecha).append(',').append(LocalTime.of(inicio / 60, inicio % 60))
+             .append(',').append(LocalTime.of((inicio + duracion) / 60, (inicio + duracion) % 60))
+             .append(',').append(responsable)
+             .append(',').append(cancelada ? EstadoReserva.CANCELADA : EstadoReserva.ACTIVA);
+        if (cancelada) canceladas++;
+    }
+
+    // Con la tasa de conflictos se agrega otra reserva ACTIVA en la misma
+    // aula que empieza 30 minutos despues y termina a la misma hora que la
+    // recien escrita: se solapa solo con ella.
+    private void terminar(Writer salida, int aula, LocalDate fecha, int inicio, int duracion) throws IOException {
+        linea.append('\n');
+        salida.append(linea);
+        filas++;
+        if (tasaConflictos > 0 && filas < totalFilas && azar.nextDouble() < tasaConflictos) {
+            int desplazado = inicio + 30;
+            String responsable = docente(azar.nextInt(1 << 16));
+            linea.setLength(0);
+            linea.append(tipos[aula] == TipoAula.AUDITORIO ? "EVENTO" : "CLASE")
+                 .append(',').append(idReserva(filas)).append(',').append(idAula(aula))
+                 .append(',').append(fecha).append(',').append(LocalTime.of(desplazado / 60, desplazado % 60))
+                 .append(',').append(LocalTime.of((inicio + duracion) / 60, (inicio + duracion) % 60))
+                 .append(',').append(responsable).append(',').append(EstadoReserva.ACTIVA);
+            if (tipos[aula] == TipoAula.AUDITORIO) {
+                linea.append(',').append(TipoEvento.REUNION).append(',').append(1 + azar.nextInt(capacidades[aula]));
+            } else {
+                linea.append(',').append(MATERIAS[azar.nextInt(MATERIAS.length)]).append(',').append("CONFLICTO");
+            }
+            linea.append('\n');
+            salida.append(linea);
+            filas++;
+            conflictos++;
+        }
+    }
+
+    private static String idAula(int aula) {
+        return Integer.toString(aula + 1);
+    }
+
+    private static String prefijo(TipoAula tipo) {
+        return tipo == TipoAula.TEORICA ? "TEO" : tipo == TipoAula.LABORATORIO ? "LAB" : "AUD";
+    }
+
+    // 8 digitos hexadecimales como los IDs de la aplicacion. Multiplicar por
+    // un impar es biyectivo modulo 2^32: no se repiten hasta 2^32 reservas.
+    private String idReserva(long numero) {
+        int id = (int) numero * 0x9E3779B1 ^ semilla;
+        String hex = Integer.toHexString(id).toUpperCase();
+        return "00000000".substring(hex.length()) + hex;
+    }
+
+    // Nombre completo derivado del indice, sin guardar una lista de docentes.
+    private String docente(int indice) {
+        int h = (indice + semilla) * 0x85EBCA6B;
+        h ^= h >>> 13;
+        h *= 0xC2B2AE35;
+        h ^= h >>> 16;
+        h &= Integer.MAX_VALUE;
+        return NOMBRES[h % NOMBRES.length] + " " + APELLIDOS[(h / NOMBRES.length) % APELLIDOS.length] + " "
+               + APELLIDOS[(h / NOMBRES.length / APELLIDOS.length) % APELLIDOS.length];
+    }
+}
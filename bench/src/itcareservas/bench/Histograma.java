@@ -0,0 +1,63 @@
+package itcareservas.bench;
+
+// Histograma de latencias en nanosegundos con cubetas log-lineales: exacto
+// hasta 63 ns y desde ahi 32 cubetas por potencia de 2 (error menor a 3.2%).
+// Lo usa un solo hilo; los de varios clientes se juntan con sumar.
+final class Histograma {
+    private static final int SUB = 32;
+    private static final int CUBETAS = 2 * SUB + (63 - 6) * SUB;
+
+    private final long[] cuentas = new long[CUBETAS];
+    private long total;
+    private long maximo;
+
+    void registrar(long nanos) {
+        if (nanos < 0) nanos = 0;
+        cuentas[cubeta(nanos)]++;
+        total++;
+        if (nanos > maximo) maximo = nanos;
+    }
+
+    void sumar(Histograma otro) {
+        for (int i = 0; i < CUBETAS; i++) {
+            cuentas[i] += otro.cuentas[i];
+        }
+        total += otro.total;
+        maximo = Math.max(maximo, otro.maximo);
+    }
+
+    long getTotal() {
+        return total;
+    }
+
+    long getMaximo() {
+        return maximo;
+    }
+
+    // Mayor valor de la cubeta donde cae el percentil (0 a 100).
+    long percentil(double percentil) {
+        if (total == 0) return 0;
+        long objetivo = Math.max(1, (long) Math.ceil(percentil / 100.0 * total));
+        long acumulado = 0;
+        for (int i = 0; i < CUBETAS; i++) {
+            acumulado += cuentas[i];
+            if (acumulado >= objetivo) return Math.min(maximo, limiteSuperior(i));
+        }
+        return maximo;
+    }
+
+    private static int cubeta(long nanos) {
+        if (nanos < 2 * SUB) return (int) nanos;
+        int exponente = 63 - Long.numberOfLeadingZeros(nanos);
+        int desplazamiento = exponente - 5;
+        return 2 * SUB + (exponente - 6) * SUB + (int) (nanos >>> desplazamiento) - SUB;
+    }
+
+    private static long limiteSuperior(int cubeta) {
+        if (cubeta < 2 * SUB) return cubeta;
+        int exponente = (cubeta - 2 * SUB) / SUB + 6;
+        int sub = (cubeta - 2 * SUB) % SUB;
+        int desplazamiento = exponente - 5;
+        return ((long) (SUB + sub + 1) << desplazamiento) - 1;
+    }
+}
@@ -0,0 +1,232 @@
+package itcareservas.bench;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+// Arnes de medicion con el mismo esquema que JMH: iteraciones de
+// calentamiento, iteraciones medidas de duracion fija, resultado con error al
+// 99.9% (t de Student) y tasa de asignacion como el perfilador "gc" de JMH.
+// Los resultados se escriben en el CSV de JMH (-rf csv) para poder compararlos
+// con las mismas herramientas.
+//
+// La asignacion se mide con los contadores por hilo de la JVM (HotSpot),
+// sumando todos los hilos vivos: cuenta tambien lo que asignan los hilos del
+// pool comun en las operaciones paralelas.
+final class Medidor {
+    // Una llamada a la operacion medida; lo que devuelve va al sumidero para
+    // que el JIT no elimine el trabajo.
+    interface Operacion {
+        Object ejecutar() throws Exception;
+    }
+
+    static final class Resultado {
+        final String benchmark;
+        final String modo;
+        final String unidad;
+        final double[] muestras;
+        final Map<String, String> parametros;
+
+        Resultado(String benchmark, String modo, String unidad, double[] muestras, Map<String, String> parametros) {
+            this.benchmark = benchmark;
+            this.modo = modo;
+            this.unidad = unidad;
+            this.muestras = muestras;
+            this.parametros = parametros;
+        }
+
+        double promedio() {
+            double suma = 0;
+            for (double muestra : muestras) suma += muestra;
+            return suma / muestras.length;
+        }
+
+        // Semiancho del intervalo al 99.9%; NaN con una sola muestra, como JMH.
+        double error() {
+            int n = muestras.length;
+            if (n < 2) return Double.NaN;
+            double media = promedio();
+            double suma = 0;
+            for (double muestra : muestras) suma += (muestra - media) * (muestra - media);
+            return t999(n - 1) * Math.sqrt(suma / (n - 1)) / Math.sqrt(n);
+        }
+    }
+
+    // Cuantil 0.9995 de la t de Student por grados de libertad (1 a 30).
+    private static final double[] T_999 = {
+        636.619, 31.599, 12.924, 8.610, 6.869, 5.959, 5.408, 5.041, 4.781, 4.587,
+        4.437, 4.318, 4.221, 4.140, 4.073, 4.015, 3.965, 3.922, 3.883, 3.850,
+        3.819, 3.792, 3.768, 3.745, 3.725, 3.707, 3.690, 3.674, 3.659, 3.646
+    };
+
+    private static double t999(int gradosLibertad) {
+        if (gradosLibertad <= T_999.length) return T_999[gradosLibertad - 1];
+        return 3.291 + (T_999[T_999.length - 1] - 3.291) * T_999.length / gradosLibertad;
+    }
+
+    private static final String PREFIJO = BenchmarksReservas.class.getName() + ".";
+    // Cada lote de llamadas dura al menos esto, para que leer el reloj no pese
+    // en operaciones de pocos nanosegundos.
+    private static final long NANOS_LOTE = 100_000;
+
+    private static volatile int sumidero;
+
+    private final com.sun.management.ThreadMXBean hilos =
+        (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+    private final int calentamiento;
+    private final int iteraciones;
+    private final long nanosIteracion;
+    private final List<Resultado> resultados = new ArrayList<>();
+    private Map<String, String> parametros = new LinkedHashMap<>();
+
+    Medidor(int calentamiento, int iteraciones, long milisIteracion) {
+        this.calentamiento = calentamiento;
+        this.iteraciones = iteraciones;
+        this.nanosIteracion = milisIteracion * 1_000_000L;
+    }
+
+    // Parametros del dataset que se anotan en los resultados siguientes.
+    void setParametros(Map<String, String> parametros) {
+        this.parametros = new LinkedHashMap<>(parametros);
+    }
+
+    List<Resultado> getResultados() {
+        return resultados;
+    }
+
+    // Modo "thrpt": operaciones por segundo durante iteraciones de duracion fija.
+    void rendimiento(String nombre, Operacion operacion) throws Exception {
+        int lote = 1;
+        for (int i = 0; i < calentamiento; i++) {
+            lote = iteracion(operacion, lote, null);
+        }
+        double[] opsPorSegundo = new double[iteraciones];
+        double[] bytesPorOp = new double[iteraciones];
+        double[] mbPorSegundo = new double[iteraciones];
+        for (int i = 0; i < iteraciones; i++) {
+            double[] medida = new double[3];
+            lote = iteracion(operacion, lote, medida);
+            opsPorSegundo[i] = medida[0] / (medida[1] / 1e9);
+            bytesPorOp[i] = medida[2] / medida[0];
+            mbPorSegundo[i] = medida[2] / (1024.0 * 1024.0) / (medida[1] / 1e9);
+        }
+        agregar(nombre, "thrpt", "ops/s", opsPorSegundo, mbPorSegundo, bytesPorOp);
+    }
+
+    // Modo "ss": cada iteracion es una sola llamada, para operaciones largas
+    // como cargar o guardar todo el archivo. 'preparar' corre fuera de la medicion.
+    void unaVez(String nombre, Runnable preparar, Operacion operacion) throws Exception {
+        for (int i = 0; i < calentamiento; i++) {
+            preparar.run();
+            consumir(operacion.ejecutar());
+        }
+        double[] milis = new double[iteraciones];
+        double[] bytesPorOp = new double[iteraciones];
+        double[] mbPorSegundo = new double[iteraciones];
+        for (int i = 0; i < iteraciones; i++) {
+            preparar.run();
+            long bytes = bytesAsignados();
+            long inicio = System.nanoTime();
+            consumir(operacion.ejecutar());
+            long nanos = System.nanoTime() - inicio;
+            bytes = bytesAsignados() - bytes;
+            milis[i] = nanos / 1e6;
+            bytesPorOp[i] = bytes;
+            mbPorSegundo[i] = bytes / (1024.0 * 1024.0) / (nanos / 1e9);
+        }
+        agregar(nombre, "ss", "ms/op", milis, mbPorSegundo, bytesPorOp);
+    }
+
+    // Devuelve el tamano de lote para la proxima iteracion. 'medida' recibe
+    // operaciones, nanos y bytes asignados.
+    private int iteracion(Operacion operacion, int lote, double[] medida) throws Exception {
+        long operaciones = 0;
+        long bytes = bytesAsignados();
+        long inicio = System.nanoTime();
+        long ahora = inicio;
+        while (ahora - inicio < nanosIteracion) {
+            long inicioLote = ahora;
+            for (int i = 0; i < lote; i++) {
+                consumir(operacion.ejecutar());
+            }
+            operaciones += lote;
+            ahora = System.nanoTime();
+            if (ahora - inicioLote < NANOS_LOTE && lote < (1 << 20)) lote *= 2;
+        }
+        if (medida != null) {
+            medida[0] = operaciones;
+            medida[1] = ahora - inicio;
+            medida[2] = bytesAsignados() - bytes;
+        }
+        return lote;
+    }
+
+    private static void consumir(Object resultado) {
+        sumidero ^= System.identityHashCode(resultado);
+    }
+
+    private long bytesAsignados() {
+        long total = 0;
+        for (long bytes : hilos.getThreadAllocatedBytes(hilos.getAllThreadIds())) {
+            if (bytes > 0) total += bytes;
+        }
+        return total;
+    }
+
+    private void agregar(String nombre, String modo, String unidad, double[] muestras,
+                         double[] mbPorSegundo, double[] bytesPorOp) {
+        Resultado principal = new Resultado(PREFIJO + nombre, modo, unidad, muestras, parametros);
+        resultados.add(principal);
+        resultados.add(new Resultado(PREFIJO + nombre + ":·gc.alloc.rate", modo, "MB/sec", mbPorSegundo, parametros));
+        resultados.add(new Resultado(PREFIJO + nombre + ":·gc.alloc.rate.norm", modo, "B/op", bytesPorOp, parametros));
+        System.out.println(String.format(Locale.ROOT, "%-32s %-6s %14.3f ± %12.3f %-6s %12.1f B/op  %s",
+                                         nombre, modo, principal.promedio(), principal.error(), unidad,
+                                         promedio(bytesPorOp), parametros));
+    }
+
+    private static double promedio(double[] valores) {
+        double suma = 0;
+        for (double valor : valores) suma += valor;
+        return suma / valores.length;
+    }
+
+    // Mismas columnas que el CSV de JMH; los parametros van en orden alfabetico.
+    void escribirCsv(Path archivo) throws IOException {
+        List<String> nombres = new ArrayList<>();
+        for (Resultado resultado : resultados) {
+            for (String parametro : resultado.parametros.keySet()) {
+                if (!nombres.contains(parametro)) nombres.add(parametro);
+            }
+        }
+        nombres.sort(null);
+        try (PrintWriter salida = new PrintWriter(Files.newBufferedWriter(archivo, StandardCharsets.UTF_8))) {
+            StringBuilder encabezado = new StringBuilder(
+                "\"Benchmark\",\"Mode\",\"Threads\",\"Samples\",\"Score\",\"Score Error (99.9%)\",\"Unit\"");
+            for (String parametro : nombres) {
+                encabezado.append(",\"Param: ").append(parametro).append('"');
+            }
+            salida.println(encabezado);
+            for (Resultado resultado : resultados) {
+                StringBuilder linea = new StringBuilder();
+                linea.append('"').append(resultado.benchmark).append("\",\"").append(resultado.modo).append("\",1,")
+                     .append(resultado.muestras.length).append(',')
+                     .append(String.format(Locale.ROOT, "%.6f", resultado.promedio())).append(',')
+                     .append(String.format(Locale.ROOT, "%.6f", resultado.error())).append(",\"")
+                     .append(resultado.unidad).append('"');
+                for (String parametro : nombres) {
+                    String valor = resultado.parametros.get(parametro);
+                    linea.append(',').append(valor == null ? "" : valor);
+                }
+                salida.println(linea);
+            }
+        }
+    }
+}
@@ -0,0 +1,342 @@
+package itcareservas.bench;
+
+import itcareservas.excepciones.ConflictoHorarioException;
+import itcareservas.excepciones.NoEncontradoException;
+import itcareservas.excepciones.ReglaNegocioException;
+import itcareservas.modelo.Aula;
+import itcareservas.modelo.Reserva;
+import itcareservas.modelo.ReservaClase;
+import itcareservas.servicios.GestorReservas;
+import itcareservas.servicios.PersistenciaUtil;
+import itcareservasmodelo.enums.EstadoReserva;
+import itcareservasmodelo.enums.TipoAula;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+
+// Prueba de carga de punta a punta: N clientes concurrentes llaman a
+// GestorReservas con una mezcla de operaciones durante un tiempo fijo. Al
+// final muestra rendimiento, latencias (p50, p99, p99.9) y tasa de rechazo
+// por conflicto de cada operacion, y verifica que no quedaron dos reservas
+// ACTIVAS solapadas en la misma aula. Sale con codigo 1 si la verificacion
+// falla. Uso:
+//
+//   ant carga -Dcarga.args="--clientes 200 --perfil aula-caliente"
+//
+// Opciones (valores por defecto entre parentesis):
+//   --clientes 64 --duracion 20 --calentamiento 5 (segundos)
+//   --mezcla registrar=50,modificar=15,cancelar=10,listar=15,reportes=10
+//   --perfil uniforme     aula y horario al azar en las proximas 4 semanas
+//            zipf         pocas aulas y las horas de la manana concentran la demanda
+//            aula-caliente todos reservan la misma aula, el mismo dia, a las 10:00
+//   --origen sintetico    dataset de DatosPrueba (--aulas 100 --reservas 100000)
+//            csv          aulas.csv y reservas.csv del directorio de trabajo
+//                         (por ejemplo los de ant generar-datos)
+//   --hilos auto          virtuales si la JVM los tiene (21+), si no de plataforma
+//   --semilla 42
+//
+// Las reservas nuevas caen despues de la ultima fecha cargada, asi que los
+// conflictos vienen solo de la competencia entre clientes. Nada se escribe a
+// disco.
+public class PruebaCarga {
+    private static final String[] OPERACIONES = { "registrar", "modificar", "cancelar", "listar", "reportes" };
+    private static final String[] ORDENES = { "id", "fecha", "responsable", "aula" };
+    private static final int VENTANA_DIAS = 28;
+    private static final int PAGINA = 50;
+    private static final int PROPIAS_MAX = 1000;
+
+    private static final int CALENTANDO = 0;
+    private static final int MIDIENDO = 1;
+    private static final int TERMINADO = 2;
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> opciones = new LinkedHashMap<>();
+        opciones.put("clientes", "64");
+        opciones.put("duracion", "20");
+        opciones.put("calentamiento", "5");
+        opciones.put("mezcla", "registrar=50,modificar=15,cancelar=10,listar=15,reportes=10");
+        opciones.put("perfil", "uniforme");
+        opciones.put("origen", "sintetico");
+        opciones.put("aulas", "100");
+        opciones.put("reservas", "100000");
+        opciones.put("hilos", "auto");
+        opciones.put("semilla", "42");
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            if (!args[i].startsWith("--") || !opciones.containsKey(args[i].substring(2))) {
+                throw new IllegalArgumentException("Opcion desconocida: " + args[i]);
+            }
+            opciones.put(args[i].substring(2), args[i + 1]);
+        }
+
+        PruebaCarga prueba = new PruebaCarga(opciones);
+        boolean correcta = prueba.correr(Integer.parseInt(opciones.get("clientes")),
+                                         Integer.parseInt(opciones.get("calentamiento")),
+                                         Integer.parseInt(opciones.get("duracion")),
+                                         opciones.get("hilos"));
+        System.exit(correcta ? 0 : 1);
+    }
+
+    private final GestorReservas gestor = new GestorReservas();
+    private final String perfil;
+    private final long semilla;
+    private final int[] pesos = new int[OPERACIONES.length];
+    private final List<Aula> aulas = new ArrayList<>();
+    // Distribucion acumulada de Zipf (s = 1) sobre las aulas, para el perfil zipf.
+    private final double[] zipf;
+    private final LocalDate primerDia;
+    private volatile int fase = CALENTANDO;
+
+    private PruebaCarga(Map<String, String> opciones) {
+        this.perfil = opciones.get("perfil");
+        this.semilla = Long.parseLong(opciones.get("semilla"));
+        if (!Arrays.asList("uniforme", "zipf", "aula-caliente").contains(perfil)) {
+            throw new IllegalArgumentException("Perfil desconocido: " + perfil);
+        }
+        for (String parte : opciones.get("mezcla").split(",")) {
+            String[] par = parte.split("=");
+            int operacion = Arrays.asList(OPERACIONES).indexOf(par[0].trim());
+            if (operacion < 0) throw new IllegalArgumentException("Operacion desconocida: " + par[0]);
+            pesos[operacion] = Integer.parseInt(par[1].trim());
+        }
+        if (Arrays.stream(pesos).sum() <= 0) throw new IllegalArgumentException("La mezcla no tiene operaciones.");
+
+        long inicio = System.nanoTime();
+        if ("csv".equals(opciones.get("origen"))) {
+            new PersistenciaUtil(gestor).cargarDatos();
+        } else {
+            List<Aula> sinteticas = DatosPrueba.aulas(Integer.parseInt(opciones.get("aulas")), semilla);
+            gestor.cargarAulas(sinteticas);
+            gestor.cargarReservas(DatosPrueba.reservas(sinteticas, Integer.parseInt(opciones.get("reservas")), semilla));
+        }
+        for (Aula aula : gestor.listarAulas()) {
+            if (aula.getTipo() != TipoAula.AUDITORIO) aulas.add(aula);
+        }
+        if (aulas.isEmpty()) throw new IllegalStateException("No hay aulas teoricas ni laboratorios.");
+        aulas.sort(Comparator.comparing(Aula::getId));
+        LocalDate ultimo = gestor.getReservas().stream().map(Reserva::getFecha)
+                                 .max(Comparator.naturalOrder()).orElse(DatosPrueba.INICIO);
+        this.primerDia = ultimo.plusDays(1);
+        this.zipf = new double[aulas.size()];
+        double suma = 0;
+        for (int i = 0; i < zipf.length; i++) {
+            suma += 1.0 / (i + 1);
+            zipf[i] = suma;
+        }
+        for (int i = 0; i < zipf.length; i++) {
+            zipf[i] /= suma;
+        }
+        System.out.printf("Cargadas %d aulas y %d reservas en %.1f s; reservas nuevas desde %s%n",
+                          gestor.listarAulas().size(), gestor.getReservas().size(),
+                          (System.nanoTime() - inicio) / 1e9, primerDia);
+    }
+
+    // Lo que mide cada cliente; se junta al final.
+    private static final class Medicion {
+        final Histograma[] latencias = new Histograma[OPERACIONES.length];
+        final long[] conflictos = new long[OPERACIONES.length];
+        final long[] errores = new long[OPERACIONES.length];
+
+        Medicion() {
+            for (int i = 0; i < latencias.length; i++) latencias[i] = new Histograma();
+        }
+
+        void sumar(Medicion otra) {
+            for (int i = 0; i < latencias.length; i++) {
+                latencias[i].sumar(otra.latencias[i]);
+                conflictos[i] += otra.conflictos[i];
+                errores[i] += otra.errores[i];
+            }
+        }
+    }
+
+    private boolean correr(int clientes, int calentamiento, int duracion, String hilos) throws Exception {
+        ExecutorService ejecutor = null;
+        String tipoHilos = "de plataforma";
+        if (!"plataforma".equals(hilos)) {
+            try {
+                ejecutor = (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+                tipoHilos = "virtuales";
+            } catch (ReflectiveOperationException e) {
+                if ("virtuales".equals(hilos)) throw new IllegalStateException("Esta JVM no tiene hilos virtuales.");
+            }
+        }
+        if (ejecutor == null) ejecutor = Executors.newFixedThreadPool(clientes);
+
+        List<Future<Medicion>> resultados = new ArrayList<>();
+        for (int i = 0; i < clientes; i++) {
+            int cliente = i;
+            resultados.add(ejecutor.submit(() -> cliente(cliente)));
+        }
+        Thread.sleep(calentamiento * 1000L);
+        fase = MIDIENDO;
+        long inicio = System.nanoTime();
+        Thread.sleep(duracion * 1000L);
+        fase = TERMINADO;
+        double segundos = (System.nanoTime() - inicio) / 1e9;
+        Medicion total = new Medicion();
+        for (Future<Medicion> resultado : resultados) {
+            total.sumar(resultado.get());
+        }
+        ejecutor.shutdown();
+
+        System.out.printf("%nPerfil %s, %d clientes (hilos %s), %.1f s medidos%n", perfil, clientes, tipoHilos, segundos);
+        System.out.printf("%-10s %10s %10s %10s %10s %10s %10s %11s %8s%n", "operacion", "ops", "ops/s",
+                          "p50 (us)", "p99 (us)", "p99.9 (us)", "max (us)", "conflictos", "errores");
+        Histograma todas = new Histograma();
+        for (int i = 0; i < OPERACIONES.length; i++) {
+            Histograma h = total.latencias[i];
+            todas.sumar(h);
+            if (h.getTotal() == 0) continue;
+            System.out.printf(Locale.ROOT, "%-10s %10d %10.0f %10.1f %10.1f %10.1f %10.1f %11d %8d%n", OPERACIONES[i],
+                              h.getTotal(), h.getTotal() / segundos, h.percentil(50) / 1e3, h.percentil(99) / 1e3,
+                              h.percentil(99.9) / 1e3, h.getMaximo() / 1e3, total.conflictos[i], total.errores[i]);
+        }
+        System.out.printf(Locale.ROOT, "%-10s %10d %10.0f %10.1f %10.1f %10.1f %10.1f%n", "total", todas.getTotal(),
+                          todas.getTotal() / segundos, todas.percentil(50) / 1e3, todas.percentil(99) / 1e3,
+                          todas.percentil(99.9) / 1e3, todas.getMaximo() / 1e3);
+        long intentos = total.latencias[0].getTotal() + total.latencias[1].getTotal();
+        long rechazos = total.conflictos[0] + total.conflictos[1];
+        System.out.printf(Locale.ROOT, "Rechazo por conflicto: %.2f%% de %d altas y modificaciones%n",
+                          intentos == 0 ? 0.0 : rechazos * 100.0 / intentos, intentos);
+        return verificar();
+    }
+
+    private Medicion cliente(int numero) {
+        SplittableRandom azar = new SplittableRandom(semilla * 31 + numero);
+        Medicion medicion = new Medicion();
+        List<String> propias = new ArrayList<>();
+        int sumaPesos = 0;
+        for (int peso : pesos) sumaPesos += peso;
+        long altas = 0;
+
+        while (fase != TERMINADO) {
+            int operacion = elegir(azar.nextInt(sumaPesos));
+            // Sin reservas propias no hay que modificar ni cancelar: se da de alta una.
+            if ((operacion == 1 || operacion == 2) && propias.isEmpty()) operacion = 0;
+            boolean medir = fase == MIDIENDO;
+            long inicio = System.nanoTime();
+            try {
+                switch (operacion) {
+                    case 0: {
+                        Reserva nueva = nuevaReserva(azar, "C" + numero + "-" + altas++);
+                        gestor.registrarReserva(nueva);
+                        if (propias.size() == PROPIAS_MAX) propias.set(azar.nextInt(PROPIAS_MAX), nueva.getId());
+                        else propias.add(nueva.getId());
+                        break;
+                    }
+                    case 1: {
+                        Reserva destino = nuevaReserva(azar, "");
+                        gestor.modificarReserva(propias.get(azar.nextInt(propias.size())), destino.getFecha(),
+                                                destino.getHoraInicio(), destino.getHoraFin(), destino.getAula().getId());
+                        break;
+                    }
+                    case 2: {
+                        int i = azar.nextInt(propias.size());
+                        String id = propias.get(i);
+                        propias.set(i, propias.get(propias.size() - 1));
+                        propias.remove(propias.size() - 1);
+                        gestor.cancelarReserva(id);
+                        break;
+                    }
+                    case 3:
+                        gestor.listarReservas(ORDENES[azar.nextInt(ORDENES.length)], null, PAGINA);
+                        break;
+                    default:
+                        switch (azar.nextInt(3)) {
+                            case 0: gestor.reporteTopAulasPorHoras(); break;
+                            case 1: gestor.reporteHorasPorTipoAula(); break;
+                            default: gestor.reporteDistribucionPorTipo();
+                        }
+                }
+            } catch (ConflictoHorarioException e) {
+                if (medir) medicion.conflictos[operacion]++;
+            } catch (NoEncontradoException | ReglaNegocioException e) {
+                if (medir) medicion.errores[operacion]++;
+            }
+            if (medir) medicion.latencias[operacion].registrar(System.nanoTime() - inicio);
+        }
+        return medicion;
+    }
+
+    private int elegir(int valor) {
+        for (int i = 0; i < pesos.length; i++) {
+            if (valor < pesos[i]) return i;
+            valor -= pesos[i];
+        }
+        return pesos.length - 1;
+    }
+
+    // Aula, dia y horario segun el perfil; de 1 o 2 horas entre las 07:00 y las 21:00.
+    private Reserva nuevaReserva(SplittableRandom azar, String id) {
+        Aula aula;
+        LocalDate fecha;
+        int hora;
+        int horas = 1 + azar.nextInt(2);
+        switch (perfil) {
+            case "aula-caliente":
+                aula = aulas.get(0);
+                fecha = primerDia;
+                hora = 10;
+                horas = 1;
+                break;
+            case "zipf": {
+                int i = Arrays.binarySearch(zipf, azar.nextDouble());
+                aula = aulas.get(Math.min(aulas.size() - 1, i < 0 ? -i - 1 : i));
+                fecha = primerDia.plusDays(azar.nextInt(5));
+                hora = azar.nextDouble() < 0.7 ? 8 + azar.nextInt(4) : 7 + azar.nextInt(13);
+                break;
+            }
+            default:
+                aula = aulas.get(azar.nextInt(aulas.size()));
+                fecha = primerDia.plusDays(azar.nextInt(VENTANA_DIAS));
+                hora = 7 + azar.nextInt(13);
+        }
+        hora = Math.min(hora, 21 - horas);
+        return new ReservaClase(id, aula, fecha, LocalTime.of(hora, 0), LocalTime.of(hora + horas, 0),
+                                "Cliente " + id, "Carga", "G1");
+    }
+
+    // Ninguna pareja de reservas ACTIVAS de la misma aula y dia puede solaparse.
+    private boolean verificar() {
+        Map<String, List<Reserva>> porAulaYDia = gestor.getReservas().stream()
+            .filter(r -> r.getEstado() == EstadoReserva.ACTIVA)
+            .collect(Collectors.groupingBy(r -> r.getAula().getId() + "|" + r.getDiaEpoch()));
+        long activas = 0;
+        List<String> solapes = new ArrayList<>();
+        for (List<Reserva> delDia : porAulaYDia.values()) {
+            activas += delDia.size();
+            delDia.sort(Comparator.comparingInt(Reserva::getMinutoInicio));
+            int fin = -1;
+            Reserva anterior = null;
+            for (Reserva reserva : delDia) {
+                if (reserva.getMinutoInicio() < fin) {
+                    solapes.add(anterior.getId() + " / " + reserva.getId() + " en aula " + reserva.getAula().getId()
+                                + " el " + reserva.getFecha());
+                }
+                if (reserva.getMinutoFin() > fin) {
+                    fin = reserva.getMinutoFin();
+                    anterior = reserva;
+                }
+            }
+        }
+        if (solapes.isEmpty()) {
+            System.out.println("Verificacion: " + activas + " reservas activas, ninguna solapada.");
+            return true;
+        }
+        System.out.println("Verificacion FALLIDA: " + solapes.size() + " solapes entre reservas activas, por ejemplo:");
+        solapes.stream().limit(10).forEach(solape -> System.out.println("  " + solape));
+        return false;
+    }
+}
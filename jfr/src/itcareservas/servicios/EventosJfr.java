@@ -0,0 +1,268 @@
+package itcareservas.servicios;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.EventType;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+// Eventos JFR detras de EventosReservas. Este archivo necesita jdk.jfr y se
+// compila aparte con --release 11 (ver -post-compile en build.xml); el
+// gestor lo carga por nombre.
+//
+// Cada iniciar* mira primero si el tipo esta habilitado (EventType guarda el
+// estado que fijan las grabaciones); si no, devuelve NINGUNO sin crear el
+// evento ni llamar a begin().
+final class EventosJfr extends EventosReservas {
+    private static final String CATEGORIA = "ITCA Reservas";
+
+    private static final EventType TIPO_REGISTRO = EventType.getEventType(Registro.class);
+    private static final EventType TIPO_VALIDACION = EventType.getEventType(Validacion.class);
+    private static final EventType TIPO_SOLAPAMIENTO = EventType.getEventType(Solapamiento.class);
+    private static final EventType TIPO_REPORTE = EventType.getEventType(Reporte.class);
+    private static final EventType TIPO_PERSISTENCIA = EventType.getEventType(Persistencia.class);
+
+    @Override
+    EventosReservas.Registro iniciarRegistro() {
+        if (!TIPO_REGISTRO.isEnabled()) {
+            return NINGUNO;
+        }
+        Registro evento = new Registro();
+        evento.begin();
+        return evento;
+    }
+
+    @Override
+    EventosReservas.Validacion iniciarValidacion() {
+        if (!TIPO_VALIDACION.isEnabled()) {
+            return NINGUNO;
+        }
+        Validacion evento = new Validacion();
+        evento.begin();
+        return evento;
+    }
+
+    @Override
+    EventosReservas.Solapamiento iniciarSolapamiento() {
+        if (!TIPO_SOLAPAMIENTO.isEnabled()) {
+            return NINGUNO;
+        }
+        Solapamiento evento = new Solapamiento();
+        evento.begin();
+        return evento;
+    }
+
+    @Override
+    EventosReservas.Reporte iniciarReporte() {
+        if (!TIPO_REPORTE.isEnabled()) {
+            return NINGUNO;
+        }
+        Reporte evento = new Reporte();
+        evento.begin();
+        return evento;
+    }
+
+    @Override
+    EventosReservas.Persistencia iniciarPersistencia() {
+        if (!TIPO_PERSISTENCIA.isEnabled()) {
+            return NINGUNO;
+        }
+        Persistencia evento = new Persistencia();
+        evento.begin();
+        return evento;
+    }
+
+    @Name("itcareservas.Registro")
+    @Label("Registro de reserva")
+    @Description("registrarReserva, registrarReservas (lote) o registrarSerie")
+    @Category({ CATEGORIA, "Gestor" })
+    @StackTrace(false)
+    static final class Registro extends Event implements EventosReservas.Registro {
+        @Label("Operacion")
+        String operacion;
+
+        @Label("ID")
+        String id;
+
+        @Label("Aula")
+        String aulaId;
+
+        @Label("Cantidad")
+        int cantidad;
+
+        @Label("Rechazadas")
+        int rechazadas;
+
+        @Label("Error")
+        String error;
+
+        @Override
+        public boolean grabar() {
+            return shouldCommit();
+        }
+
+        @Override
+        public void confirmar(String operacion, String id, String aulaId, int cantidad, int rechazadas,
+                              String error) {
+            this.operacion = operacion;
+            this.id = id;
+            this.aulaId = aulaId;
+            this.cantidad = cantidad;
+            this.rechazadas = rechazadas;
+            this.error = error;
+            commit();
+        }
+    }
+
+    @Name("itcareservas.Validacion")
+    @Label("Validacion de reglas de negocio")
+    @Category({ CATEGORIA, "Gestor" })
+    @StackTrace(false)
+    static final class Validacion extends Event implements EventosReservas.Validacion {
+        @Label("ID")
+        String id;
+
+        @Label("Valida")
+        boolean valida;
+
+        @Label("Motivo")
+        String motivo;
+
+        @Override
+        public boolean grabar() {
+            return shouldCommit();
+        }
+
+        @Override
+        public void confirmar(String id, String motivo) {
+            this.id = id;
+            this.valida = motivo == null;
+            this.motivo = motivo;
+            commit();
+        }
+    }
+
+    @Name("itcareservas.Solapamiento")
+    @Label("Verificacion de solapamiento")
+    @Description("Choques de un intervalo contra las reservas activas y las series del aula")
+    @Category({ CATEGORIA, "Gestor" })
+    @StackTrace(false)
+    static final class Solapamiento extends Event implements EventosReservas.Solapamiento {
+        @Label("Aula")
+        String aulaId;
+
+        @Label("Dia (epoch)")
+        int dia;
+
+        @Label("Minuto inicio")
+        int minutoInicio;
+
+        @Label("Minuto fin")
+        int minutoFin;
+
+        @Label("Camino rapido")
+        @Description("El mapa de franjas mostro el intervalo libre y no se consulto el indice de horarios")
+        boolean caminoRapido;
+
+        @Label("Reservas revisadas")
+        int reservasRevisadas;
+
+        @Label("Series revisadas")
+        int seriesRevisadas;
+
+        @Label("Conflicto con")
+        String conflicto;
+
+        @Override
+        public boolean grabar() {
+            return shouldCommit();
+        }
+
+        @Override
+        public void confirmar(String aulaId, int dia, int minutoInicio, int minutoFin, boolean caminoRapido,
+                              int reservasRevisadas, int seriesRevisadas, String conflicto) {
+            this.aulaId = aulaId;
+            this.dia = dia;
+            this.minutoInicio = minutoInicio;
+            this.minutoFin = minutoFin;
+            this.caminoRapido = caminoRapido;
+            this.reservasRevisadas = reservasRevisadas;
+            this.seriesRevisadas = seriesRevisadas;
+            this.conflicto = conflicto;
+            commit();
+        }
+    }
+
+    @Name("itcareservas.Reporte")
+    @Label("Generacion de reporte")
+    @Category({ CATEGORIA, "Gestor" })
+    @StackTrace(false)
+    static final class Reporte extends Event implements EventosReservas.Reporte {
+        @Label("Reporte")
+        String nombre;
+
+        @Label("Aula")
+        String aulaId;
+
+        @Label("Entradas")
+        int entradas;
+
+        @Label("Incluye historico")
+        boolean historico;
+
+        @Override
+        public boolean grabar() {
+            return shouldCommit();
+        }
+
+        @Override
+        public void confirmar(String nombre, String aulaId, int entradas, boolean historico) {
+            this.nombre = nombre;
+            this.aulaId = aulaId;
+            this.entradas = entradas;
+            this.historico = historico;
+            commit();
+        }
+    }
+
+    @Name("itcareservas.Persistencia")
+    @Label("E/S de persistencia")
+    @Description("Carga, guardado o exportacion de un archivo")
+    @Category({ CATEGORIA, "Persistencia" })
+    @StackTrace(false)
+    static final class Persistencia extends Event implements EventosReservas.Persistencia {
+        @Label("Operacion")
+        String operacion;
+
+        @Label("Archivo")
+        String archivo;
+
+        @Label("Bytes")
+        @DataAmount
+        long bytes;
+
+        @Label("Filas")
+        long filas;
+
+        @Label("Exito")
+        boolean exito;
+
+        @Override
+        public boolean grabar() {
+            return shouldCommit();
+        }
+
+        @Override
+        public void confirmar(String operacion, String archivo, long bytes, long filas, boolean exito) {
+            this.operacion = operacion;
+            this.archivo = archivo;
+            this.bytes = bytes;
+            this.filas = filas;
+            this.exito = exito;
+            commit();
+        }
+    }
+}
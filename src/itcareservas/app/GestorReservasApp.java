@@ -9,15 +9,23 @@ import itcareservas.modelo.Reserva;
 import itcareservas.modelo.ReservaClase;
 import itcareservas.modelo.ReservaEvento;
 import itcareservas.modelo.ReservaPractica;
+import itcareservas.modelo.SerieReservas;
 import itcareservasmodelo.enums.TipoAula;
 import itcareservasmodelo.enums.TipoEvento;
+import itcareservas.servidor.ServidorReservas;
 
+import java.io.IOException;
+import java.time.DayOfWeek;
 import java.time.LocalDate;
 import java.time.LocalTime;
 import java.time.format.DateTimeFormatter;
 import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.EnumSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Scanner;
+import java.util.Set;
 import java.util.UUID;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
@@ -29,20 +37,43 @@ public class GestorReservasApp {
     
     private static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ofPattern("dd/MM/yyyy");
     private static final DateTimeFormatter TIME_FORMAT = DateTimeFormatter.ofPattern("HH:mm");
+    private static final int PUERTO_SERVIDOR = 8080;
+    private static final int RESERVAS_POR_PAGINA = 20;
 
     public GestorReservasApp() {
         this.gestor = new GestorReservas();
         this.persistencia = new PersistenciaUtil(gestor);
         
         // Cargar datos al inicio
-        this.gestor.getAulas().addAll(persistencia.cargarAulas());
-        this.gestor.getReservas().addAll(persistencia.cargarReservas());
+        this.persistencia.cargarDatos();
+        this.persistencia.iniciarDiario();
+        this.persistencia.iniciarArchivo();
+        this.persistencia.iniciarMetricas();
         
         this.scanner = new Scanner(System.in);
     }
 
-    public static void main(String[] args) {
-        new GestorReservasApp().run();
+    // Con "--servidor [puerto]" se atiende por HTTP en lugar del menu de consola.
+    public static void main(String[] args) throws IOException {
+        if (args.length > 0 && args[0].equals("--servidor")) {
+            int puerto = args.length > 1 ? Integer.parseInt(args[1]) : PUERTO_SERVIDOR;
+            new GestorReservasApp().servir(puerto);
+        } else {
+            new GestorReservasApp().run();
+        }
+    }
+
+    // El servidor corre hasta que se detiene el proceso; al salir se guardan
+    // los datos igual que con la opcion 0 del menu.
+    public void servir(int puerto) throws IOException {
+        ServidorReservas servidor = new ServidorReservas(gestor, puerto);
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            servidor.detener(1);
+            persistencia.cerrar();
+            System.out.println("Datos guardados.");
+        }));
+        servidor.iniciar();
+        System.out.println("Servidor de reservas escuchando en el puerto " + servidor.getPuerto());
     }
 
     public void run() {
@@ -56,8 +87,7 @@ public class GestorReservasApp {
                     case 2: menuReservas(); break;
                     case 3: menuReportes(); break;
                     case 0: 
-                        persistencia.guardarAulas(gestor.getAulas());
-                        persistencia.guardarReservas(gestor.getReservas());
+                        persistencia.cerrar();
                         System.out.println("Datos guardados. Gracias por usar el sistema!");
                         break;
                     default: System.out.println("Opcion no valida.");
@@ -159,8 +189,12 @@ public class GestorReservasApp {
         TipoAula tipo = TipoAula.valueOf(leerTipoAula("Tipo de Aula: "));
         
         Aula aula = new Aula(id, nombre, capacidad, tipo);
-        gestor.registrarAula(aula);
-        System.out.println("Aula registrada: " + aula.getNombre());
+        try {
+            gestor.registrarAula(aula);
+            System.out.println("Aula registrada: " + aula.getNombre());
+        } catch (ReglaNegocioException e) {
+            System.err.println("Error de regla de negocio: " + e.getMessage());
+        }
     }
     
     private void listarAulas() {
@@ -271,6 +305,10 @@ public class GestorReservasApp {
         System.out.println("3. Buscar Reserva por Responsable (Filtro)");
         System.out.println("4. Modificar Reserva (Fecha/Hora/Aula)");
         System.out.println("5. Cancelar Reserva");
+        System.out.println("6. Buscar Aulas Disponibles");
+        System.out.println("7. Registrar Serie Semanal de Clases");
+        System.out.println("8. Listar Series");
+        System.out.println("9. Cancelar una Fecha de una Serie");
         System.out.print("Opcion: ");
         
         switch (leerEntero("")) {
@@ -279,6 +317,10 @@ public class GestorReservasApp {
             case 3: buscarPorResponsable(); break;
             case 4: modificarReserva(); break;
             case 5: cancelarReserva(); break;
+            case 6: buscarAulasDisponibles(); break;
+            case 7: registrarSerie(); break;
+            case 8: listarSeries(); break;
+            case 9: cancelarOcurrenciaSerie(); break;
             default: System.out.println("Opcion no valida.");
         }
     }
@@ -359,12 +401,21 @@ public class GestorReservasApp {
         String sortBy = scanner.nextLine().trim();
         
         AtomicInteger index = new AtomicInteger(1);
-        gestor.listarReservas(sortBy).forEach(r -> {
-            System.out.printf("%d. [ID: %s] %s | Aula: %s | %s %s-%s | Resp: %s | Estado: %s\n",
-                index.getAndIncrement(), r.getId(), r.obtenerDetalleTipo(), r.getAula().getId(), 
-                r.getFecha().format(DATE_FORMAT), r.getHoraInicio(), r.getHoraFin(), 
-                r.getResponsable(), r.getEstado());
-        });
+        String cursor = null;
+        do {
+            PaginaReservas pagina = gestor.listarReservas(sortBy, cursor, RESERVAS_POR_PAGINA);
+            pagina.getReservas().forEach(r -> {
+                System.out.printf("%d. [ID: %s] %s | Aula: %s | %s %s-%s | Resp: %s | Estado: %s\n",
+                    index.getAndIncrement(), r.getId(), r.obtenerDetalleTipo(), r.getAula().getId(), 
+                    r.getFecha().format(DATE_FORMAT), r.getHoraInicio(), r.getHoraFin(), 
+                    r.getResponsable(), r.getEstado());
+            });
+            cursor = pagina.getSiguiente();
+            if (cursor != null) {
+                System.out.print("-- Enter para ver mas, 'q' para salir: ");
+                if (scanner.nextLine().trim().equalsIgnoreCase("q")) break;
+            }
+        } while (cursor != null);
     }
     
     private void buscarPorResponsable() {
@@ -422,12 +473,119 @@ public class GestorReservasApp {
         }
     }
     
+    private void buscarAulasDisponibles() {
+        System.out.println("\n--- BUSCAR AULAS DISPONIBLES ---");
+        LocalDate fecha = leerFecha("Fecha");
+        LocalTime horaInicio = leerHora("Hora Inicio");
+        LocalTime horaFin = leerHora("Hora Fin");
+        if (fecha == null || horaInicio == null || horaFin == null || !horaInicio.isBefore(horaFin)) {
+            System.err.println("Error: Indique fecha y un horario valido.");
+            return;
+        }
+        System.out.print("Tipo de Aula (TEORICA, LABORATORIO, AUDITORIO - dejar vacio para cualquiera): ");
+        String tipoStr = scanner.nextLine().trim();
+        TipoAula tipo = null;
+        if (!tipoStr.isEmpty()) {
+            try {
+                tipo = TipoAula.valueOf(tipoStr.toUpperCase());
+            } catch (IllegalArgumentException e) {
+                System.err.println("Error: Tipo de aula no valido.");
+                return;
+            }
+        }
+        System.out.print("Capacidad minima (vacio para cualquiera)");
+        int capacidad = leerEnteroOpcional();
+
+        List<Aula> libres = gestor.buscarAulasDisponibles(fecha, horaInicio, horaFin, tipo, capacidad);
+        if (!libres.isEmpty()) {
+            System.out.println("\nAulas disponibles:");
+            libres.forEach(a -> System.out.println("  - " + a));
+            return;
+        }
+        List<VentanaLibre> ventanas = gestor.buscarVentanasLibres(fecha, horaInicio, horaFin, tipo, capacidad, 5);
+        if (ventanas.isEmpty()) {
+            System.out.println("No hay aulas que cumplan el tipo y la capacidad con ese horario libre.");
+        } else {
+            System.out.println("\nNo hay aulas libres en ese horario. Horarios cercanos:");
+            ventanas.forEach(v -> System.out.println("  - " + v));
+        }
+    }
+    
+    private void registrarSerie() {
+        System.out.println("\n--- SERIE SEMANAL DE CLASES ---");
+        String id = "S" + UUID.randomUUID().toString().substring(0, 7).toUpperCase();
+        try {
+            System.out.print("ID del Aula: ");
+            Aula aula = gestor.buscarAulaPorId(scanner.nextLine().toUpperCase().trim());
+            LocalDate desde = leerFecha("Desde");
+            LocalDate hasta = leerFecha("Hasta");
+            System.out.print("Dias de la semana (1=Lunes ... 7=Domingo, separados por coma): ");
+            Set<DayOfWeek> dias = EnumSet.noneOf(DayOfWeek.class);
+            for (String dia : scanner.nextLine().split(",")) {
+                if (!dia.trim().isEmpty()) dias.add(DayOfWeek.of(Integer.parseInt(dia.trim())));
+            }
+            LocalTime horaInicio = leerHora("Hora Inicio");
+            LocalTime horaFin = leerHora("Hora Fin");
+            if (desde == null || hasta == null || horaInicio == null || horaFin == null) {
+                System.err.println("Error: Debe indicar fechas y horario.");
+                return;
+            }
+            System.out.print("Responsable: ");
+            String responsable = scanner.nextLine().trim();
+            System.out.print("Materia: ");
+            String materia = scanner.nextLine().trim();
+            System.out.print("Grupo: ");
+            String grupo = scanner.nextLine().trim();
+            System.out.print("Fechas sin clase (DD/MM/YYYY separadas por coma, vacio si no hay): ");
+            List<LocalDate> excepciones = new ArrayList<>();
+            for (String fecha : scanner.nextLine().split(",")) {
+                if (!fecha.trim().isEmpty()) excepciones.add(LocalDate.parse(fecha.trim(), DATE_FORMAT));
+            }
+
+            SerieReservas serie = new SerieReservas(id, aula, desde, hasta, dias, horaInicio, horaFin,
+                                                    responsable, materia, grupo, excepciones);
+            gestor.registrarSerie(serie);
+            System.out.println("Serie registrada exitosamente. ID: " + id + " (" + serie.contarOcurrencias() + " clases)");
+        } catch (NoEncontradoException | ConflictoHorarioException | ReglaNegocioException e) {
+            System.err.println("Error de Registro: " + e.getMessage());
+        } catch (Exception e) {
+            System.err.println("Error: Ocurrio un problema al ingresar los datos: " + e.getMessage());
+        }
+    }
+
+    private void listarSeries() {
+        List<SerieReservas> series = gestor.listarSeries();
+        if (series.isEmpty()) {
+            System.out.println("No hay series registradas.");
+            return;
+        }
+        System.out.println("\n--- LISTADO DE SERIES ---");
+        series.forEach(s -> System.out.println("  - " + s));
+    }
+
+    private void cancelarOcurrenciaSerie() {
+        System.out.print("ID de la serie: ");
+        String id = scanner.nextLine().toUpperCase().trim();
+        LocalDate fecha = leerFecha("Fecha a cancelar");
+        if (fecha == null) return;
+        try {
+            gestor.cancelarOcurrencia(id, fecha);
+            System.out.println("Clase del " + fecha.format(DATE_FORMAT) + " cancelada en la serie " + id + ".");
+        } catch (NoEncontradoException e) {
+            System.err.println(e.getMessage());
+        }
+    }
+    
     // REPORTES 
     private void menuReportes() {
         System.out.println("\n--- REPORTES ---");
         System.out.println("1. Top 3 Aulas con mas Horas Reservadas");
         System.out.println("2. Ocupacion por Tipo de Aula (Horas)");
         System.out.println("3. Distribucion por Tipo de Reserva (Conteo)");
+        System.out.println("4. Ocupacion de un Aula en un Dia (%)");
+        System.out.println("5. Calendario Semanal de un Aula");
+        System.out.println("6. Agenda del Dia (todas las aulas)");
+        System.out.println("7. Reservas Historicas (archivadas) entre Fechas");
         System.out.print("Opcion: ");
         int opcion = leerEntero("");
 
@@ -453,6 +611,70 @@ public class GestorReservasApp {
                     .map(e -> String.format("- %s: %d reservas", e.getKey(), e.getValue()))
                     .collect(Collectors.joining("\n"));
                 break;
+            case 4:
+                System.out.print("ID del Aula: ");
+                String aulaId = scanner.nextLine().toUpperCase().trim();
+                LocalDate fecha = leerFecha("Fecha");
+                if (fecha == null) return;
+                try {
+                    double porcentaje = gestor.reporteOcupacionDia(aulaId, fecha);
+                    reporteNombre = "Ocupacion del Aula " + aulaId + " el " + fecha.format(DATE_FORMAT);
+                    reporteContenido = String.format("- %s: %.1f%% del dia ocupado", aulaId, porcentaje);
+                } catch (NoEncontradoException e) {
+                    System.err.println("Error: " + e.getMessage());
+                    return;
+                }
+                break;
+            case 5:
+                System.out.print("ID del Aula: ");
+                String aulaSemana = scanner.nextLine().toUpperCase().trim();
+                LocalDate diaSemana = leerFecha("Cualquier fecha de la semana");
+                if (diaSemana == null) return;
+                try {
+                    Map<LocalDate, List<Reserva>> semana = gestor.calendarioSemanal(aulaSemana, diaSemana);
+                    LocalDate lunes = semana.keySet().iterator().next();
+                    reporteNombre = "Calendario del Aula " + aulaSemana + " semana del " + lunes.format(DATE_FORMAT);
+                    reporteContenido = semana.entrySet().stream()
+                        .map(e -> e.getKey().getDayOfWeek() + " " + e.getKey().format(DATE_FORMAT) + "\n"
+                                  + (e.getValue().isEmpty() ? "   (libre)"
+                                     : e.getValue().stream()
+                                        .map(r -> String.format("   %s-%s %s | %s", r.getHoraInicio(), r.getHoraFin(),
+                                                                r.obtenerDetalleTipo(), r.getResponsable()))
+                                        .collect(Collectors.joining("\n"))))
+                        .collect(Collectors.joining("\n"));
+                } catch (NoEncontradoException e) {
+                    System.err.println("Error: " + e.getMessage());
+                    return;
+                }
+                break;
+            case 6:
+                LocalDate diaAgenda = leerFecha("Fecha");
+                if (diaAgenda == null) return;
+                List<Reserva> agenda = gestor.agendaDelDia(diaAgenda);
+                reporteNombre = "Agenda del " + diaAgenda.format(DATE_FORMAT);
+                reporteContenido = agenda.isEmpty() ? "- Sin reservas."
+                    : agenda.stream()
+                        .map(r -> String.format("- %s-%s Aula %s | %s | %s | %s", r.getHoraInicio(), r.getHoraFin(),
+                                                r.getAula().getId(), r.obtenerDetalleTipo(), r.getResponsable(),
+                                                r.getEstado()))
+                        .collect(Collectors.joining("\n"));
+                break;
+            case 7:
+                LocalDate desde = leerFecha("Desde");
+                LocalDate hasta = leerFecha("Hasta");
+                if (desde == null || hasta == null) return;
+                System.out.print("ID del Aula (vacio para todas): ");
+                String aulaHistorico = scanner.nextLine().toUpperCase().trim();
+                List<Reserva> historicas = gestor.buscarHistoricas(desde, hasta,
+                                                                   aulaHistorico.isEmpty() ? null : aulaHistorico);
+                reporteNombre = "Reservas Historicas del " + desde.format(DATE_FORMAT) + " al " + hasta.format(DATE_FORMAT);
+                reporteContenido = historicas.isEmpty() ? "- Sin reservas archivadas."
+                    : historicas.stream()
+                        .map(r -> String.format("- %s %s-%s Aula %s | %s | %s", r.getFecha().format(DATE_FORMAT),
+                                                r.getHoraInicio(), r.getHoraFin(), r.getAula().getId(),
+                                                r.obtenerDetalleTipo(), r.getResponsable()))
+                        .collect(Collectors.joining("\n"));
+                break;
             default:
                 System.out.println("Opcion no valida.");
                 return;
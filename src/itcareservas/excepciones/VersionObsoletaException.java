@@ -0,0 +1,13 @@
+package itcareservas.excepciones;
+
+// La reserva cambio desde que el cliente la leyo (control optimista de versiones).
+public class VersionObsoletaException extends ReglaNegocioException {
+    private final long versionActual;
+
+    public VersionObsoletaException(String message, long versionActual) {
+        super(message);
+        this.versionActual = versionActual;
+    }
+
+    public long getVersionActual() { return versionActual; }
+}
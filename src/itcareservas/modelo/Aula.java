@@ -1,9 +1,10 @@
 package itcareservas.modelo;
 
+import itcareservas.excepciones.ReglaNegocioException;
 import itcareservasmodelo.enums.TipoAula;
 import java.io.Serializable;
 
-public class Aula implements Serializable {
+public class Aula implements Validable, Serializable {
     private String id;
     private String nombre;
     private int capacidad;
@@ -26,6 +27,13 @@ public class Aula implements Serializable {
     public void setNombre(String nombre) { this.nombre = nombre; }
     public void setTipo(TipoAula tipo) { this.tipo = tipo; }
 
+    @Override
+    public boolean validarReglasNegocio() throws ReglaNegocioException {
+        Validable.validarTexto("id", id);
+        Validable.validarTexto("nombre", nombre);
+        return true;
+    }
+
     @Override
     public String toString() {
         return String.format("ID: %s, Nombre: %s, Tipo: %s, Capacidad: %d", 
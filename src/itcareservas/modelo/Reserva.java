@@ -2,58 +2,113 @@ package itcareservas.modelo;
 
 import itcareservas.excepciones.ReglaNegocioException;
 import itcareservasmodelo.enums.EstadoReserva;
-import java.time.Duration;
 import java.time.LocalDate;
 import java.time.LocalTime;
 import java.io.Serializable;
 
+// Fecha y horas se guardan como enteros (dia epoch y minuto del dia) para que
+// solapamientos, duraciones y reportes se calculen sin crear objetos; los
+// getters de LocalDate/LocalTime se mantienen y reconstruyen el valor. La
+// precision es de minutos, la misma que captura la aplicacion.
 public abstract class Reserva implements Validable, Serializable {
+    public static final int MINUTOS_DIA = 24 * 60;
+    private static final LocalTime[] HORAS = new LocalTime[MINUTOS_DIA];
+
+    static {
+        for (int i = 0; i < HORAS.length; i++) {
+            HORAS[i] = LocalTime.of(i / 60, i % 60);
+        }
+    }
+
     private String id;
     private Aula aula;
-    private LocalDate fecha;
-    private LocalTime horaInicio;
-    private LocalTime horaFin;
+    private int diaEpoch;
+    private short minutoInicio;
+    private short minutoFin;
     private String responsable;
     private EstadoReserva estado;
+    private long version;
 
     public Reserva(String id, Aula aula, LocalDate fecha, LocalTime horaInicio, 
                    LocalTime horaFin, String responsable) {
         this.id = id;
         this.aula = aula;
-        this.fecha = fecha;
-        this.horaInicio = horaInicio;
-        this.horaFin = horaFin;
+        this.diaEpoch = (int) fecha.toEpochDay();
+        this.minutoInicio = minutoDelDia(horaInicio);
+        this.minutoFin = minutoDelDia(horaFin);
         this.responsable = responsable;
         this.estado = EstadoReserva.ACTIVA;
     }
 
     public String getId() { return id; }
     public Aula getAula() { return aula; }
-    public LocalDate getFecha() { return fecha; }
-    public LocalTime getHoraInicio() { return horaInicio; }
-    public LocalTime getHoraFin() { return horaFin; }
+    public LocalDate getFecha() { return LocalDate.ofEpochDay(diaEpoch); }
+    public LocalTime getHoraInicio() { return HORAS[minutoInicio]; }
+    public LocalTime getHoraFin() { return HORAS[minutoFin]; }
+    public int getDiaEpoch() { return diaEpoch; }
+    public int getMinutoInicio() { return minutoInicio; }
+    public int getMinutoFin() { return minutoFin; }
     public String getResponsable() { return responsable; }
     public EstadoReserva getEstado() { return estado; }
+    public long getVersion() { return version; }
 
-    public void setEstado(EstadoReserva estado) { this.estado = estado; }
-    public void setHoraInicio(LocalTime horaInicio) { this.horaInicio = horaInicio; }
-    public void setHoraFin(LocalTime horaFin) { this.horaFin = horaFin; }
-    public void setAula(Aula aula) { this.aula = aula; }
-    public void setFecha(LocalDate fecha) { this.fecha = fecha; }
-    public void setResponsable(String responsable) { this.responsable = responsable; }
+    public static LocalTime horaDelDia(int minutos) {
+        return HORAS[minutos];
+    }
+
+    private static short minutoDelDia(LocalTime hora) {
+        return (short) (hora.getHour() * 60 + hora.getMinute());
+    }
 
     public abstract String obtenerDetalleTipo();
+
+    // Reglas de este tipo de reserva que dependen solo del aula (tipo, capacidad).
+    // validarReglasNegocio las aplica; el buscador de aulas libres las usa como filtro.
+    public boolean admiteAula(Aula aula) {
+        return true;
+    }
+
+    // Copia con los cambios indicados (null = sin cambio) y la version siguiente.
+    // Una reserva no tiene setters: GestorReservas arma la copia, la valida y
+    // la reemplaza de forma atomica, asi nadie ve un cambio a medias ni quedan
+    // indices apuntando a claves viejas.
+    public Reserva conCambios(Aula nuevaAula, LocalDate nuevaFecha, LocalTime nuevaInicio,
+                              LocalTime nuevaFin, EstadoReserva nuevoEstado) {
+        Reserva copia = copiar();
+        if (nuevaAula != null) copia.aula = nuevaAula;
+        if (nuevaFecha != null) copia.diaEpoch = (int) nuevaFecha.toEpochDay();
+        if (nuevaInicio != null) copia.minutoInicio = minutoDelDia(nuevaInicio);
+        if (nuevaFin != null) copia.minutoFin = minutoDelDia(nuevaFin);
+        copia.estado = nuevoEstado != null ? nuevoEstado : estado;
+        copia.version = version + 1;
+        return copia;
+    }
+
+    protected abstract Reserva copiar();
     
+    public int calcularDuracionMinutos() {
+        return minutoFin - minutoInicio;
+    }
+
+    // Horas completas; los limites de duracion se comparan en minutos.
     public long calcularDuracionHoras() {
-        return Duration.between(horaInicio, horaFin).toHours();
+        return calcularDuracionMinutos() / 60;
+    }
+
+    // Mismo aula y dia, y los intervalos [inicio, fin) se cruzan.
+    public boolean seSolapaCon(Reserva otra) {
+        return diaEpoch == otra.diaEpoch && aula.getId().equals(otra.aula.getId())
+            && minutoInicio < otra.minutoFin && otra.minutoInicio < minutoFin;
     }
     
     @Override
     public boolean validarReglasNegocio() throws ReglaNegocioException {
-        if (horaInicio.isAfter(horaFin) || horaInicio.equals(horaFin)) {
+        Validable.validarTexto("id", id);
+        Validable.validarTexto("responsable", responsable);
+        if (minutoInicio >= minutoFin) {
             throw new ReglaNegocioException("La hora de inicio debe ser anterior a la hora de fin.");
         }
-        if (calcularDuracionHoras() <= 0) {
+        if (calcularDuracionMinutos() < 60) {
             throw new ReglaNegocioException("La duracion de la reserva debe ser de al menos una hora.");
         }
         return true;
@@ -25,23 +25,34 @@ public class ReservaClase extends Reserva {
         return "Clase: " + materia + " (" + grupo + ")";
     }
 
+    @Override
+    public boolean admiteAula(Aula aula) {
+        return aula.getTipo() != TipoAula.AUDITORIO;
+    }
+
     @Override
     public boolean validarReglasNegocio() throws ReglaNegocioException {
         super.validarReglasNegocio(); 
+        Validable.validarTexto("materia", materia);
+        Validable.validarTexto("grupo", grupo);
         
-        TipoAula tipoAula = getAula().getTipo();
-        
-        if (tipoAula == TipoAula.AUDITORIO) {
+        if (!admiteAula(getAula())) {
             throw new ReglaNegocioException("Reservas de Clase no permitidas en AUDITORIO.");
         }
         
-        if (calcularDuracionHoras() > DURACION_MAX_HRS) {
+        if (calcularDuracionMinutos() > DURACION_MAX_HRS * 60) {
             throw new ReglaNegocioException("Reserva de Clase excede la duracion maxima de " 
                                             + DURACION_MAX_HRS + " horas.");
         }
         return true;
     }
     
+    @Override
+    protected Reserva copiar() {
+        return new ReservaClase(getId(), getAula(), getFecha(), getHoraInicio(), getHoraFin(), 
+                                getResponsable(), materia, grupo);
+    }
+    
     @Override
     public String toCSV() {
         return String.format("CLASE,%s,%s,%s,%s,%s,%s,%s,%s,%s", 
@@ -26,17 +26,24 @@ public class ReservaEvento extends Reserva {
         return "Evento: " + tipoEvento.name() + " (Aforo: " + aforoEsperado + ")";
     }
 
+    @Override
+    public boolean admiteAula(Aula aula) {
+        return admiteTipoAula(aula.getTipo()) && aforoEsperado <= aula.getCapacidad();
+    }
+
+    private boolean admiteTipoAula(TipoAula tipoAula) {
+        return tipoEvento != TipoEvento.TALLER || tipoAula == TipoAula.LABORATORIO || tipoAula == TipoAula.TEORICA;
+    }
+
     @Override
     public boolean validarReglasNegocio() throws ReglaNegocioException {
         super.validarReglasNegocio();
         
-        TipoAula tipoAula = getAula().getTipo();
-        
-        if (tipoEvento == TipoEvento.TALLER && (tipoAula != TipoAula.LABORATORIO && tipoAula != TipoAula.TEORICA)) {
+        if (!admiteTipoAula(getAula().getTipo())) {
              throw new ReglaNegocioException("TALLER solo permitido en LABORATORIO o TEORICA.");
         }
         
-        if (calcularDuracionHoras() > DURACION_MAX_HRS) {
+        if (calcularDuracionMinutos() > DURACION_MAX_HRS * 60) {
             throw new ReglaNegocioException("Reserva de Evento excede la duracion maxima de " 
                                             + DURACION_MAX_HRS + " horas.");
         }
@@ -48,6 +55,12 @@ public class ReservaEvento extends Reserva {
         return true;
     }
     
+    @Override
+    protected Reserva copiar() {
+        return new ReservaEvento(getId(), getAula(), getFecha(), getHoraInicio(), getHoraFin(), 
+                                 getResponsable(), tipoEvento, aforoEsperado);
+    }
+    
     @Override
     public String toCSV() {
         return String.format("EVENTO,%s,%s,%s,%s,%s,%s,%s,%s,%d", 
@@ -22,21 +22,33 @@ public class ReservaPractica extends Reserva {
         return "Practica (Equipo: " + equipoNecesario + ")";
     }
 
+    @Override
+    public boolean admiteAula(Aula aula) {
+        return aula.getTipo() == TipoAula.LABORATORIO;
+    }
+
     @Override
     public boolean validarReglasNegocio() throws ReglaNegocioException {
         super.validarReglasNegocio();
+        Validable.validarTexto("equipoNecesario", equipoNecesario);
         
-        if (getAula().getTipo() != TipoAula.LABORATORIO) {
+        if (!admiteAula(getAula())) {
             throw new ReglaNegocioException("Reservas de Practica solo permitidas en LABORATORIO.");
         }
         
-        if (calcularDuracionHoras() > DURACION_MAX_HRS) {
+        if (calcularDuracionMinutos() > DURACION_MAX_HRS * 60) {
             throw new ReglaNegocioException("Reserva de Practica excede la duracion maxima de " 
                                             + DURACION_MAX_HRS + " horas.");
         }
         return true;
     }
     
+    @Override
+    protected Reserva copiar() {
+        return new ReservaPractica(getId(), getAula(), getFecha(), getHoraInicio(), getHoraFin(), 
+                                   getResponsable(), equipoNecesario);
+    }
+    
     @Override
     public String toCSV() {
         return String.format("PRACTICA,%s,%s,%s,%s,%s,%s,%s,%s", 
@@ -0,0 +1,240 @@
+package itcareservas.modelo;
+
+import itcareservas.excepciones.ReglaNegocioException;
+import java.io.Serializable;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+// Clase que se repite cada semana en los dias indicados entre dos fechas,
+// salvo en las fechas de excepcion. Se guarda como un solo objeto; cada
+// ocurrencia es una ReservaClase que se arma solo cuando se recorre.
+// Es inmutable: agregar una excepcion devuelve una serie nueva.
+public class SerieReservas implements Validable, Serializable {
+    private static final DateTimeFormatter SUFIJO_ID = DateTimeFormatter.BASIC_ISO_DATE;
+    // Una serie cubre a lo sumo un ciclo anual; un horario mas largo se
+    // registra como varias series.
+    public static final int DIAS_MAXIMOS = 366;
+
+    private final String id;
+    private final Aula aula;
+    private final int diaDesde;
+    private final int diaHasta;
+    private final int diasSemana;
+    private final short minutoInicio;
+    private final short minutoFin;
+    private final String responsable;
+    private final String materia;
+    private final String grupo;
+    private final int[] excepciones;
+    private final int ocurrencias;
+
+    public SerieReservas(String id, Aula aula, LocalDate desde, LocalDate hasta, Set<DayOfWeek> dias,
+                         LocalTime horaInicio, LocalTime horaFin, String responsable, String materia,
+                         String grupo, Collection<LocalDate> excepciones) {
+        this(id, aula, (int) desde.toEpochDay(), (int) hasta.toEpochDay(), mascara(dias),
+             (short) (horaInicio.getHour() * 60 + horaInicio.getMinute()),
+             (short) (horaFin.getHour() * 60 + horaFin.getMinute()),
+             responsable, materia, grupo,
+             excepciones.stream().mapToInt(f -> (int) f.toEpochDay()).sorted().distinct().toArray());
+    }
+
+    private SerieReservas(String id, Aula aula, int diaDesde, int diaHasta, int diasSemana, short minutoInicio,
+                          short minutoFin, String responsable, String materia, String grupo, int[] excepciones) {
+        this.id = id;
+        this.aula = aula;
+        this.diaDesde = diaDesde;
+        this.diaHasta = diaHasta;
+        this.diasSemana = diasSemana;
+        this.minutoInicio = minutoInicio;
+        this.minutoFin = minutoFin;
+        this.responsable = responsable;
+        this.materia = materia;
+        this.grupo = grupo;
+        this.excepciones = excepciones;
+        this.ocurrencias = contarOcurrencias(diaDesde, diaHasta);
+    }
+
+    // Por aritmetica de dias de la semana, sin recorrer el rango dia por dia:
+    // el constructor corre tambien con series leidas de disco o de un cliente
+    // que todavia no pasaron por validarReglasNegocio.
+    private int contarOcurrencias(int desde, int hasta) {
+        if (desde > hasta) return 0;
+        long total = 0;
+        for (int dia = 0; dia < 7; dia++) {
+            if ((diasSemana & (1 << dia)) == 0) continue;
+            long primero = desde + (long) Math.floorMod(dia - diaSemana(desde), 7);
+            if (primero <= hasta) total += (hasta - primero) / 7 + 1;
+        }
+        for (int excepcion : excepciones) {
+            if (excepcion >= desde && excepcion <= hasta && (diasSemana & (1 << diaSemana(excepcion))) != 0) {
+                total--;
+            }
+        }
+        return (int) Math.min(total, Integer.MAX_VALUE);
+    }
+
+    private static int mascara(Set<DayOfWeek> dias) {
+        int mascara = 0;
+        for (DayOfWeek dia : dias) {
+            mascara |= 1 << dia.ordinal();
+        }
+        return mascara;
+    }
+
+    // 0 = lunes ... 6 = domingo; el dia epoch 0 (1970-01-01) fue jueves.
+    private static int diaSemana(int diaEpoch) {
+        return Math.floorMod(diaEpoch + 3, 7);
+    }
+
+    public String getId() { return id; }
+    public Aula getAula() { return aula; }
+    public LocalDate getDesde() { return LocalDate.ofEpochDay(diaDesde); }
+    public LocalDate getHasta() { return LocalDate.ofEpochDay(diaHasta); }
+    public LocalTime getHoraInicio() { return Reserva.horaDelDia(minutoInicio); }
+    public LocalTime getHoraFin() { return Reserva.horaDelDia(minutoFin); }
+    public String getResponsable() { return responsable; }
+    public String getMateria() { return materia; }
+    public String getGrupo() { return grupo; }
+    public int getDiaDesde() { return diaDesde; }
+    public int getDiaHasta() { return diaHasta; }
+    public int getMinutoInicio() { return minutoInicio; }
+    public int getMinutoFin() { return minutoFin; }
+    public int contarOcurrencias() { return ocurrencias; }
+
+    public int calcularDuracionMinutos() {
+        return minutoFin - minutoInicio;
+    }
+
+    public Set<DayOfWeek> getDiasSemana() {
+        Set<DayOfWeek> dias = EnumSet.noneOf(DayOfWeek.class);
+        for (DayOfWeek dia : DayOfWeek.values()) {
+            if ((diasSemana & (1 << dia.ordinal())) != 0) dias.add(dia);
+        }
+        return dias;
+    }
+
+    public List<LocalDate> getExcepciones() {
+        List<LocalDate> fechas = new ArrayList<>(excepciones.length);
+        for (int dia : excepciones) {
+            fechas.add(LocalDate.ofEpochDay(dia));
+        }
+        return fechas;
+    }
+
+    public boolean ocurreEl(int diaEpoch) {
+        return diaEpoch >= diaDesde && diaEpoch <= diaHasta
+            && (diasSemana & (1 << diaSemana(diaEpoch))) != 0
+            && Arrays.binarySearch(excepciones, diaEpoch) < 0;
+    }
+
+    public boolean ocurreEl(LocalDate fecha) {
+        return ocurreEl((int) fecha.toEpochDay());
+    }
+
+    // Primer dia >= diaEpoch en que hay clase, o diaHasta + 1 si no queda
+    // ninguno. Permite recorrer solo las ocurrencias:
+    //   for (int d = s.siguienteOcurrencia(s.getDiaDesde()); d <= s.getDiaHasta(); d = s.siguienteOcurrencia(d + 1))
+    public int siguienteOcurrencia(int diaEpoch) {
+        if (diasSemana == 0) return diaHasta + 1;
+        for (int dia = Math.max(diaEpoch, diaDesde); dia <= diaHasta; dia++) {
+            if (ocurreEl(dia)) return dia;
+        }
+        return diaHasta + 1;
+    }
+
+    // Ocupa el aula ese dia en algun minuto de [minutoInicio, minutoFin).
+    public boolean seSolapaCon(int diaEpoch, int inicio, int fin) {
+        return minutoInicio < fin && inicio < minutoFin && ocurreEl(diaEpoch);
+    }
+
+    // Dos series del mismo aula chocan si coinciden en horario y tienen al
+    // menos una ocurrencia el mismo dia.
+    public boolean seSolapaCon(SerieReservas otra) {
+        if (!aula.getId().equals(otra.aula.getId()) || (diasSemana & otra.diasSemana) == 0
+                || minutoInicio >= otra.minutoFin || otra.minutoInicio >= minutoFin) {
+            return false;
+        }
+        int hasta = Math.min(diaHasta, otra.diaHasta);
+        for (int dia = siguienteOcurrencia(otra.diaDesde); dia <= hasta; dia = siguienteOcurrencia(dia + 1)) {
+            if (otra.ocurreEl(dia)) return true;
+        }
+        return false;
+    }
+
+    // Ocurrencias en orden de fecha, armadas a medida que se consumen.
+    public Stream<ReservaClase> ocurrencias() {
+        return ocurrencias(diaDesde, diaHasta);
+    }
+
+    public Stream<ReservaClase> ocurrencias(LocalDate desde, LocalDate hasta) {
+        return ocurrencias((int) desde.toEpochDay(), (int) hasta.toEpochDay());
+    }
+
+    private Stream<ReservaClase> ocurrencias(int desde, int hasta) {
+        return IntStream.rangeClosed(Math.max(desde, diaDesde), Math.min(hasta, diaHasta))
+                        .filter(this::ocurreEl)
+                        .mapToObj(this::ocurrencia);
+    }
+
+    public ReservaClase ocurrencia(int diaEpoch) {
+        LocalDate fecha = LocalDate.ofEpochDay(diaEpoch);
+        return new ReservaClase(id + "-" + fecha.format(SUFIJO_ID), aula, fecha, getHoraInicio(), getHoraFin(),
+                                responsable, materia, grupo);
+    }
+
+    public SerieReservas conExcepcion(LocalDate fecha) {
+        int dia = (int) fecha.toEpochDay();
+        if (Arrays.binarySearch(excepciones, dia) >= 0) return this;
+        int[] nuevas = Arrays.copyOf(excepciones, excepciones.length + 1);
+        nuevas[excepciones.length] = dia;
+        Arrays.sort(nuevas);
+        return new SerieReservas(id, aula, diaDesde, diaHasta, diasSemana, minutoInicio, minutoFin,
+                                 responsable, materia, grupo, nuevas);
+    }
+
+    // Las reglas de una ReservaClase (duracion, tipo de aula) se validan una
+    // sola vez sobre la primera ocurrencia: son iguales para todas.
+    @Override
+    public boolean validarReglasNegocio() throws ReglaNegocioException {
+        Validable.validarTexto("id", id);
+        if (diaDesde > diaHasta) {
+            throw new ReglaNegocioException("La fecha de inicio de la serie debe ser anterior a la fecha de fin.");
+        }
+        if (diaHasta - diaDesde >= DIAS_MAXIMOS) {
+            throw new ReglaNegocioException("La serie no puede cubrir mas de " + DIAS_MAXIMOS + " dias.");
+        }
+        if (diasSemana == 0) {
+            throw new ReglaNegocioException("La serie debe indicar al menos un dia de la semana.");
+        }
+        if (ocurrencias == 0) {
+            throw new ReglaNegocioException("La serie no tiene ninguna ocurrencia entre las fechas indicadas.");
+        }
+        return ocurrencias().findFirst().get().validarReglasNegocio();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("ID: %s | Aula: %s | %s a %s, %s de %s a %s | Resp: %s | Clase: %s (%s) | %d ocurrencias",
+                             id, aula.getId(), getDesde(), getHasta(), getDiasSemana(), getHoraInicio(), getHoraFin(),
+                             responsable, materia, grupo, ocurrencias);
+    }
+
+    public String toCSV() {
+        return String.format("SERIE,%s,%s,%s,%s,%s,%s,%s,%s,%s,%s,%s",
+                             id, aula.getId(), getDesde(), getHasta(),
+                             getDiasSemana().stream().map(DayOfWeek::name).collect(Collectors.joining(";")),
+                             getHoraInicio(), getHoraFin(), responsable, materia, grupo,
+                             getExcepciones().stream().map(LocalDate::toString).collect(Collectors.joining(";")));
+    }
+}
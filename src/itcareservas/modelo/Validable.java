@@ -4,4 +4,21 @@ import itcareservas.excepciones.ReglaNegocioException;
 
 public interface Validable {
     boolean validarReglasNegocio() throws ReglaNegocioException;
-}
\ No newline at end of file
+
+    // Los CSV, el historico y el diario separan campos con ',' y entradas con
+    // '|' y saltos de linea, sin comillas: un texto no puede contenerlos.
+    static boolean esTextoPlano(String texto) {
+        if (texto == null) return true;
+        for (int i = 0; i < texto.length(); i++) {
+            char c = texto.charAt(i);
+            if (c == ',' || c == '|' || c == '\r' || c == '\n') return false;
+        }
+        return true;
+    }
+
+    static void validarTexto(String campo, String texto) throws ReglaNegocioException {
+        if (!esTextoPlano(texto)) {
+            throw new ReglaNegocioException("El campo " + campo + " no puede contener ',', '|' ni saltos de linea.");
+        }
+    }
+}
@@ -0,0 +1,191 @@
+package itcareservas.servicios;
+
+import itcareservas.modelo.Aula;
+import itcareservas.modelo.Reserva;
+import itcareservas.modelo.ReservaClase;
+import itcareservas.modelo.SerieReservas;
+import itcareservasmodelo.enums.EstadoReserva;
+import itcareservasmodelo.enums.TipoAula;
+
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeSet;
+
+// Totales de los reportes mantenidos por deltas: GestorReservas suma una
+// reserva al indexarla y la resta al desindexarla, asi ningun reporte
+// necesita recorrer todas las reservas.
+//
+// Las actualizaciones se serializan en este objeto. Los reportes se leen de
+// un resumen inmutable que solo se rearma si hubo cambios desde el anterior,
+// de modo que la lectura habitual no toma ningun cerrojo.
+//
+// Se acumulan minutos y se informan horas completas del total, asi las
+// fracciones de hora de cada reserva no se pierden en la suma.
+//
+// Cada aula acumula por ID y el ranking va por el nombre vigente que publica
+// el gestor (dos aulas con el mismo nombre suman juntas, como en el reporte
+// original). Una reserva puede guardar una copia vieja del aula; su nombre
+// solo se usa si el catalogo nunca publico esa aula.
+class AgregadosReportes {
+    private static final int TOP_AULAS = 3;
+
+    private static class Resumen {
+        final long version;
+        final Map<String, Long> topAulas;
+        final Map<TipoAula, Long> horasPorTipoAula;
+        final Map<String, Long> conteoPorTipo;
+
+        Resumen(long version, Map<String, Long> topAulas, Map<TipoAula, Long> horasPorTipoAula,
+                Map<String, Long> conteoPorTipo) {
+            this.version = version;
+            this.topAulas = topAulas;
+            this.horasPorTipoAula = horasPorTipoAula;
+            this.conteoPorTipo = conteoPorTipo;
+        }
+    }
+
+    private static class Acumulado {
+        long minutos;
+        int reservas;
+    }
+
+    private final Map<String, Acumulado> minutosPorAula = new HashMap<>();
+    private final Map<String, String> nombres = new HashMap<>();
+    private final Map<String, Acumulado> minutosPorNombre = new HashMap<>();
+    private final TreeSet<String> rankingAulas = new TreeSet<>(
+        Comparator.comparingLong((String nombre) -> minutosPorNombre.get(nombre).minutos).reversed()
+                  .thenComparing(Comparator.naturalOrder()));
+    private final Map<TipoAula, Acumulado> minutosPorTipoAula = new EnumMap<>(TipoAula.class);
+    private final Map<String, Long> conteoPorTipo = new HashMap<>();
+    private volatile long version;
+    private volatile Resumen resumen = new Resumen(-1, null, null, null);
+
+    synchronized void sumar(Reserva reserva) {
+        version++;
+        conteoPorTipo.merge(reserva.getClass().getSimpleName(), 1L, Long::sum);
+        if (reserva.getEstado() == EstadoReserva.ACTIVA) {
+            acumular(reserva.getAula(), reserva.calcularDuracionMinutos(), 1);
+        }
+    }
+
+    synchronized void restar(Reserva reserva) {
+        version++;
+        conteoPorTipo.computeIfPresent(reserva.getClass().getSimpleName(), (k, n) -> n > 1 ? n - 1 : null);
+        if (reserva.getEstado() == EstadoReserva.ACTIVA) {
+            descontar(reserva.getAula(), reserva.calcularDuracionMinutos(), 1);
+        }
+    }
+
+    // Una serie cuenta como todas sus ocurrencias (ReservaClase activas) sin expandirlas.
+    synchronized void sumar(SerieReservas serie) {
+        version++;
+        int ocurrencias = serie.contarOcurrencias();
+        conteoPorTipo.merge(ReservaClase.class.getSimpleName(), (long) ocurrencias, Long::sum);
+        acumular(serie.getAula(), (long) serie.calcularDuracionMinutos() * ocurrencias, ocurrencias);
+    }
+
+    synchronized void restar(SerieReservas serie) {
+        version++;
+        int ocurrencias = serie.contarOcurrencias();
+        conteoPorTipo.computeIfPresent(ReservaClase.class.getSimpleName(),
+                                       (k, n) -> n > ocurrencias ? n - ocurrencias : null);
+        descontar(serie.getAula(), (long) serie.calcularDuracionMinutos() * ocurrencias, ocurrencias);
+    }
+
+    // Se llama con cada catalogo publicado; lo ya sumado de un aula
+    // renombrada pasa al nombre nuevo.
+    synchronized void nombrarAulas(Collection<Aula> aulas) {
+        for (Aula aula : aulas) {
+            String anterior = nombres.put(aula.getId(), aula.getNombre());
+            Acumulado porAula = minutosPorAula.get(aula.getId());
+            if (anterior == null || anterior.equals(aula.getNombre()) || porAula == null) continue;
+            version++;
+            moverEnRanking(anterior, -porAula.minutos, -porAula.reservas);
+            moverEnRanking(aula.getNombre(), porAula.minutos, porAula.reservas);
+        }
+    }
+
+    private void acumular(Aula aula, long minutos, int reservas) {
+        Acumulado porAula = minutosPorAula.computeIfAbsent(aula.getId(), k -> new Acumulado());
+        porAula.minutos += minutos;
+        porAula.reservas += reservas;
+        moverEnRanking(nombres.computeIfAbsent(aula.getId(), k -> aula.getNombre()), minutos, reservas);
+
+        Acumulado porTipo = minutosPorTipoAula.computeIfAbsent(aula.getTipo(), k -> new Acumulado());
+        porTipo.minutos += minutos;
+        porTipo.reservas += reservas;
+    }
+
+    private void descontar(Aula aula, long minutos, int reservas) {
+        Acumulado porAula = minutosPorAula.get(aula.getId());
+        if (porAula != null) {
+            porAula.minutos -= minutos;
+            porAula.reservas -= reservas;
+            if (porAula.reservas <= 0) minutosPorAula.remove(aula.getId());
+            moverEnRanking(nombres.get(aula.getId()), -minutos, -reservas);
+        }
+
+        TipoAula tipo = aula.getTipo();
+        Acumulado porTipo = minutosPorTipoAula.get(tipo);
+        if (porTipo != null) {
+            porTipo.minutos -= minutos;
+            porTipo.reservas -= reservas;
+            if (porTipo.reservas <= 0) minutosPorTipoAula.remove(tipo);
+        }
+    }
+
+    private void moverEnRanking(String nombre, long minutos, int reservas) {
+        Acumulado porNombre = minutosPorNombre.get(nombre);
+        if (porNombre == null) {
+            porNombre = new Acumulado();
+            minutosPorNombre.put(nombre, porNombre);
+        } else {
+            rankingAulas.remove(nombre);
+        }
+        porNombre.minutos += minutos;
+        porNombre.reservas += reservas;
+        if (porNombre.reservas > 0) {
+            rankingAulas.add(nombre);
+        } else {
+            minutosPorNombre.remove(nombre);
+        }
+    }
+
+    Map<String, Long> topAulas() {
+        return new LinkedHashMap<>(vigente().topAulas);
+    }
+
+    Map<TipoAula, Long> horasPorTipoAula() {
+        return new HashMap<>(vigente().horasPorTipoAula);
+    }
+
+    Map<String, Long> conteoPorTipo() {
+        return new HashMap<>(vigente().conteoPorTipo);
+    }
+
+    private Resumen vigente() {
+        Resumen actual = resumen;
+        return actual.version == version ? actual : publicar();
+    }
+
+    private synchronized Resumen publicar() {
+        if (resumen.version == version) return resumen;
+
+        Map<String, Long> top = new LinkedHashMap<>();
+        Iterator<String> it = rankingAulas.iterator();
+        while (it.hasNext() && top.size() < TOP_AULAS) {
+            String nombre = it.next();
+            top.put(nombre, minutosPorNombre.get(nombre).minutos / 60);
+        }
+        Map<TipoAula, Long> porTipoAula = new HashMap<>();
+        minutosPorTipoAula.forEach((tipo, acumulado) -> porTipoAula.put(tipo, acumulado.minutos / 60));
+
+        resumen = new Resumen(version, top, porTipoAula, new HashMap<>(conteoPorTipo));
+        return resumen;
+    }
+}
@@ -0,0 +1,324 @@
+package itcareservas.servicios;
+
+import itcareservas.modelo.Aula;
+import itcareservas.modelo.Reserva;
+import itcareservasmodelo.enums.EstadoReserva;
+import itcareservasmodelo.enums.TipoAula;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+
+// Archivo de solo anexado con las reservas pasadas que salieron de memoria.
+// Cada linea es la reserva en formato CSV con estado HISTORICA, seguida del
+// estado que tenia al archivarse y de los datos del aula (que puede borrarse
+// despues):
+//   CLASE,...,HISTORICA,materia,grupo,ACTIVA,nombreAula,capacidad,TIPO
+// Cada lote termina con "#HASTA,<dia epoch>", el mayor dia archivado hasta
+// ese momento, asi al abrir se sabe que fechas cubre el archivo leyendo solo
+// el final.
+//
+// De las reservas no se guarda nada en memoria. Solo hay un indice de tramos:
+// uno por lote, con su posicion en el archivo y su rango de fechas. Se arma
+// con una pasada la primera vez que se consulta y despues lo mantiene
+// agregar. Una consulta por fechas lee solo los tramos que cruzan su rango,
+// asi que su costo no crece con el tamano del archivo.
+//
+// Si el proceso cae entre el fsync del lote y el del diario, esas reservas
+// siguen vigentes al reiniciar y se vuelven a archivar (con la misma fecha,
+// en un tramo posterior). Tanto leer como recorrer se quedan con la ultima
+// linea de cada ID.
+class ArchivoHistorico {
+    private static final String MARCA = "#HASTA";
+    private static final int COLA_MARCA = 64 * 1024;
+    private static final long VENTANA_INDICE = 256L << 20;
+    private static final long BLOQUE_RECORRIDO = 64L << 20;
+
+    // Bytes [inicio, fin) de un lote y el rango de dias de sus reservas.
+    private static final class Tramo {
+        final long inicio;
+        final long fin;
+        final int diaMinimo;
+        final int diaMaximo;
+
+        Tramo(long inicio, long fin, int diaMinimo, int diaMaximo) {
+            this.inicio = inicio;
+            this.fin = fin;
+            this.diaMinimo = diaMinimo;
+            this.diaMaximo = diaMaximo;
+        }
+    }
+
+    private final Path archivo;
+    private final FileChannel canal;
+    private volatile int diaMaximo = Integer.MIN_VALUE;
+    // null hasta la primera consulta; se reemplaza entero (copia) en cada lote.
+    private volatile List<Tramo> tramos;
+
+    ArchivoHistorico(Path archivo) throws IOException {
+        this.archivo = archivo;
+        this.canal = FileChannel.open(archivo, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                                      StandardOpenOption.WRITE);
+        descartarLineaIncompleta();
+        canal.position(canal.size());
+        diaMaximo = leerMarca();
+    }
+
+    // Mayor dia (epoch) que puede haber en el archivo; MIN_VALUE si esta vacio.
+    int getDiaMaximo() {
+        return diaMaximo;
+    }
+
+    // Escribe el lote completo y lo fuerza a disco antes de volver: recien
+    // entonces el llamador puede sacar esas reservas de memoria.
+    synchronized void agregar(Collection<Reserva> reservas) throws IOException {
+        if (reservas.isEmpty()) return;
+        int hasta = diaMaximo;
+        int minimoLote = Integer.MAX_VALUE;
+        int maximoLote = Integer.MIN_VALUE;
+        StringBuilder lote = new StringBuilder();
+        for (Reserva reserva : reservas) {
+            Aula aula = reserva.getAula();
+            lote.append(reserva.conCambios(null, null, null, null, EstadoReserva.HISTORICA).toCSV())
+                .append(',').append(reserva.getEstado().name())
+                .append(',').append(aula.getNombre())
+                .append(',').append(aula.getCapacidad())
+                .append(',').append(aula.getTipo().name()).append('\n');
+            hasta = Math.max(hasta, reserva.getDiaEpoch());
+            minimoLote = Math.min(minimoLote, reserva.getDiaEpoch());
+            maximoLote = Math.max(maximoLote, reserva.getDiaEpoch());
+        }
+        lote.append(MARCA).append(',').append(hasta).append('\n');
+        ByteBuffer buffer = ByteBuffer.wrap(lote.toString().getBytes(StandardCharsets.UTF_8));
+        long inicio = canal.position();
+        while (buffer.hasRemaining()) {
+            canal.write(buffer);
+        }
+        canal.force(false);
+        List<Tramo> actuales = tramos;
+        if (actuales != null) {
+            List<Tramo> nuevos = new ArrayList<>(actuales.size() + 1);
+            nuevos.addAll(actuales);
+            nuevos.add(new Tramo(inicio, canal.position(), minimoLote, maximoLote));
+            tramos = Collections.unmodifiableList(nuevos);
+        }
+        diaMaximo = hasta;
+    }
+
+    // Reservas archivadas de los dias [diaDesde, diaHasta] (de un aula si
+    // aulaId no es null), en estado HISTORICA y por fecha y hora. Con
+    // soloOcupadas se omiten las que ya estaban canceladas.
+    List<Reserva> leer(int diaDesde, int diaHasta, String aulaId, boolean soloOcupadas,
+                       Collection<Aula> aulas) throws IOException {
+        List<Reserva> resultado = new ArrayList<>();
+        if (diaDesde > diaHasta || diaDesde > diaMaximo) return resultado;
+        TablaAulas tablaAulas = new TablaAulas(aulas);
+        // Cada linea con su estado previo: los filtros van despues de quitar repetidos.
+        LectorCsv.ParserLinea<Map.Entry<Reserva, EstadoReserva>> parser = campos -> {
+            if (campos.es(0, MARCA)) return null;
+            int dia = (int) campos.fecha(3).toEpochDay();
+            if (dia < diaDesde || dia > diaHasta) return null;
+            return new AbstractMap.SimpleImmutableEntry<>(reconstruir(campos, tablaAulas), estadoAnterior(campos));
+        };
+        // Tramos que cruzan el rango, unidos cuando son contiguos, en orden de archivo.
+        List<Map.Entry<Reserva, EstadoReserva>> leidas = new ArrayList<>();
+        long inicio = -1;
+        long fin = -1;
+        for (Tramo tramo : tramos()) {
+            if (tramo.diaMaximo < diaDesde || tramo.diaMinimo > diaHasta) continue;
+            if (tramo.inicio != fin) {
+                if (inicio >= 0) leidas.addAll(LectorCsv.leer(archivo, inicio, fin, parser, this::errorDeLectura));
+                inicio = tramo.inicio;
+            }
+            fin = tramo.fin;
+        }
+        if (inicio >= 0) leidas.addAll(LectorCsv.leer(archivo, inicio, fin, parser, this::errorDeLectura));
+
+        Map<String, Map.Entry<Reserva, EstadoReserva>> unicas = new LinkedHashMap<>();
+        for (Map.Entry<Reserva, EstadoReserva> leida : leidas) {
+            unicas.put(leida.getKey().getId(), leida);
+        }
+        for (Map.Entry<Reserva, EstadoReserva> unica : unicas.values()) {
+            Reserva reserva = unica.getKey();
+            if (aulaId != null && !reserva.getAula().getId().equals(aulaId)) continue;
+            if (soloOcupadas && unica.getValue() == EstadoReserva.CANCELADA) continue;
+            resultado.add(reserva);
+        }
+        resultado.sort(Comparator.comparingInt(Reserva::getDiaEpoch)
+                                 .thenComparingInt(Reserva::getMinutoInicio)
+                                 .thenComparing(Reserva::getId));
+        return resultado;
+    }
+
+    // Recorre todo el archivo una vez entregando cada ID una sola vez (su
+    // ultima linea, igual que leer) con el estado que tenia al archivarse, que
+    // es el que cuenta para los reportes. Va del final al principio en bloques
+    // de tramos: cada bloque se lee en paralelo y se entrega al reves, asi en
+    // memoria hay a lo sumo un bloque. Los IDs de 'excluir' (reservas que
+    // volvieron a estar vigentes tras una caida) se saltan.
+    void recorrer(Collection<Aula> aulas, Set<String> excluir, Consumer<Reserva> accion) throws IOException {
+        if (diaMaximo == Integer.MIN_VALUE) return;
+        TablaAulas tablaAulas = new TablaAulas(aulas);
+        LectorCsv.ParserLinea<Reserva> parser = campos -> {
+            if (campos.es(0, MARCA)) return null;
+            if (excluir.contains(campos.texto(1))) return null;
+            Reserva reserva = reconstruir(campos, tablaAulas);
+            // Leida queda HISTORICA; los reportes necesitan el estado previo.
+            return reserva.conCambios(null, null, null, null, estadoAnterior(campos));
+        };
+        List<Tramo> todos = tramos();
+        Set<String> vistos = new HashSet<>();
+        int siguiente = todos.size();
+        while (siguiente > 0) {
+            long fin = todos.get(siguiente - 1).fin;
+            long inicio = todos.get(--siguiente).inicio;
+            while (siguiente > 0 && fin - todos.get(siguiente - 1).inicio <= BLOQUE_RECORRIDO) {
+                inicio = todos.get(--siguiente).inicio;
+            }
+            List<Reserva> bloque = LectorCsv.leer(archivo, inicio, fin, parser, this::errorDeLectura);
+            for (int i = bloque.size() - 1; i >= 0; i--) {
+                Reserva reserva = bloque.get(i);
+                if (vistos.add(reserva.getId())) accion.accept(reserva);
+            }
+        }
+    }
+
+    private void errorDeLectura(long numero, String linea, Exception causa) {
+        System.err.println("Error al leer historico en linea " + numero + ": " + linea);
+    }
+
+    private List<Tramo> tramos() throws IOException {
+        List<Tramo> actuales = tramos;
+        if (actuales != null) return actuales;
+        synchronized (this) {
+            if (tramos == null) tramos = indexar();
+            return tramos;
+        }
+    }
+
+    // Una pasada por el archivo, por ventanas alineadas a fin de linea: cada
+    // marca cierra un tramo. Lineas sin marca al final (un lote cortado por
+    // una caida) forman un tramo propio. Se llama con el monitor tomado, asi
+    // que ningun lote se escribe mientras tanto.
+    private List<Tramo> indexar() throws IOException {
+        List<Tramo> indice = new ArrayList<>();
+        long tamano = canal.size();
+        long inicioTramo = 0;
+        int minimo = Integer.MAX_VALUE;
+        int maximo = Integer.MIN_VALUE;
+        long ventana = 0;
+        while (ventana < tamano) {
+            long largo = Math.min(tamano - ventana, VENTANA_INDICE);
+            CamposCsv campos = new CamposCsv(canal.map(FileChannel.MapMode.READ_ONLY, ventana, largo));
+            long completas = ventana;
+            while (campos.siguienteLinea() && campos.posicion() <= largo) {
+                completas = ventana + campos.posicion();
+                if (campos.vacia()) continue;
+                if (campos.es(0, MARCA)) {
+                    if (minimo <= maximo) indice.add(new Tramo(inicioTramo, completas, minimo, maximo));
+                    inicioTramo = completas;
+                    minimo = Integer.MAX_VALUE;
+                    maximo = Integer.MIN_VALUE;
+                    continue;
+                }
+                try {
+                    int dia = (int) campos.fecha(3).toEpochDay();
+                    minimo = Math.min(minimo, dia);
+                    maximo = Math.max(maximo, dia);
+                } catch (RuntimeException e) {
+                    // linea danada: leer y recorrer la reportan
+                }
+            }
+            if (completas == ventana) {
+                throw new IOException("Linea de mas de " + VENTANA_INDICE + " bytes en el historico");
+            }
+            ventana = completas;
+        }
+        if (minimo <= maximo) indice.add(new Tramo(inicioTramo, tamano, minimo, maximo));
+        return Collections.unmodifiableList(indice);
+    }
+
+    void cerrar() throws IOException {
+        synchronized (this) {
+            canal.close();
+        }
+    }
+
+    private static EstadoReserva estadoAnterior(CamposCsv campos) {
+        return campos.enumeracion(campos.cantidad() - 4, EstadoReserva.values());
+    }
+
+    // El aula se toma del catalogo si sigue existiendo; si no, de los datos
+    // guardados en la linea.
+    private static Reserva reconstruir(CamposCsv campos, TablaAulas tablaAulas) throws IOException {
+        Aula aula = tablaAulas.buscar(campos, 2);
+        if (aula == null) {
+            int n = campos.cantidad();
+            aula = new Aula(campos.texto(2), campos.texto(n - 3), campos.entero(n - 2),
+                            campos.enumeracion(n - 1, TipoAula.values()));
+        }
+        Reserva reserva = PersistenciaUtil.reconstruirReserva(campos, aula);
+        if (reserva == null) {
+            throw new IOException("Tipo de reserva desconocido en el historico: " + campos.texto(0));
+        }
+        return reserva;
+    }
+
+    // Una caida a mitad de un lote deja una linea sin salto final; se corta
+    // para que el proximo lote no quede pegado a ella.
+    private void descartarLineaIncompleta() throws IOException {
+        long tamano = canal.size();
+        if (tamano == 0 || leerByte(tamano - 1) == '\n') return;
+        long fin = tamano - 1;
+        while (fin > 0 && leerByte(fin - 1) != '\n') fin--;
+        canal.truncate(fin);
+        canal.force(true);
+    }
+
+    private byte leerByte(long posicion) throws IOException {
+        ByteBuffer uno = ByteBuffer.allocate(1);
+        canal.read(uno, posicion);
+        return uno.get(0);
+    }
+
+    // Si la ultima linea es una marca, ese es el mayor dia archivado; si no
+    // (un lote quedo a medio escribir) se recorre el archivo completo.
+    private int leerMarca() throws IOException {
+        long tamano = canal.size();
+        if (tamano == 0) return Integer.MIN_VALUE;
+        int cola = (int) Math.min(tamano, COLA_MARCA);
+        ByteBuffer buffer = ByteBuffer.allocate(cola);
+        while (buffer.hasRemaining()) {
+            if (canal.read(buffer, tamano - cola + buffer.position()) < 0) break;
+        }
+        String fin = new String(buffer.array(), 0, buffer.position(), StandardCharsets.UTF_8);
+        int inicioUltima = fin.lastIndexOf('\n', fin.length() - 2) + 1;
+        if (fin.startsWith(MARCA + ",", inicioUltima)) {
+            try {
+                return Integer.parseInt(fin.substring(inicioUltima + MARCA.length() + 1).trim());
+            } catch (NumberFormatException e) {
+                // se recorre el archivo
+            }
+        }
+        tramos = indexar();
+        int maximo = Integer.MIN_VALUE;
+        for (Tramo tramo : tramos) {
+            maximo = Math.max(maximo, tramo.diaMaximo);
+        }
+        return maximo;
+    }
+}
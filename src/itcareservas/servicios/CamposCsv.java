@@ -0,0 +1,216 @@
+package itcareservas.servicios;
+
+import itcareservas.modelo.Reserva;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.Arrays;
+
+// Cursor sobre las lineas de un bloque CSV en bytes. Separa los campos por
+// posicion sin crear Strings, y solo decodifica lo que se pide; fechas, horas,
+// enteros y enums se leen directamente de los bytes.
+class CamposCsv {
+    private final ByteBuffer buffer;
+    private int posicion;
+    private int inicioLinea;
+    private int finLinea;
+    private int[] inicios = new int[12];
+    private int[] fines = new int[12];
+    private int cantidad;
+    private byte[] temporal = new byte[64];
+    private int ultimaFechaClave = -1;
+    private LocalDate ultimaFecha;
+
+    CamposCsv(ByteBuffer buffer) {
+        this.buffer = buffer;
+        this.posicion = buffer.position();
+    }
+
+    static CamposCsv de(String linea) {
+        CamposCsv campos = new CamposCsv(ByteBuffer.wrap(linea.getBytes(StandardCharsets.UTF_8)));
+        campos.siguienteLinea();
+        return campos;
+    }
+
+    void saltarBom() {
+        if (buffer.limit() - posicion >= 3 && (buffer.get(posicion) & 0xFF) == 0xEF
+                && (buffer.get(posicion + 1) & 0xFF) == 0xBB && (buffer.get(posicion + 2) & 0xFF) == 0xBF) {
+            posicion += 3;
+        }
+    }
+
+    boolean siguienteLinea() {
+        int limite = buffer.limit();
+        if (posicion >= limite) return false;
+        inicioLinea = posicion;
+        cantidad = 0;
+        int inicioCampo = posicion;
+        int i = posicion;
+        while (i < limite) {
+            byte b = buffer.get(i);
+            if (b == '\n') break;
+            if (b == ',') {
+                agregarCampo(inicioCampo, i);
+                inicioCampo = i + 1;
+            }
+            i++;
+        }
+        finLinea = i;
+        posicion = i + 1;
+        if (finLinea > inicioLinea && buffer.get(finLinea - 1) == '\r') {
+            finLinea--;
+        }
+        agregarCampo(inicioCampo, Math.max(inicioCampo, finLinea));
+        return true;
+    }
+
+    private void agregarCampo(int inicio, int fin) {
+        if (cantidad == inicios.length) {
+            inicios = Arrays.copyOf(inicios, cantidad * 2);
+            fines = Arrays.copyOf(fines, cantidad * 2);
+        }
+        inicios[cantidad] = inicio;
+        fines[cantidad] = fin;
+        cantidad++;
+    }
+
+    // Donde empieza la linea siguiente (relativo al bloque); pasa del limite
+    // si la ultima linea no termina en salto.
+    int posicion() {
+        return posicion;
+    }
+
+    boolean vacia() {
+        return finLinea == inicioLinea;
+    }
+
+    int cantidad() {
+        return cantidad;
+    }
+
+    String linea() {
+        return decodificar(inicioLinea, finLinea);
+    }
+
+    String texto(int i) {
+        verificar(i);
+        return decodificar(inicios[i], fines[i]);
+    }
+
+    private String decodificar(int inicio, int fin) {
+        int largo = fin - inicio;
+        if (buffer.hasArray()) {
+            return new String(buffer.array(), buffer.arrayOffset() + inicio, largo, StandardCharsets.UTF_8);
+        }
+        if (temporal.length < largo) {
+            temporal = new byte[Math.max(largo, temporal.length * 2)];
+        }
+        for (int k = 0; k < largo; k++) {
+            temporal[k] = buffer.get(inicio + k);
+        }
+        return new String(temporal, 0, largo, StandardCharsets.UTF_8);
+    }
+
+    boolean es(int i, String ascii) {
+        verificar(i);
+        int largo = fines[i] - inicios[i];
+        if (largo != ascii.length()) return false;
+        for (int k = 0; k < largo; k++) {
+            if (buffer.get(inicios[i] + k) != ascii.charAt(k)) return false;
+        }
+        return true;
+    }
+
+    <E extends Enum<E>> E enumeracion(int i, E[] valores) {
+        for (E valor : valores) {
+            if (es(i, valor.name())) return valor;
+        }
+        throw new IllegalArgumentException("Valor no valido: " + texto(i));
+    }
+
+    int entero(int i) {
+        verificar(i);
+        int inicio = inicios[i];
+        int fin = fines[i];
+        boolean negativo = fin > inicio && buffer.get(inicio) == '-';
+        if (negativo) inicio++;
+        if (inicio == fin) throw new NumberFormatException("Entero vacio");
+        int valor = 0;
+        for (int k = inicio; k < fin; k++) {
+            int digito = buffer.get(k) - '0';
+            if (digito < 0 || digito > 9) throw new NumberFormatException("Entero no valido: " + texto(i));
+            valor = valor * 10 + digito;
+        }
+        return negativo ? -valor : valor;
+    }
+
+    // Formato ISO yyyy-MM-dd, que es el que escribe LocalDate.toString.
+    LocalDate fecha(int i) {
+        verificar(i);
+        int p = inicios[i];
+        if (fines[i] - p != 10 || buffer.get(p + 4) != '-' || buffer.get(p + 7) != '-') {
+            return LocalDate.parse(texto(i));
+        }
+        int anio = digitos(p, 4);
+        int mes = digitos(p + 5, 2);
+        int dia = digitos(p + 8, 2);
+        int clave = anio * 10000 + mes * 100 + dia;
+        if (clave != ultimaFechaClave) {
+            ultimaFecha = LocalDate.of(anio, mes, dia);
+            ultimaFechaClave = clave;
+        }
+        return ultimaFecha;
+    }
+
+    // Formato HH:mm, que es el que escribe LocalTime.toString sin segundos.
+    LocalTime hora(int i) {
+        verificar(i);
+        int p = inicios[i];
+        if (fines[i] - p != 5 || buffer.get(p + 2) != ':') {
+            return LocalTime.parse(texto(i));
+        }
+        int hora = digitos(p, 2);
+        int minuto = digitos(p + 3, 2);
+        if (hora > 23 || minuto > 59) {
+            return LocalTime.parse(texto(i));
+        }
+        return Reserva.horaDelDia(hora * 60 + minuto);
+    }
+
+    private int digitos(int desde, int largo) {
+        int valor = 0;
+        for (int k = desde; k < desde + largo; k++) {
+            int digito = buffer.get(k) - '0';
+            if (digito < 0 || digito > 9) throw new NumberFormatException("Digito no valido en posicion " + k);
+            valor = valor * 10 + digito;
+        }
+        return valor;
+    }
+
+    int hash(int i) {
+        verificar(i);
+        int h = 1;
+        for (int k = inicios[i]; k < fines[i]; k++) {
+            h = 31 * h + buffer.get(k);
+        }
+        return h;
+    }
+
+    boolean igual(int i, byte[] valor) {
+        verificar(i);
+        int largo = fines[i] - inicios[i];
+        if (largo != valor.length) return false;
+        for (int k = 0; k < largo; k++) {
+            if (buffer.get(inicios[i] + k) != valor[k]) return false;
+        }
+        return true;
+    }
+
+    private void verificar(int i) {
+        if (i >= cantidad) {
+            throw new ArrayIndexOutOfBoundsException("La linea no tiene el campo " + i);
+        }
+    }
+}
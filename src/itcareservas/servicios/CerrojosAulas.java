@@ -0,0 +1,57 @@
+package itcareservas.servicios;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// Cerrojos por franjas para las mutaciones de GestorReservas: cada aula cae
+// en una franja segun su ID, asi que las reservas de aulas distintas avanzan
+// en paralelo. Las franjas se toman siempre en orden ascendente para evitar
+// interbloqueos cuando una operacion toca varias aulas.
+//
+// Toda mutacion toma ademas, de forma compartida, el cerrojo de estado; una
+// instantanea lo toma en exclusiva para ver el estado sin cambios a medias.
+class CerrojosAulas {
+    private final ReentrantLock[] franjas;
+    private final ReentrantReadWriteLock estado = new ReentrantReadWriteLock();
+
+    CerrojosAulas(int cantidad) {
+        this.franjas = new ReentrantLock[cantidad];
+        for (int i = 0; i < cantidad; i++) {
+            franjas[i] = new ReentrantLock();
+        }
+    }
+
+    int[] bloquear(String... aulaIds) {
+        return bloquear(Arrays.asList(aulaIds));
+    }
+
+    int[] bloquear(Collection<String> aulaIds) {
+        int[] tomadas = aulaIds.stream().mapToInt(this::franja).distinct().sorted().toArray();
+        estado.readLock().lock();
+        for (int franja : tomadas) {
+            franjas[franja].lock();
+        }
+        return tomadas;
+    }
+
+    void liberar(int[] tomadas) {
+        for (int i = tomadas.length - 1; i >= 0; i--) {
+            franjas[tomadas[i]].unlock();
+        }
+        estado.readLock().unlock();
+    }
+
+    void congelar() {
+        estado.writeLock().lock();
+    }
+
+    void descongelar() {
+        estado.writeLock().unlock();
+    }
+
+    private int franja(String aulaId) {
+        return (aulaId.hashCode() & 0x7fffffff) % franjas.length;
+    }
+}
@@ -0,0 +1,239 @@
+package itcareservas.servicios;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+// Diario de cambios de solo anexado. Cada mutacion de GestorReservas se
+// agrega como una linea "TIPO|datos" y recibe un numero de secuencia; el
+// mutador suelta sus cerrojos y espera (esperar) a que el fsync que cubre esa
+// secuencia termine antes de confirmar la operacion. Un hilo escritor vuelca
+// de una vez todo lo pendiente (commit en grupo): lo que llega mientras un
+// fsync esta en curso viaja en el siguiente. Al superar el umbral de
+// registros el mismo hilo dispara la compactacion, fuera del camino de las
+// mutaciones.
+//
+// Si un volcado falla el diario deja de aceptar cambios (verificar) hasta que
+// una compactacion lo reinicia; el escritor intenta una en cuanto falla.
+public class Diario {
+    public static final String AULA = "AULA";
+    public static final String BAJA_AULA = "BAJA_AULA";
+    public static final String RESERVA = "RESERVA";
+    public static final String BAJA_RESERVA = "BAJA_RESERVA";
+    public static final String ARCHIVADA = "ARCHIVADA";
+    public static final String SERIE = "SERIE";
+    public static final String BAJA_SERIE = "BAJA_SERIE";
+
+    private final FileChannel canal;
+    private final int umbralCompactacion;
+    private final Object escritura = new Object();
+    private final Object senal = new Object();
+    private final Thread escritor;
+    // Protegidos por this.
+    private StringBuilder pendiente = new StringBuilder();
+    private int registros;
+    private long registrado;
+    private long durable;
+    private IOException fallo;
+    private boolean cerrado;
+    private volatile boolean abierto = true;
+    private volatile boolean compactacionPendiente;
+    private volatile Runnable compactador;
+
+    public Diario(Path archivo, int umbralCompactacion) throws IOException {
+        this.canal = FileChannel.open(archivo, StandardOpenOption.CREATE,
+                                      StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        this.umbralCompactacion = umbralCompactacion;
+        this.escritor = new Thread(() -> {
+            while (abierto) {
+                try {
+                    synchronized (senal) {
+                        while (abierto && !hayPendiente() && !compactacionPendiente) {
+                            senal.wait();
+                        }
+                    }
+                    sincronizar();
+                    Runnable accion = compactador;
+                    if (compactacionPendiente && accion != null) {
+                        compactacionPendiente = false;
+                        accion.run();
+                    }
+                } catch (InterruptedException e) {
+                    return;
+                } catch (IOException e) {
+                    System.err.println("Error al escribir diario de cambios: " + e.getMessage());
+                }
+            }
+        }, "diario-reservas");
+        this.escritor.setDaemon(true);
+        this.escritor.start();
+    }
+
+    void setCompactador(Runnable compactador) {
+        this.compactador = compactador;
+    }
+
+    // Agrega el registro y devuelve su secuencia; no espera al disco.
+    public long registrar(String tipo, String datos) {
+        long secuencia;
+        synchronized (this) {
+            pendiente.append(tipo).append('|').append(datos).append('\n');
+            secuencia = ++registrado;
+            registros++;
+            if (registros >= umbralCompactacion) {
+                compactacionPendiente = true;
+            }
+        }
+        synchronized (senal) {
+            senal.notify();
+        }
+        return secuencia;
+    }
+
+    // Falla si el diario ya no puede confirmar cambios. Los mutadores lo
+    // llaman antes de tocar el estado, con sus cerrojos tomados.
+    public synchronized void verificar() {
+        if (fallo != null) {
+            throw new UncheckedIOException("El diario de cambios fallo; no se aceptan cambios", fallo);
+        }
+        if (cerrado) {
+            throw new UncheckedIOException(new IOException("El diario de cambios esta cerrado"));
+        }
+    }
+
+    // Bloquea hasta que el registro 'secuencia' esta en disco (por fsync o
+    // porque una compactacion ya lo incluyo en la instantanea). Si el volcado
+    // que lo cubria fallo, o el diario se cerro antes, el cambio no es durable.
+    public void esperar(long secuencia) {
+        boolean interrumpido = false;
+        synchronized (this) {
+            while (durable < secuencia) {
+                if (fallo != null) {
+                    throw new UncheckedIOException("El cambio no quedo escrito en el diario", fallo);
+                }
+                if (cerrado) {
+                    throw new UncheckedIOException(new IOException("El diario de cambios esta cerrado"));
+                }
+                try {
+                    wait();
+                } catch (InterruptedException e) {
+                    interrumpido = true;
+                }
+            }
+        }
+        if (interrumpido) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private synchronized boolean hayPendiente() {
+        return pendiente.length() > 0;
+    }
+
+    // Vuelca lo pendiente al archivo, lo fuerza a disco y despierta a quienes
+    // esperan alguna de las secuencias incluidas.
+    public void sincronizar() throws IOException {
+        synchronized (escritura) {
+            if (!canal.isOpen()) return;
+            StringBuilder lote;
+            long hasta;
+            synchronized (this) {
+                if (pendiente.length() == 0) return;
+                lote = pendiente;
+                hasta = registrado;
+                pendiente = new StringBuilder();
+            }
+            try {
+                ByteBuffer buffer = ByteBuffer.wrap(lote.toString().getBytes(StandardCharsets.UTF_8));
+                while (buffer.hasRemaining()) {
+                    canal.write(buffer);
+                }
+                canal.force(false);
+            } catch (IOException e) {
+                // El lote pudo quedar a medias: hasta la proxima compactacion
+                // ningun cambio posterior se da por durable.
+                synchronized (this) {
+                    fallo = e;
+                    notifyAll();
+                }
+                if (compactador != null) {
+                    compactacionPendiente = true;
+                }
+                throw e;
+            }
+            synchronized (this) {
+                if (fallo == null) {
+                    durable = hasta;
+                }
+                notifyAll();
+            }
+        }
+    }
+
+    // Descarta el contenido una vez que quedo incluido en una instantanea
+    // (ya escrita y forzada a disco), por lo que todo lo registrado es durable.
+    void reiniciar() throws IOException {
+        synchronized (escritura) {
+            synchronized (this) {
+                pendiente.setLength(0);
+                registros = 0;
+                compactacionPendiente = false;
+            }
+            canal.truncate(0);
+            canal.force(true);
+            synchronized (this) {
+                durable = registrado;
+                fallo = null;
+                notifyAll();
+            }
+        }
+    }
+
+    public void cerrar() throws IOException {
+        abierto = false;
+        synchronized (senal) {
+            senal.notifyAll();
+        }
+        synchronized (escritura) {
+            try {
+                sincronizar();
+                canal.close();
+            } finally {
+                synchronized (this) {
+                    cerrado = true;
+                    notifyAll();
+                }
+            }
+        }
+    }
+
+    // Una linea sin salto final quedo a medio escribir (caida del proceso) y se ignora.
+    public static List<String[]> leer(Path archivo) throws IOException {
+        List<String[]> entradas = new ArrayList<>();
+        String contenido;
+        try {
+            contenido = new String(Files.readAllBytes(archivo), StandardCharsets.UTF_8);
+        } catch (NoSuchFileException e) {
+            return entradas;
+        }
+        int inicio = 0;
+        int fin;
+        while ((fin = contenido.indexOf('\n', inicio)) >= 0) {
+            String linea = contenido.substring(inicio, fin);
+            int separador = linea.indexOf('|');
+            if (separador > 0) {
+                entradas.add(new String[] { linea.substring(0, separador), linea.substring(separador + 1) });
+            }
+            inicio = fin + 1;
+        }
+        return entradas;
+    }
+}
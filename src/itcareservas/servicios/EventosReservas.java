@@ -0,0 +1,137 @@
+package itcareservas.servicios;
+
+// Fachada de los eventos de JDK Flight Recorder del gestor y la persistencia,
+// para ver en una misma grabacion las reservas junto al GC y la E/S. Las
+// clases de eventos (EventosJfr) estan en jfr/src porque jdk.jfr no es parte
+// de la API de Java 8: se compilan aparte con --release 11 y se cargan solo
+// si el JDK trae jdk.jfr; si no, todos los eventos son no-op.
+//
+// Uso: el evento se pide al empezar (ya iniciado) y al terminar se llenan sus
+// campos solo si grabar() da true. Si el tipo de evento no esta habilitado en
+// ninguna grabacion se devuelve NINGUNO y no se crea ningun objeto.
+abstract class EventosReservas {
+    static final Ninguno NINGUNO = new Ninguno();
+    private static final EventosReservas ACTIVOS = cargar();
+
+    interface Registro {
+        boolean grabar();
+        void confirmar(String operacion, String id, String aulaId, int cantidad, int rechazadas, String error);
+    }
+
+    interface Validacion {
+        boolean grabar();
+        void confirmar(String id, String motivo);
+    }
+
+    interface Solapamiento {
+        boolean grabar();
+        void confirmar(String aulaId, int dia, int minutoInicio, int minutoFin, boolean caminoRapido,
+                       int reservasRevisadas, int seriesRevisadas, String conflicto);
+    }
+
+    interface Reporte {
+        boolean grabar();
+        void confirmar(String nombre, String aulaId, int entradas, boolean historico);
+    }
+
+    interface Persistencia {
+        boolean grabar();
+        void confirmar(String operacion, String archivo, long bytes, long filas, boolean exito);
+    }
+
+    static Registro registro() {
+        return ACTIVOS.iniciarRegistro();
+    }
+
+    static Validacion validacion() {
+        return ACTIVOS.iniciarValidacion();
+    }
+
+    static Solapamiento solapamiento() {
+        return ACTIVOS.iniciarSolapamiento();
+    }
+
+    static Reporte reporte() {
+        return ACTIVOS.iniciarReporte();
+    }
+
+    static Persistencia persistencia() {
+        return ACTIVOS.iniciarPersistencia();
+    }
+
+    abstract Registro iniciarRegistro();
+
+    abstract Validacion iniciarValidacion();
+
+    abstract Solapamiento iniciarSolapamiento();
+
+    abstract Reporte iniciarReporte();
+
+    abstract Persistencia iniciarPersistencia();
+
+    private static EventosReservas cargar() {
+        try {
+            Class.forName("jdk.jfr.Event");
+            return (EventosReservas) Class.forName("itcareservas.servicios.EventosJfr")
+                                          .getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException | LinkageError e) {
+            return NINGUNO;
+        }
+    }
+
+    // Sin JFR o con el evento apagado: una sola instancia que nunca graba.
+    static final class Ninguno extends EventosReservas
+            implements Registro, Validacion, Solapamiento, Reporte, Persistencia {
+        @Override
+        public boolean grabar() {
+            return false;
+        }
+
+        @Override
+        public void confirmar(String operacion, String id, String aulaId, int cantidad, int rechazadas,
+                              String error) {
+        }
+
+        @Override
+        public void confirmar(String id, String motivo) {
+        }
+
+        @Override
+        public void confirmar(String aulaId, int dia, int minutoInicio, int minutoFin, boolean caminoRapido,
+                              int reservasRevisadas, int seriesRevisadas, String conflicto) {
+        }
+
+        @Override
+        public void confirmar(String nombre, String aulaId, int entradas, boolean historico) {
+        }
+
+        @Override
+        public void confirmar(String operacion, String archivo, long bytes, long filas, boolean exito) {
+        }
+
+        @Override
+        Registro iniciarRegistro() {
+            return this;
+        }
+
+        @Override
+        Validacion iniciarValidacion() {
+            return this;
+        }
+
+        @Override
+        Solapamiento iniciarSolapamiento() {
+            return this;
+        }
+
+        @Override
+        Reporte iniciarReporte() {
+            return this;
+        }
+
+        @Override
+        Persistencia iniciarPersistencia() {
+            return this;
+        }
+    }
+}
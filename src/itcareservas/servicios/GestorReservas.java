@@ -3,247 +3,1225 @@ package itcareservas.servicios;
 import itcareservas.excepciones.ConflictoHorarioException;
 import itcareservas.excepciones.NoEncontradoException;
 import itcareservas.excepciones.ReglaNegocioException;
+import itcareservas.excepciones.VersionObsoletaException;
 import itcareservas.modelo.Aula;
 import itcareservas.modelo.Reserva;
+import itcareservas.modelo.SerieReservas;
+import itcareservas.modelo.Validable;
+import itcareservas.servicios.MetricasReservas.Operacion;
 import itcareservasmodelo.enums.EstadoReserva;
 import itcareservasmodelo.enums.TipoAula;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.time.LocalDate;
 import java.time.LocalTime;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.Comparator;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
+// Seguro para uso concurrente (ver CerrojosAulas).
 public class GestorReservas {
-    private List<Aula> aulas;
-    private List<Reserva> reservas;
+    private static final int FRANJAS_CERROJO = 64;
+    private static final int LOTE_ARCHIVO = 2000;
+    private static final Comparator<Reserva> POR_FECHA = Comparator.comparingInt(Reserva::getDiaEpoch)
+                                                                   .thenComparingInt(Reserva::getMinutoInicio)
+                                                                   .thenComparing(Reserva::getId);
+
+    private volatile Map<String, Aula> aulas;
+    private volatile IndiceAulas indiceAulas = IndiceAulas.VACIO;
+    private final Object escrituraAulas = new Object();
+    private final Map<String, Reserva> reservas;
+    private final Map<String, Map<String, Reserva>> reservasPorAula;
+    private final Map<String, Integer> activasPorAula;
+    private final Map<String, SerieReservas> series;
+    private final IndiceHorarios indiceHorarios;
+    private final IndiceSeries indiceSeries;
+    private final IndiceResponsables indiceResponsables;
+    private final VistasOrdenadas vistas;
+    private final OcupacionDiaria ocupacion;
+    private final AgregadosReportes agregados;
+    private final CerrojosAulas cerrojos;
+    private final MetricasReservas metricas = new MetricasReservas();
+    private volatile Diario diario;
+    private volatile ArchivoHistorico archivo;
+    private volatile boolean historicoEnReportes;
 
     public GestorReservas() {
-        this.aulas = new ArrayList<>();
-        this.reservas = new ArrayList<>();
+        this.aulas = new LinkedHashMap<>();
+        this.reservas = new ConcurrentHashMap<>();
+        this.reservasPorAula = new ConcurrentHashMap<>();
+        this.activasPorAula = new ConcurrentHashMap<>();
+        this.series = new ConcurrentHashMap<>();
+        this.indiceHorarios = new IndiceHorarios();
+        this.indiceSeries = new IndiceSeries();
+        this.indiceResponsables = new IndiceResponsables();
+        this.vistas = new VistasOrdenadas();
+        this.ocupacion = new OcupacionDiaria();
+        this.agregados = new AgregadosReportes();
+        this.cerrojos = new CerrojosAulas(FRANJAS_CERROJO);
+
+        metricas.medir("aulas", () -> aulas.size());
+        metricas.medir("reservas", reservas::size);
+        metricas.medir("reservasActivas", () -> {
+            long total = 0;
+            for (int activas : activasPorAula.values()) total += activas;
+            return total;
+        });
+        metricas.medir("series", series::size);
+        metricas.medir("aulasConReservas", reservasPorAula::size);
+        metricas.medir("indiceResponsables.ngramas", indiceResponsables::cantidadNgramas);
+        metricas.medir("indiceResponsables.nombres", indiceResponsables::cantidadNombres);
+        metricas.medir("ocupacionDiaria.dias", ocupacion::cantidadDias);
     }
 
-    public void registrarAula(Aula aula) {
-        if (aulas.stream().anyMatch(a -> a.getId().equals(aula.getId()))) {
-            System.out.println("Error: Aula con ID " + aula.getId() + " ya existe.");
-            return;
+    public MetricasReservas getMetricas() {
+        return metricas;
+    }
+
+    // Devuelve false si ya existe un aula con ese ID.
+    public boolean registrarAula(Aula aula) throws ReglaNegocioException {
+        validarReglas(aula, aula.getId());
+        long cambio;
+        int[] tomadas = cerrojos.bloquear(aula.getId());
+        try {
+            verificarDiario();
+            synchronized (escrituraAulas) {
+                if (aulas.containsKey(aula.getId())) {
+                    System.out.println("Error: Aula con ID " + aula.getId() + " ya existe.");
+                    return false;
+                }
+                Map<String, Aula> copia = new LinkedHashMap<>(aulas);
+                copia.put(aula.getId(), aula);
+                publicarAulas(copia);
+            }
+            cambio = registrarCambio(Diario.AULA, aula.toCSV());
+        } finally {
+            cerrojos.liberar(tomadas);
+        }
+        esperarDiario(cambio);
+        return true;
+    }
+
+    // Carga aulas ya persistidas; los IDs repetidos se ignoran.
+    public void cargarAulas(List<Aula> cargadas) {
+        synchronized (escrituraAulas) {
+            Map<String, Aula> copia = new LinkedHashMap<>(aulas);
+            for (Aula aula : cargadas) {
+                copia.putIfAbsent(aula.getId(), aula);
+            }
+            publicarAulas(copia);
         }
-        aulas.add(aula);
     }
     
     public Aula buscarAulaPorId(String id) throws NoEncontradoException {
-        return aulas.stream()
-                .filter(a -> a.getId().equals(id))
-                .findFirst()
-                .orElseThrow(() -> new NoEncontradoException("Aula no encontrada con ID: " + id));
+        Aula aula = aulas.get(id);
+        if (aula == null) {
+            throw new NoEncontradoException("Aula no encontrada con ID: " + id);
+        }
+        return aula;
     }
 
     public List<Aula> listarAulas() {
-        return aulas;
+        return new ArrayList<>(aulas.values());
     }
 
 
     public void modificarAula(String id, String nuevoNombre, Integer nuevaCapacidad, TipoAula nuevoTipo) 
             throws NoEncontradoException, ReglaNegocioException {
-        Aula aula = buscarAulaPorId(id);
-        
-        
-        boolean tieneReservasActivas = reservas.stream()
-                .anyMatch(r -> r.getAula().getId().equals(id) && r.getEstado() == EstadoReserva.ACTIVA);
-        
-        if (tieneReservasActivas) {
-            throw new ReglaNegocioException("No se puede modificar el aula " + id + 
-                                          " porque tiene reservas activas. Cancele las reservas primero.");
-        }
-        
-       
-        if (nuevoNombre != null && !nuevoNombre.trim().isEmpty()) {
-            aula.setNombre(nuevoNombre);
-        }
-        
-        if (nuevaCapacidad != null && nuevaCapacidad > 0) {
-            aula.setCapacidad(nuevaCapacidad);
-        } else if (nuevaCapacidad != null) {
-            throw new ReglaNegocioException("La capacidad debe ser mayor a 0.");
-        }
+        long cambio;
+        int[] tomadas = cerrojos.bloquear(id);
+        try {
+            verificarDiario();
+            Aula aula = buscarAulaPorId(id);
+            boolean tieneReservasActivas = activasPorAula.getOrDefault(id, 0) > 0 || indiceSeries.tieneSeries(id);
+            
+            if (tieneReservasActivas) {
+                throw new ReglaNegocioException("No se puede modificar el aula " + id + 
+                                              " porque tiene reservas activas. Cancele las reservas primero.");
+            }
+            
+            if (nuevaCapacidad != null && nuevaCapacidad <= 0) {
+                throw new ReglaNegocioException("La capacidad debe ser mayor a 0.");
+            }
            
+            String nombre = nuevoNombre != null && !nuevoNombre.trim().isEmpty() ? nuevoNombre : aula.getNombre();
+            int capacidad = nuevaCapacidad != null ? nuevaCapacidad : aula.getCapacidad();
+            Aula nueva = new Aula(id, nombre, capacidad, aula.getTipo());
+            nueva.validarReglasNegocio();
+            reemplazarAula(nueva);
+            cambio = registrarCambio(Diario.AULA, nueva.toCSV());
+        } finally {
+            cerrojos.liberar(tomadas);
+        }
+        esperarDiario(cambio);
     }
     
     
     public void eliminarAula(String id) throws NoEncontradoException, ReglaNegocioException {
-        Aula aula = buscarAulaPorId(id);
-        
-        
-        boolean tieneReservas = reservas.stream()
-                .anyMatch(r -> r.getAula().getId().equals(id));
-        
-        if (tieneReservas) {
-            throw new ReglaNegocioException("No se puede eliminar el aula " + id + 
-                                          " porque tiene reservas asociadas. Elimine las reservas primero.");
+        long cambio;
+        int[] tomadas = cerrojos.bloquear(id);
+        try {
+            verificarDiario();
+            buscarAulaPorId(id);
+            boolean tieneReservas = reservasPorAula.containsKey(id) || indiceSeries.tieneSeries(id);
+            
+            if (tieneReservas) {
+                throw new ReglaNegocioException("No se puede eliminar el aula " + id + 
+                                              " porque tiene reservas asociadas. Elimine las reservas primero.");
+            }
+            
+            quitarAula(id);
+            cambio = registrarCambio(Diario.BAJA_AULA, id);
+        } finally {
+            cerrojos.liberar(tomadas);
+        }
+        esperarDiario(cambio);
+    }
+
+    private void reemplazarAula(Aula nueva) {
+        synchronized (escrituraAulas) {
+            Map<String, Aula> copia = new LinkedHashMap<>(aulas);
+            copia.put(nueva.getId(), nueva);
+            publicarAulas(copia);
         }
-        
-        aulas.remove(aula);
+    }
+
+    private void quitarAula(String id) {
+        synchronized (escrituraAulas) {
+            Map<String, Aula> copia = new LinkedHashMap<>(aulas);
+            copia.remove(id);
+            publicarAulas(copia);
+        }
+    }
+
+    private void publicarAulas(Map<String, Aula> nuevas) {
+        aulas = nuevas;
+        indiceAulas = new IndiceAulas(nuevas.values());
+        agregados.nombrarAulas(nuevas.values());
     }
     
     
     public List<Reserva> buscarReservasPorAula(String aulaId) {
-        return reservas.stream()
-                .filter(r -> r.getAula().getId().equals(aulaId))
-                .collect(Collectors.toList());
+        Map<String, Reserva> delAula = reservasPorAula.get(aulaId);
+        return delAula == null ? new ArrayList<>() : new ArrayList<>(delAula.values());
+    }
+
+    private void indexar(Reserva reserva) {
+        String aulaId = reserva.getAula().getId();
+        if (reserva.getEstado() == EstadoReserva.ACTIVA) {
+            Reserva ocupada = indiceHorarios.agregar(reserva);
+            if (ocupada != null) {
+                throw new IllegalStateException("La reserva " + reserva.getId() + " empieza a la misma hora que "
+                                                + ocupada.getId() + " en el aula " + aulaId);
+            }
+        }
+        reservasPorAula.computeIfAbsent(aulaId, k -> new ConcurrentHashMap<>()).put(reserva.getId(), reserva);
+        if (reserva.getEstado() == EstadoReserva.ACTIVA) {
+            activasPorAula.merge(aulaId, 1, Integer::sum);
+            ocupacion.agregar(reserva);
+        }
+        agregados.sumar(reserva);
+        vistas.agregar(reserva);
+        indiceResponsables.agregar(reserva.getId(), reserva.getResponsable());
+    }
+
+    private void desindexar(Reserva reserva) {
+        String aulaId = reserva.getAula().getId();
+        Map<String, Reserva> delAula = reservasPorAula.get(aulaId);
+        if (delAula != null) {
+            delAula.remove(reserva.getId());
+            if (delAula.isEmpty()) reservasPorAula.remove(aulaId, delAula);
+        }
+        if (reserva.getEstado() == EstadoReserva.ACTIVA) {
+            activasPorAula.computeIfPresent(aulaId, (k, n) -> n > 1 ? n - 1 : null);
+            indiceHorarios.quitar(reserva);
+            ocupacion.recalcular(aulaId, reserva.getDiaEpoch(), indiceHorarios.delDia(aulaId, reserva.getDiaEpoch()));
+        }
+        agregados.restar(reserva);
+        vistas.quitar(reserva);
     }
 
   
     private void validarSolapamiento(Reserva nuevaReserva) throws ConflictoHorarioException {
-        
-        List<Reserva> conflictos = reservas.stream()
-            .filter(r -> r.getEstado() == EstadoReserva.ACTIVA) 
-            .filter(r -> r.getAula().getId().equals(nuevaReserva.getAula().getId()))
-            .filter(r -> r.getFecha().equals(nuevaReserva.getFecha()))
-            .filter(r -> {
-                return nuevaReserva.getHoraInicio().isBefore(r.getHoraFin()) &&
-                       nuevaReserva.getHoraFin().isAfter(r.getHoraInicio());
-            })
-            .collect(Collectors.toList());
+        validarSolapamiento(nuevaReserva, null);
+    }
+
+    // 'reemplazada' es la version anterior de la misma reserva y no cuenta como conflicto.
+    private void validarSolapamiento(Reserva nuevaReserva, Reserva reemplazada) throws ConflictoHorarioException {
+        validarSolapamiento(nuevaReserva.getAula().getId(), nuevaReserva.getDiaEpoch(),
+                            nuevaReserva.getMinutoInicio(), nuevaReserva.getMinutoFin(), reemplazada);
+    }
 
-        if (!conflictos.isEmpty()) {
-            Reserva conflicto = conflictos.get(0);
-            throw new ConflictoHorarioException(
-                "Conflicto de horario con reserva " + conflicto.getId() + 
-                " de " + conflicto.getHoraInicio() + " a " + conflicto.getHoraFin()
-            );
+    private void validarSolapamiento(String aulaId, int dia, int inicio, int fin, Reserva reemplazada)
+            throws ConflictoHorarioException {
+        long comienzo = System.nanoTime();
+        EventosReservas.Solapamiento evento = EventosReservas.solapamiento();
+        boolean caminoRapido = true;
+        Reserva conflicto = null;
+        SerieReservas serie = null;
+        try {
+            if (!ocupacion.libre(aulaId, dia, inicio, fin)) {
+                caminoRapido = false;
+                conflicto = indiceHorarios.buscarConflicto(aulaId, dia, inicio, fin, reemplazada);
+                if (conflicto != null) {
+                    throw new ConflictoHorarioException(
+                        "Conflicto de horario con reserva " + conflicto.getId() + 
+                        " de " + conflicto.getHoraInicio() + " a " + conflicto.getHoraFin()
+                    );
+                }
+            }
+            serie = indiceSeries.buscarConflicto(aulaId, dia, inicio, fin);
+            if (serie != null) {
+                throw new ConflictoHorarioException(mensajeConflictoSerie(serie, dia));
+            }
+        } finally {
+            metricas.registrar(Operacion.VALIDAR_SOLAPAMIENTO, comienzo);
+            if (evento.grabar()) {
+                int reservasRevisadas = caminoRapido ? 0
+                    : indiceHorarios.candidatosRevisados(aulaId, dia, fin, reemplazada);
+                int seriesRevisadas = conflicto != null ? 0 : indiceSeries.candidatosRevisados(aulaId, serie);
+                evento.confirmar(aulaId, dia, inicio, fin, caminoRapido, reservasRevisadas, seriesRevisadas,
+                                 conflicto != null ? conflicto.getId() : serie != null ? serie.getId() : null);
+            }
+        }
+    }
+
+    private static void validarReglas(Validable validable, String id) throws ReglaNegocioException {
+        EventosReservas.Validacion evento = EventosReservas.validacion();
+        String motivo = null;
+        try {
+            validable.validarReglasNegocio();
+        } catch (ReglaNegocioException e) {
+            motivo = e.getMessage();
+            throw e;
+        } finally {
+            if (evento.grabar()) evento.confirmar(id, motivo);
         }
     }
 
+    private static String mensajeConflictoSerie(SerieReservas serie, int dia) {
+        return "Conflicto de horario con la serie " + serie.getId() + " el " + LocalDate.ofEpochDay(dia)
+             + " de " + serie.getHoraInicio() + " a " + serie.getHoraFin();
+    }
+
 
     public void registrarReserva(Reserva reserva) throws ConflictoHorarioException, ReglaNegocioException {
-        reserva.validarReglasNegocio();
-        validarSolapamiento(reserva);
-        
-        reservas.add(reserva);
+        long comienzo = System.nanoTime();
+        EventosReservas.Registro evento = EventosReservas.registro();
+        String error = null;
+        try {
+            if (reservas.containsKey(reserva.getId())) {
+                throw new ReglaNegocioException("Ya existe una reserva con ID: " + reserva.getId());
+            }
+            validarReglas(reserva, reserva.getId());
+
+            long cambio;
+            int[] tomadas = cerrojos.bloquear(reserva.getAula().getId());
+            try {
+                verificarDiario();
+                verificarAulaRegistrada(reserva);
+                validarSolapamiento(reserva);
+                if (reservas.putIfAbsent(reserva.getId(), reserva) != null) {
+                    throw new ReglaNegocioException("Ya existe una reserva con ID: " + reserva.getId());
+                }
+                indexar(reserva);
+                cambio = registrarCambio(Diario.RESERVA, reserva.toCSV());
+            } finally {
+                cerrojos.liberar(tomadas);
+            }
+            esperarDiario(cambio);
+        } catch (ConflictoHorarioException | ReglaNegocioException e) {
+            metricas.contarError(Operacion.REGISTRAR_RESERVA, e);
+            error = e.getMessage();
+            throw e;
+        } finally {
+            metricas.registrar(Operacion.REGISTRAR_RESERVA, comienzo);
+            if (evento.grabar()) {
+                evento.confirmar("registrarReserva", reserva.getId(), reserva.getAula().getId(), 1, error == null ? 0 : 1, error);
+            }
+        }
+    }
+
+    private void verificarAulaRegistrada(Reserva reserva) throws ReglaNegocioException {
+        Aula registrada = verificarAulaRegistrada(reserva.getAula());
+        if (!reserva.admiteAula(registrada)) {
+            throw new ReglaNegocioException("El aula " + registrada.getId() + " no admite la reserva "
+                                            + reserva.getId() + " con su capacidad o tipo actual.");
+        }
+    }
+
+    private Aula verificarAulaRegistrada(Aula aula) throws ReglaNegocioException {
+        Aula registrada = aulas.get(aula.getId());
+        if (registrada == null) {
+            throw new ReglaNegocioException("El aula " + aula.getId() + " no esta registrada.");
+        }
+        return registrada;
     }
 
+    // Registro en lote: dentro del lote gana la que empieza primero.
+    public ResultadoLote registrarReservas(Collection<Reserva> nuevas) {
+        long comienzo = System.nanoTime();
+        EventosReservas.Registro evento = EventosReservas.registro();
+        try {
+            ResultadoLote resultado = new ResultadoLote();
+            List<ResultadoLote.Item> candidatos = new ArrayList<>();
+            Set<String> idsDelLote = new HashSet<>();
+            for (Reserva reserva : nuevas) {
+                ResultadoLote.Item item = resultado.agregar(reserva);
+                if (reservas.containsKey(reserva.getId()) || !idsDelLote.add(reserva.getId())) {
+                    item.rechazar("Ya existe una reserva con ID: " + reserva.getId());
+                    continue;
+                }
+                try {
+                    validarReglas(reserva, reserva.getId());
+                    candidatos.add(item);
+                } catch (ReglaNegocioException e) {
+                    item.rechazar(e.getMessage());
+                }
+            }
+
+            candidatos.sort(Comparator.comparing((ResultadoLote.Item i) -> i.getReserva().getAula().getId())
+                    .thenComparingInt(i -> i.getReserva().getDiaEpoch())
+                    .thenComparingInt(i -> i.getReserva().getMinutoInicio()));
+
+            Set<String> aulasDelLote = new HashSet<>();
+            candidatos.forEach(i -> aulasDelLote.add(i.getReserva().getAula().getId()));
+            long cambio;
+            int[] tomadas = cerrojos.bloquear(aulasDelLote);
+            try {
+                verificarDiario();
+                cambio = barrerLote(candidatos);
+            } finally {
+                cerrojos.liberar(tomadas);
+            }
+            esperarDiario(cambio);
+            if (evento.grabar()) {
+                int rechazadas = 0;
+                for (ResultadoLote.Item item : resultado.getItems()) {
+                    if (!item.isAceptada()) rechazadas++;
+                }
+                evento.confirmar("registrarReservas", null, null, resultado.getItems().size(), rechazadas, null);
+            }
+            return resultado;
+        } finally {
+            metricas.registrar(Operacion.REGISTRAR_LOTE, comienzo);
+        }
+    }
+
+    private long barrerLote(List<ResultadoLote.Item> candidatos) {
+        String aulaActual = null;
+        int diaActual = 0;
+        Iterator<Reserva> existentes = null;
+        Reserva existente = null;
+        Reserva ultimaAceptada = null;
+        for (ResultadoLote.Item item : candidatos) {
+            Reserva reserva = item.getReserva();
+            try {
+                verificarAulaRegistrada(reserva);
+            } catch (ReglaNegocioException e) {
+                item.rechazar(e.getMessage());
+                continue;
+            }
+            if (reserva.getEstado() != EstadoReserva.ACTIVA) continue;
+            if (!reserva.getAula().getId().equals(aulaActual) || reserva.getDiaEpoch() != diaActual) {
+                aulaActual = reserva.getAula().getId();
+                diaActual = reserva.getDiaEpoch();
+                existentes = indiceHorarios.delDia(aulaActual, diaActual).iterator();
+                existente = existentes.hasNext() ? existentes.next() : null;
+                ultimaAceptada = null;
+            }
+            while (existente != null && existente.getMinutoFin() <= reserva.getMinutoInicio()) {
+                existente = existentes.hasNext() ? existentes.next() : null;
+            }
+            Reserva conflicto = null;
+            if (ultimaAceptada != null && ultimaAceptada.getMinutoFin() > reserva.getMinutoInicio()) {
+                conflicto = ultimaAceptada;
+            } else if (existente != null && existente.getMinutoInicio() < reserva.getMinutoFin()) {
+                conflicto = existente;
+            }
+            SerieReservas serie = conflicto == null
+                ? indiceSeries.buscarConflicto(aulaActual, diaActual, reserva.getMinutoInicio(), reserva.getMinutoFin())
+                : null;
+            if (conflicto != null) {
+                item.rechazar("Conflicto de horario con reserva " + conflicto.getId() +
+                              " de " + conflicto.getHoraInicio() + " a " + conflicto.getHoraFin());
+            } else if (serie != null) {
+                item.rechazar(mensajeConflictoSerie(serie, diaActual));
+            } else {
+                ultimaAceptada = reserva;
+            }
+        }
+
+        long cambio = 0;
+        for (ResultadoLote.Item item : candidatos) {
+            if (!item.isAceptada()) continue;
+            Reserva reserva = item.getReserva();
+            if (reservas.putIfAbsent(reserva.getId(), reserva) != null) {
+                item.rechazar("Ya existe una reserva con ID: " + reserva.getId());
+                continue;
+            }
+            indexar(reserva);
+            cambio = registrarCambio(Diario.RESERVA, reserva.toCSV());
+        }
+        return cambio;
+    }
+
+    // Carga reservas ya persistidas; las activas que chocan se omiten y se reportan.
+    public void cargarReservas(List<Reserva> cargadas) {
+        for (Reserva reserva : cargadas) {
+            if (reserva == null || reservas.containsKey(reserva.getId())) continue;
+            Reserva conflicto = conflictoAlCargar(reserva, null);
+            if (conflicto != null) {
+                System.err.println("Reserva " + reserva.getId() + " omitida: se solapa con la reserva activa "
+                                   + conflicto.getId() + " del aula " + reserva.getAula().getId());
+                continue;
+            }
+            if (reservas.putIfAbsent(reserva.getId(), reserva) != null) continue;
+            indexar(reserva);
+        }
+    }
+
+    private Reserva conflictoAlCargar(Reserva reserva, Reserva reemplazada) {
+        if (reserva.getEstado() != EstadoReserva.ACTIVA) return null;
+        return indiceHorarios.buscarConflicto(reserva.getAula().getId(), reserva.getDiaEpoch(),
+                                              reserva.getMinutoInicio(), reserva.getMinutoFin(), reemplazada);
+    }
+
+    // sortBy: "fecha" (y hora de inicio), "responsable", "aula" (y fecha); otro valor ordena por ID.
     public List<Reserva> listarReservas(String sortBy) {
-        Comparator<Reserva> comparator;
-        switch (sortBy.toLowerCase()) {
-            case "fecha":
-                comparator = Comparator.comparing(Reserva::getFecha)
-                                       .thenComparing(Reserva::getHoraInicio);
-                break;
-            case "responsable":
-                comparator = Comparator.comparing(Reserva::getResponsable);
-                break;
-            case "aula":
-                comparator = Comparator.comparing((Reserva r) -> r.getAula().getId());
-                break;
-            default:
-                comparator = Comparator.comparing(Reserva::getId);
-        }
-        return reservas.stream()
-                .sorted(comparator)
-                .collect(Collectors.toList());
+        long comienzo = System.nanoTime();
+        try {
+            return new ArrayList<>(vistas.todas(sortBy));
+        } finally {
+            metricas.registrar(Operacion.LISTAR_RESERVAS, comienzo);
+        }
+    }
+
+    // Pagina de hasta 'limite' reservas despues del cursor 'despuesDe' (null al inicio).
+    public PaginaReservas listarReservas(String sortBy, String despuesDe, int limite) {
+        long comienzo = System.nanoTime();
+        try {
+            return vistas.pagina(sortBy, despuesDe, limite);
+        } finally {
+            metricas.registrar(Operacion.LISTAR_RESERVAS, comienzo);
+        }
     }
     
+    // CONSULTAS POR FECHA
+
+    // Reservas individuales (en cualquier estado) entre dos fechas inclusive.
+    public Stream<Reserva> reservasEntre(LocalDate desde, LocalDate hasta) {
+        return rango(null, (int) desde.toEpochDay(), (int) hasta.toEpochDay(), false);
+    }
+
+    public Stream<Reserva> reservasEntre(String aulaId, LocalDate desde, LocalDate hasta) {
+        return rango(aulaId, (int) desde.toEpochDay(), (int) hasta.toEpochDay(), false);
+    }
+
+    // Con soloOcupadas se omiten las archivadas que ya estaban canceladas.
+    private Stream<Reserva> rango(String aulaId, int desde, int hasta, boolean soloOcupadas) {
+        Collection<Reserva> vigentes = vistas.rango(aulaId, desde, hasta);
+        ArchivoHistorico historico = archivo;
+        if (historico == null || desde > historico.getDiaMaximo()) {
+            return vigentes.stream();
+        }
+        List<Reserva> enMemoria = new ArrayList<>(vigentes);
+        Set<String> ids = new HashSet<>();
+        for (Reserva reserva : enMemoria) {
+            ids.add(reserva.getId());
+        }
+        List<Reserva> todas = leerHistorico(historico, aulaId, desde, Math.min(hasta, historico.getDiaMaximo()),
+                                            soloOcupadas);
+        todas.removeIf(r -> ids.contains(r.getId()));
+        todas.addAll(enMemoria);
+        todas.sort(POR_FECHA);
+        return todas.stream();
+    }
+
+    // Reservas archivadas (estado HISTORICA) entre dos fechas; aulaId null para todas.
+    public List<Reserva> buscarHistoricas(LocalDate desde, LocalDate hasta, String aulaId) {
+        ArchivoHistorico historico = archivo;
+        if (historico == null) return new ArrayList<>();
+        return historicas(historico, aulaId, (int) desde.toEpochDay(), (int) hasta.toEpochDay(), false);
+    }
+
+    private List<Reserva> historicas(ArchivoHistorico historico, String aulaId, int desde, int hasta,
+                                     boolean soloOcupadas) {
+        List<Reserva> leidas = leerHistorico(historico, aulaId, desde, hasta, soloOcupadas);
+        leidas.removeIf(r -> reservas.containsKey(r.getId()));
+        return leidas;
+    }
+
+    private List<Reserva> leerHistorico(ArchivoHistorico historico, String aulaId, int desde, int hasta,
+                                        boolean soloOcupadas) {
+        try {
+            return historico.leer(desde, hasta, aulaId, soloOcupadas, aulas.values());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // Todo lo que ocurre ese dia, reservas y clases de series, por hora de inicio.
+    public List<Reserva> agendaDelDia(LocalDate fecha) {
+        List<Reserva> agenda = reservasEntre(fecha, fecha).collect(Collectors.toList());
+        ocurrenciasDeSeries(fecha, fecha).forEach(agenda::add);
+        agenda.sort(Comparator.comparingInt(Reserva::getMinutoInicio));
+        return agenda;
+    }
+
+    // Semana (lunes a domingo) que contiene 'fecha' para un aula.
+    public Map<LocalDate, List<Reserva>> calendarioSemanal(String aulaId, LocalDate fecha) throws NoEncontradoException {
+        buscarAulaPorId(aulaId);
+        LocalDate lunes = fecha.minusDays(fecha.getDayOfWeek().getValue() - 1);
+        LocalDate domingo = lunes.plusDays(6);
+        Map<LocalDate, List<Reserva>> semana = new LinkedHashMap<>();
+        for (LocalDate dia = lunes; !dia.isAfter(domingo); dia = dia.plusDays(1)) {
+            semana.put(dia, new ArrayList<>());
+        }
+        rango(aulaId, (int) lunes.toEpochDay(), (int) domingo.toEpochDay(), true)
+            .filter(r -> r.getEstado() != EstadoReserva.CANCELADA)
+            .forEach(r -> semana.get(r.getFecha()).add(r));
+        for (SerieReservas serie : indiceSeries.delAula(aulaId)) {
+            serie.ocurrencias(lunes, domingo).forEach(r -> semana.get(r.getFecha()).add(r));
+        }
+        semana.values().forEach(dia -> dia.sort(Comparator.comparingInt(Reserva::getMinutoInicio)));
+        return semana;
+    }
+
+    // Sin distinguir mayusculas ni acentos ("jose" encuentra "José").
     public List<Reserva> buscarPorResponsable(String texto) {
-        return reservas.stream()
-                .filter(r -> r.getResponsable().toLowerCase().contains(texto.toLowerCase()))
-                .collect(Collectors.toList());
+        long comienzo = System.nanoTime();
+        try {
+            List<Reserva> resultado = new ArrayList<>();
+            for (String id : indiceResponsables.buscar(texto)) {
+                Reserva reserva = reservas.get(id);
+                if (reserva != null) resultado.add(reserva);
+            }
+            return resultado;
+        } finally {
+            metricas.registrar(Operacion.BUSCAR_RESPONSABLE, comienzo);
+        }
+    }
+
+    // Nombres de responsables para autocompletar, en orden alfabetico.
+    public List<String> sugerirResponsables(String prefijo, int limite) {
+        return indiceResponsables.sugerir(prefijo, limite);
     }
 
     public void modificarReserva(String id, LocalDate nuevaFecha, LocalTime nuevaInicio, LocalTime nuevaFin, String nuevaAulaId) 
         throws NoEncontradoException, ConflictoHorarioException, ReglaNegocioException {
-        
-        Reserva reserva = reservas.stream()
-            .filter(r -> r.getId().equals(id) && r.getEstado() == EstadoReserva.ACTIVA)
-            .findFirst()
-            .orElseThrow(() -> new NoEncontradoException("Reserva ACTIVA no encontrada con ID: " + id));
-
-        Aula oldAula = reserva.getAula();
-        LocalDate oldFecha = reserva.getFecha();
-        LocalTime oldInicio = reserva.getHoraInicio();
-        LocalTime oldFin = reserva.getHoraFin();
-        
+        modificarReserva(id, -1, nuevaFecha, nuevaInicio, nuevaFin, nuevaAulaId);
+    }
+
+    // Con versionEsperada -1 no se compara la version de la reserva.
+    public void modificarReserva(String id, long versionEsperada, LocalDate nuevaFecha, LocalTime nuevaInicio,
+                                 LocalTime nuevaFin, String nuevaAulaId) 
+        throws NoEncontradoException, ConflictoHorarioException, ReglaNegocioException {
+        long comienzo = System.nanoTime();
         try {
-            if (nuevaAulaId != null && !nuevaAulaId.isEmpty() && !nuevaAulaId.equals(oldAula.getId())) {
-                reserva.setAula(buscarAulaPorId(nuevaAulaId));
-            }
-            
-            if (nuevaFecha != null) reserva.setFecha(nuevaFecha);
-            if (nuevaInicio != null) reserva.setHoraInicio(nuevaInicio);
-            if (nuevaFin != null) reserva.setHoraFin(nuevaFin);
+        
+            while (true) {
+                Reserva actual = buscarReservaActiva(id);
+                verificarVersion(actual, versionEsperada);
+                Aula nuevaAula = null;
+                if (nuevaAulaId != null && !nuevaAulaId.isEmpty() && !nuevaAulaId.equals(actual.getAula().getId())) {
+                    nuevaAula = buscarAulaPorId(nuevaAulaId);
+                }
 
-            reserva.validarReglasNegocio(); 
-            validarSolapamiento(reserva); 
-            
-        } catch (Exception e) {
-            reserva.setAula(oldAula);
-            reserva.setFecha(oldFecha);
-            reserva.setHoraInicio(oldInicio);
-            reserva.setHoraFin(oldFin);
+                Reserva nueva = actual.conCambios(nuevaAula, nuevaFecha, nuevaInicio, nuevaFin, null);
+                validarReglas(nueva, nueva.getId());
+
+                long cambio;
+                int[] tomadas = cerrojos.bloquear(actual.getAula().getId(), nueva.getAula().getId());
+                try {
+                    verificarDiario();
+                    if (reservas.get(id) != actual) {
+                        continue;
+                    }
+                    if (nuevaAula != null) {
+                        verificarAulaRegistrada(nueva);
+                    }
+                    validarSolapamiento(nueva, actual);
+                    cambio = reemplazar(actual, nueva);
+                } finally {
+                    cerrojos.liberar(tomadas);
+                }
+                esperarDiario(cambio);
+                return;
+            }
+        } catch (NoEncontradoException | ConflictoHorarioException | ReglaNegocioException e) {
+            metricas.contarError(Operacion.MODIFICAR_RESERVA, e);
             throw e;
+        } finally {
+            metricas.registrar(Operacion.MODIFICAR_RESERVA, comienzo);
         }
     }
 
+    private void verificarVersion(Reserva reserva, long versionEsperada) throws VersionObsoletaException {
+        if (versionEsperada >= 0 && reserva.getVersion() != versionEsperada) {
+            throw new VersionObsoletaException("La reserva " + reserva.getId() + " fue modificada por otra operacion"
+                                             + " (version actual " + reserva.getVersion() + ").", reserva.getVersion());
+        }
+    }
+
+    private long reemplazar(Reserva actual, Reserva nueva) {
+        if (!reservas.replace(actual.getId(), actual, nueva)) {
+            throw new IllegalStateException("La reserva " + actual.getId() + " cambio sin tomar su cerrojo");
+        }
+        desindexar(actual);
+        indexar(nueva);
+        return registrarCambio(Diario.RESERVA, nueva.toCSV());
+    }
+
+    public Reserva buscarReservaPorId(String id) throws NoEncontradoException {
+        Reserva reserva = reservas.get(id);
+        if (reserva == null) {
+            throw new NoEncontradoException("Reserva no encontrada con ID: " + id);
+        }
+        return reserva;
+    }
+
+    private Reserva buscarReservaActiva(String id) throws NoEncontradoException {
+        Reserva reserva = reservas.get(id);
+        if (reserva == null || reserva.getEstado() != EstadoReserva.ACTIVA) {
+            throw new NoEncontradoException("Reserva ACTIVA no encontrada con ID: " + id);
+        }
+        return reserva;
+    }
+
     public void cancelarReserva(String id) throws NoEncontradoException {
-         Reserva reserva = reservas.stream()
-            .filter(r -> r.getId().equals(id) && r.getEstado() == EstadoReserva.ACTIVA)
-            .findFirst()
-            .orElseThrow(() -> new NoEncontradoException("Reserva ACTIVA no encontrada con ID: " + id));
-            
-        reserva.setEstado(EstadoReserva.CANCELADA);
+        long comienzo = System.nanoTime();
+        try {
+            while (true) {
+                Reserva actual = buscarReservaActiva(id);
+                long cambio;
+                int[] tomadas = cerrojos.bloquear(actual.getAula().getId());
+                try {
+                    verificarDiario();
+                    if (reservas.get(id) != actual) {
+                        continue;
+                    }
+                    cambio = reemplazar(actual, actual.conCambios(null, null, null, null, EstadoReserva.CANCELADA));
+                } finally {
+                    cerrojos.liberar(tomadas);
+                }
+                esperarDiario(cambio);
+                return;
+            }
+        } catch (NoEncontradoException e) {
+            metricas.contarError(Operacion.CANCELAR_RESERVA, e);
+            throw e;
+        } finally {
+            metricas.registrar(Operacion.CANCELAR_RESERVA, comienzo);
+        }
     }
     
     public void eliminarReserva(String id) throws NoEncontradoException {
-        Reserva reserva = reservas.stream()
-            .filter(r -> r.getId().equals(id))
-            .findFirst()
-            .orElseThrow(() -> new NoEncontradoException("Reserva no encontrada con ID: " + id));
-            
-        reservas.remove(reserva);
+        long comienzo = System.nanoTime();
+        try {
+            while (true) {
+                Reserva reserva = reservas.get(id);
+                if (reserva == null) {
+                    throw new NoEncontradoException("Reserva no encontrada con ID: " + id);
+                }
+                long cambio;
+                int[] tomadas = cerrojos.bloquear(reserva.getAula().getId());
+                try {
+                    verificarDiario();
+                    if (!reservas.remove(id, reserva)) {
+                        continue;
+                    }
+                    desindexar(reserva);
+                    indiceResponsables.quitar(id);
+                    cambio = registrarCambio(Diario.BAJA_RESERVA, id);
+                } finally {
+                    cerrojos.liberar(tomadas);
+                }
+                esperarDiario(cambio);
+                return;
+            }
+        } catch (NoEncontradoException e) {
+            metricas.contarError(Operacion.ELIMINAR_RESERVA, e);
+            throw e;
+        } finally {
+            metricas.registrar(Operacion.ELIMINAR_RESERVA, comienzo);
+        }
     }
     
+    // BUSQUEDA DE AULAS LIBRES
+
+    // Aulas libres en ese horario, de menor a mayor capacidad; tipo null para cualquiera.
+    public List<Aula> buscarAulasDisponibles(LocalDate fecha, LocalTime inicio, LocalTime fin,
+                                             TipoAula tipo, int capacidadMinima) {
+        return buscarAulasDisponibles(fecha, inicio, fin, tipo, capacidadMinima, null);
+    }
+
+    // Igual, con las reglas del tipo de 'plantilla'; de ella se toman fecha y horario.
+    public List<Aula> buscarAulasDisponibles(Reserva plantilla, TipoAula tipo, int capacidadMinima) {
+        return buscarAulasDisponibles(plantilla.getFecha(), plantilla.getHoraInicio(), plantilla.getHoraFin(),
+                                      tipo, capacidadMinima, plantilla);
+    }
+
+    private List<Aula> buscarAulasDisponibles(LocalDate fecha, LocalTime inicio, LocalTime fin, TipoAula tipo,
+                                              int capacidadMinima, Reserva plantilla) {
+        long comienzo = System.nanoTime();
+        try {
+            int dia = (int) fecha.toEpochDay();
+            int desde = inicio.getHour() * 60 + inicio.getMinute();
+            int hasta = fin.getHour() * 60 + fin.getMinute();
+            List<Aula> libres = new ArrayList<>();
+            for (Aula aula : indiceAulas.candidatas(tipo, capacidadMinima)) {
+                if (plantilla != null && !plantilla.admiteAula(aula)) continue;
+                if ((ocupacion.libre(aula.getId(), dia, desde, hasta)
+                        || indiceHorarios.buscarConflicto(aula.getId(), dia, desde, hasta, null) == null)
+                        && indiceSeries.buscarConflicto(aula.getId(), dia, desde, hasta) == null) {
+                    libres.add(aula);
+                }
+            }
+            return libres;
+        } finally {
+            metricas.registrar(Operacion.BUSCAR_DISPONIBLES, comienzo);
+        }
+    }
+
+    // Horarios libres mas cercanos al pedido, el mismo dia y con la misma duracion.
+    public List<VentanaLibre> buscarVentanasLibres(LocalDate fecha, LocalTime inicio, LocalTime fin,
+                                                   TipoAula tipo, int capacidadMinima, int cantidad) {
+        return buscarVentanasLibres(fecha, inicio, fin, tipo, capacidadMinima, cantidad, null);
+    }
+
+    public List<VentanaLibre> buscarVentanasLibres(Reserva plantilla, TipoAula tipo, int capacidadMinima, int cantidad) {
+        return buscarVentanasLibres(plantilla.getFecha(), plantilla.getHoraInicio(), plantilla.getHoraFin(),
+                                    tipo, capacidadMinima, cantidad, plantilla);
+    }
+
+    private List<VentanaLibre> buscarVentanasLibres(LocalDate fecha, LocalTime inicio, LocalTime fin, TipoAula tipo,
+                                                    int capacidadMinima, int cantidad, Reserva plantilla) {
+        int dia = (int) fecha.toEpochDay();
+        int pedido = inicio.getHour() * 60 + inicio.getMinute();
+        int duracion = fin.getHour() * 60 + fin.getMinute() - pedido;
+        List<VentanaLibre> ventanas = new ArrayList<>();
+        if (duracion <= 0) return ventanas;
+
+        for (Aula aula : indiceAulas.candidatas(tipo, capacidadMinima)) {
+            if (plantilla != null && !plantilla.admiteAula(aula)) continue;
+            int mejorInicio = -1;
+            int mejorDistancia = Integer.MAX_VALUE;
+            int libreDesde = 0;
+            long[] ocupados = intervalosOcupados(aula.getId(), dia);
+            for (int i = 0; i <= ocupados.length; i++) {
+                int inicioOcupado = i < ocupados.length ? (int) (ocupados[i] >>> 16) : Reserva.MINUTOS_DIA - 1;
+                if (inicioOcupado - libreDesde >= duracion) {
+                    int candidato = Math.max(libreDesde, Math.min(pedido, inicioOcupado - duracion));
+                    int distancia = Math.abs(candidato - pedido);
+                    if (distancia < mejorDistancia) {
+                        mejorDistancia = distancia;
+                        mejorInicio = candidato;
+                    }
+                }
+                if (i == ocupados.length || (mejorInicio >= 0 && inicioOcupado > pedido + mejorDistancia)) break;
+                libreDesde = Math.max(libreDesde, (int) (ocupados[i] & 0xFFFF));
+            }
+            if (mejorInicio >= 0) {
+                ventanas.add(new VentanaLibre(aula, fecha, mejorInicio, mejorInicio + duracion, mejorDistancia));
+            }
+        }
+        ventanas.sort(Comparator.comparingInt(VentanaLibre::getDistanciaMinutos)
+                                .thenComparingInt(v -> v.getAula().getCapacidad()));
+        return ventanas.size() > cantidad ? new ArrayList<>(ventanas.subList(0, cantidad)) : ventanas;
+    }
+
+    // Ocupado del aula ese dia, cada intervalo como inicio << 16 | fin.
+    private long[] intervalosOcupados(String aulaId, int dia) {
+        List<Long> intervalos = new ArrayList<>();
+        for (Reserva reserva : indiceHorarios.delDia(aulaId, dia)) {
+            intervalos.add((long) reserva.getMinutoInicio() << 16 | reserva.getMinutoFin());
+        }
+        boolean conSeries = false;
+        for (SerieReservas serie : indiceSeries.delAula(aulaId)) {
+            if (serie.ocurreEl(dia)) {
+                intervalos.add((long) serie.getMinutoInicio() << 16 | serie.getMinutoFin());
+                conSeries = true;
+            }
+        }
+        long[] ordenados = new long[intervalos.size()];
+        for (int i = 0; i < ordenados.length; i++) {
+            ordenados[i] = intervalos.get(i);
+        }
+        if (conSeries) Arrays.sort(ordenados);
+        return ordenados;
+    }
+
+    // SERIES SEMANALES
+
+    // Registra la serie completa o nada.
+    public void registrarSerie(SerieReservas serie) throws ConflictoHorarioException, ReglaNegocioException {
+        long comienzo = System.nanoTime();
+        EventosReservas.Registro evento = EventosReservas.registro();
+        String error = null;
+        try {
+            if (series.containsKey(serie.getId())) {
+                throw new ReglaNegocioException("Ya existe una serie con ID: " + serie.getId());
+            }
+            validarReglas(serie, serie.getId());
+
+            String aulaId = serie.getAula().getId();
+            long cambio;
+            int[] tomadas = cerrojos.bloquear(aulaId);
+            try {
+                verificarDiario();
+                verificarAulaRegistrada(serie.getAula());
+                for (int dia = serie.siguienteOcurrencia(serie.getDiaDesde()); dia <= serie.getDiaHasta();
+                         dia = serie.siguienteOcurrencia(dia + 1)) {
+                    if (!ocupacion.libre(aulaId, dia, serie.getMinutoInicio(), serie.getMinutoFin())) {
+                        Reserva conflicto = indiceHorarios.buscarConflicto(aulaId, dia, serie.getMinutoInicio(),
+                                                                           serie.getMinutoFin(), null);
+                        if (conflicto != null) {
+                            throw new ConflictoHorarioException(
+                                "Conflicto de horario el " + conflicto.getFecha() + " con reserva " + conflicto.getId()
+                                + " de " + conflicto.getHoraInicio() + " a " + conflicto.getHoraFin());
+                        }
+                    }
+                }
+                SerieReservas otra = indiceSeries.buscarConflicto(serie);
+                if (otra != null) {
+                    throw new ConflictoHorarioException("Conflicto de horario con la serie " + otra.getId()
+                                                        + " de " + otra.getHoraInicio() + " a " + otra.getHoraFin());
+                }
+                if (series.putIfAbsent(serie.getId(), serie) != null) {
+                    throw new ReglaNegocioException("Ya existe una serie con ID: " + serie.getId());
+                }
+                indexarSerie(serie);
+                cambio = registrarCambio(Diario.SERIE, serie.toCSV());
+            } finally {
+                cerrojos.liberar(tomadas);
+            }
+            esperarDiario(cambio);
+        } catch (ConflictoHorarioException | ReglaNegocioException e) {
+            metricas.contarError(Operacion.REGISTRAR_SERIE, e);
+            error = e.getMessage();
+            throw e;
+        } finally {
+            metricas.registrar(Operacion.REGISTRAR_SERIE, comienzo);
+            if (evento.grabar()) {
+                evento.confirmar("registrarSerie", serie.getId(), serie.getAula().getId(), 1, error == null ? 0 : 1, error);
+            }
+        }
+    }
+
+    public SerieReservas buscarSeriePorId(String id) throws NoEncontradoException {
+        SerieReservas serie = series.get(id);
+        if (serie == null) {
+            throw new NoEncontradoException("Serie no encontrada con ID: " + id);
+        }
+        return serie;
+    }
+
+    public List<SerieReservas> listarSeries() {
+        return series.values().stream()
+                .sorted(Comparator.comparing(SerieReservas::getId))
+                .collect(Collectors.toList());
+    }
+
+    // Ocurrencias de todas las series entre dos fechas; no incluye las reservas individuales.
+    public Stream<Reserva> ocurrenciasDeSeries(LocalDate desde, LocalDate hasta) {
+        return series.values().stream().flatMap(serie -> serie.ocurrencias(desde, hasta));
+    }
+
+    // Quita una fecha de la serie (feriado, suspension) sin tocar las demas.
+    public void cancelarOcurrencia(String serieId, LocalDate fecha) throws NoEncontradoException {
+        while (true) {
+            SerieReservas actual = buscarSeriePorId(serieId);
+            if (!actual.ocurreEl(fecha)) {
+                throw new NoEncontradoException("La serie " + serieId + " no tiene ocurrencia el " + fecha);
+            }
+            long cambio;
+            int[] tomadas = cerrojos.bloquear(actual.getAula().getId());
+            try {
+                verificarDiario();
+                SerieReservas nueva = actual.conExcepcion(fecha);
+                if (!series.replace(serieId, actual, nueva)) {
+                    continue;
+                }
+                desindexarSerie(actual);
+                indexarSerie(nueva);
+                cambio = registrarCambio(Diario.SERIE, nueva.toCSV());
+            } finally {
+                cerrojos.liberar(tomadas);
+            }
+            esperarDiario(cambio);
+            return;
+        }
+    }
+
+    public void eliminarSerie(String id) throws NoEncontradoException {
+        while (true) {
+            SerieReservas serie = buscarSeriePorId(id);
+            long cambio;
+            int[] tomadas = cerrojos.bloquear(serie.getAula().getId());
+            try {
+                verificarDiario();
+                if (!series.remove(id, serie)) {
+                    continue;
+                }
+                desindexarSerie(serie);
+                cambio = registrarCambio(Diario.BAJA_SERIE, id);
+            } finally {
+                cerrojos.liberar(tomadas);
+            }
+            esperarDiario(cambio);
+            return;
+        }
+    }
+
+    // Carga series ya persistidas (sin revalidar); los IDs repetidos se ignoran.
+    public void cargarSeries(List<SerieReservas> cargadas) {
+        for (SerieReservas serie : cargadas) {
+            if (serie == null || series.putIfAbsent(serie.getId(), serie) != null) continue;
+            indexarSerie(serie);
+        }
+    }
+
+    private void indexarSerie(SerieReservas serie) {
+        indiceSeries.agregar(serie);
+        agregados.sumar(serie);
+    }
+
+    private void desindexarSerie(SerieReservas serie) {
+        indiceSeries.quitar(serie);
+        agregados.restar(serie);
+    }
+
+    // DIARIO DE CAMBIOS
+
+    public void setDiario(Diario diario) {
+        this.diario = diario;
+    }
+
+    // Ejecuta la accion sin mutaciones en curso (para la instantanea).
+    void ejecutarSinCambios(Runnable accion) {
+        cerrojos.congelar();
+        try {
+            accion.run();
+        } finally {
+            cerrojos.descongelar();
+        }
+    }
+
+    private void verificarDiario() {
+        Diario actual = diario;
+        if (actual != null) actual.verificar();
+    }
+
+    private long registrarCambio(String tipo, String datos) {
+        Diario actual = diario;
+        return actual != null ? actual.registrar(tipo, datos) : 0;
+    }
+
+    private void esperarDiario(long cambio) {
+        Diario actual = diario;
+        if (actual != null && cambio > 0) {
+            actual.esperar(cambio);
+        }
+    }
+
+    // Aplicacion de entradas del diario al reiniciar, sin revalidar.
+    void aplicarAula(Aula aula) {
+        reemplazarAula(aula);
+    }
+
+    void aplicarBajaAula(String id) {
+        quitarAula(id);
+    }
+
+    void aplicarReserva(Reserva reserva) {
+        Reserva conflicto = conflictoAlCargar(reserva, reservas.get(reserva.getId()));
+        if (conflicto != null) {
+            throw new IllegalStateException("La reserva " + reserva.getId() + " se solapa con la reserva activa "
+                                            + conflicto.getId());
+        }
+        Reserva anterior = reservas.put(reserva.getId(), reserva);
+        if (anterior != null) {
+            desindexar(anterior);
+        }
+        indexar(reserva);
+    }
+
+    void aplicarBajaReserva(String id) {
+        Reserva reserva = reservas.remove(id);
+        if (reserva != null) {
+            desindexar(reserva);
+            indiceResponsables.quitar(id);
+        }
+    }
+
+    void aplicarSerie(SerieReservas serie) {
+        SerieReservas anterior = series.put(serie.getId(), serie);
+        if (anterior != null) {
+            desindexarSerie(anterior);
+        }
+        indexarSerie(serie);
+    }
+
+    void aplicarBajaSerie(String id) {
+        SerieReservas serie = series.remove(id);
+        if (serie != null) {
+            desindexarSerie(serie);
+        }
+    }
+
     //  REPORTES 
     
     // 1. Top 3 aulas con más horas reservadas
     public Map<String, Long> reporteTopAulasPorHoras() {
-        return reservas.stream()
-            .filter(r -> r.getEstado() == EstadoReserva.ACTIVA)
-            .collect(Collectors.groupingBy(
-                r -> r.getAula().getNombre(),
-                Collectors.summingLong(Reserva::calcularDuracionHoras) 
-            ))
-            .entrySet().stream()
-            .sorted(Map.Entry.comparingByValue(Comparator.reverseOrder()))
-            .limit(3)
-            .collect(Collectors.toMap(
-                Map.Entry::getKey, 
-                Map.Entry::getValue, 
-                (e1, e2) -> e1, 
-                java.util.LinkedHashMap::new
-            ));
+        long comienzo = System.nanoTime();
+        EventosReservas.Reporte evento = EventosReservas.reporte();
+        try {
+            sumarHistoricoEnReportes();
+            return terminarReporte(evento, "topAulasPorHoras", agregados.topAulas());
+        } finally {
+            metricas.registrar(Operacion.REPORTE_TOP_AULAS, comienzo);
+        }
     }
     
     // 2. Ocupación por tipo de aula
     public Map<TipoAula, Long> reporteHorasPorTipoAula() {
-        return reservas.stream()
-            .filter(r -> r.getEstado() == EstadoReserva.ACTIVA)
-            .collect(Collectors.groupingBy(
-                r -> r.getAula().getTipo(),
-                Collectors.summingLong(Reserva::calcularDuracionHoras)
-            ));
+        long comienzo = System.nanoTime();
+        EventosReservas.Reporte evento = EventosReservas.reporte();
+        try {
+            sumarHistoricoEnReportes();
+            return terminarReporte(evento, "horasPorTipoAula", agregados.horasPorTipoAula());
+        } finally {
+            metricas.registrar(Operacion.REPORTE_HORAS_TIPO, comienzo);
+        }
     }
     
     // 3. Distribución por tipo de reserva
     public Map<String, Long> reporteDistribucionPorTipo() {
-        return reservas.stream()
-            .collect(Collectors.groupingBy(
-                r -> r.getClass().getSimpleName(),
-                Collectors.counting()
-            ));
+        long comienzo = System.nanoTime();
+        EventosReservas.Reporte evento = EventosReservas.reporte();
+        try {
+            sumarHistoricoEnReportes();
+            return terminarReporte(evento, "distribucionPorTipo", agregados.conteoPorTipo());
+        } finally {
+            metricas.registrar(Operacion.REPORTE_DISTRIBUCION, comienzo);
+        }
+    }
+
+    private <M extends Map<?, ?>> M terminarReporte(EventosReservas.Reporte evento, String nombre, M resultado) {
+        if (evento.grabar()) evento.confirmar(nombre, null, resultado.size(), historicoEnReportes);
+        return resultado;
+    }
+
+    // 4. Porcentaje del dia (24 h) ocupado por reservas activas de un aula
+    public double reporteOcupacionDia(String aulaId, LocalDate fecha) throws NoEncontradoException {
+        long comienzo = System.nanoTime();
+        EventosReservas.Reporte evento = EventosReservas.reporte();
+        try {
+            buscarAulaPorId(aulaId);
+            int dia = (int) fecha.toEpochDay();
+            int minutos = indiceSeries.minutosOcupados(aulaId, dia);
+            ArchivoHistorico historico = archivo;
+            boolean archivado = historico != null && dia <= historico.getDiaMaximo();
+            if (archivado) {
+                minutos += rango(aulaId, dia, dia, true).filter(r -> r.getEstado() != EstadoReserva.CANCELADA)
+                                                        .mapToInt(Reserva::calcularDuracionMinutos).sum();
+            } else {
+                minutos += ocupacion.minutosOcupados(aulaId, dia);
+            }
+            if (evento.grabar()) evento.confirmar("ocupacionDia", aulaId, 1, archivado);
+            return minutos * 100.0 / Reserva.MINUTOS_DIA;
+        } catch (NoEncontradoException e) {
+            metricas.contarError(Operacion.REPORTE_OCUPACION, e);
+            throw e;
+        } finally {
+            metricas.registrar(Operacion.REPORTE_OCUPACION, comienzo);
+        }
+    }
+
+    // ARCHIVO HISTORICO
+
+    void setArchivo(ArchivoHistorico archivo) {
+        this.archivo = archivo;
+    }
+
+    // Pasa a HISTORICA las reservas anteriores a 'corte'; devuelve cuantas se archivaron.
+    public int archivarAnterioresA(LocalDate corte) {
+        long comienzo = System.nanoTime();
+        try {
+            ArchivoHistorico historico = archivo;
+            if (historico == null) return 0;
+            int hasta = (int) corte.toEpochDay() - 1;
+            int archivadas = 0;
+            long cambio = 0;
+            synchronized (historico) {
+                while (true) {
+                    List<Reserva> lote = new ArrayList<>(LOTE_ARCHIVO);
+                    Set<String> aulasLote = new HashSet<>();
+                    for (Reserva reserva : vistas.rango(null, Integer.MIN_VALUE, hasta)) {
+                        lote.add(reserva);
+                        aulasLote.add(reserva.getAula().getId());
+                        if (lote.size() == LOTE_ARCHIVO) break;
+                    }
+                    if (lote.isEmpty()) {
+                        esperarDiario(cambio);
+                        return archivadas;
+                    }
+
+                    int[] tomadas = cerrojos.bloquear(aulasLote);
+                    try {
+                        verificarDiario();
+                        lote.removeIf(r -> reservas.get(r.getId()) != r);
+                        if (lote.isEmpty()) continue;
+                        historico.agregar(lote);
+                        for (Reserva reserva : lote) {
+                            reservas.remove(reserva.getId(), reserva);
+                            desindexar(reserva);
+                            indiceResponsables.quitar(reserva.getId());
+                            if (historicoEnReportes) agregados.sumar(reserva);
+                            cambio = registrarCambio(Diario.ARCHIVADA, reserva.getId());
+                        }
+                        archivadas += lote.size();
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    } finally {
+                        cerrojos.liberar(tomadas);
+                    }
+                }
+            }
+        } finally {
+            metricas.registrar(Operacion.ARCHIVAR, comienzo);
+        }
+    }
+
+    private void sumarHistoricoEnReportes() {
+        ArchivoHistorico historico = archivo;
+        if (historico == null || historicoEnReportes) return;
+        synchronized (historico) {
+            if (historicoEnReportes) return;
+            try {
+                historico.recorrer(aulas.values(), reservas.keySet(), agregados::sumar);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            historicoEnReportes = true;
+        }
     }
 
     // Getters para persistencia
-    public List<Aula> getAulas() { return aulas; }
-    public List<Reserva> getReservas() { return reservas; }
+    public List<Aula> getAulas() { return listarAulas(); }
+    public Collection<Reserva> getReservas() { return Collections.unmodifiableCollection(reservas.values()); }
+    public Collection<SerieReservas> getSeries() { return Collections.unmodifiableCollection(series.values()); }
 }
\ No newline at end of file
@@ -0,0 +1,92 @@
+package itcareservas.servicios;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+// Histograma de latencias (nanosegundos) que admite registros concurrentes
+// sin cerrojos ni asignaciones: cada registro incrementa una cubeta de un
+// arreglo atomico. Las cubetas son log-lineales, exactas hasta 63 ns y desde
+// ahi 32 por potencia de 2, asi que un percentil tiene menos de 3.2% de error.
+// Las lecturas copian las cubetas; no son una foto atomica, pero cada
+// registro se cuenta una sola vez.
+class HistogramaLatencias {
+    private static final int SUB = 32;
+    private static final int CUBETAS = 2 * SUB + (63 - 6) * SUB;
+
+    private final AtomicLongArray cuentas = new AtomicLongArray(CUBETAS);
+    private final LongAdder suma = new LongAdder();
+    private final AtomicLong maximo = new AtomicLong();
+
+    void registrar(long nanos) {
+        if (nanos < 0) nanos = 0;
+        cuentas.incrementAndGet(cubeta(nanos));
+        suma.add(nanos);
+        long actual;
+        while (nanos > (actual = maximo.get()) && !maximo.compareAndSet(actual, nanos)) {
+            // otro hilo subio el maximo; se vuelve a comparar
+        }
+    }
+
+    void reiniciar() {
+        for (int i = 0; i < CUBETAS; i++) {
+            cuentas.set(i, 0);
+        }
+        suma.reset();
+        maximo.set(0);
+    }
+
+    // Copia para calcular cantidad, promedio y percentiles de un mismo estado.
+    Foto foto() {
+        long[] copia = new long[CUBETAS];
+        long total = 0;
+        for (int i = 0; i < CUBETAS; i++) {
+            copia[i] = cuentas.get(i);
+            total += copia[i];
+        }
+        return new Foto(copia, total, suma.sum(), maximo.get());
+    }
+
+    static final class Foto {
+        private final long[] cuentas;
+        final long cantidad;
+        final long suma;
+        final long maximo;
+
+        private Foto(long[] cuentas, long cantidad, long suma, long maximo) {
+            this.cuentas = cuentas;
+            this.cantidad = cantidad;
+            this.suma = suma;
+            this.maximo = maximo;
+        }
+
+        double promedio() {
+            return cantidad == 0 ? 0 : (double) suma / cantidad;
+        }
+
+        // Mayor valor de la cubeta donde cae el percentil (0 a 100).
+        long percentil(double percentil) {
+            if (cantidad == 0) return 0;
+            long objetivo = Math.max(1, (long) Math.ceil(percentil / 100.0 * cantidad));
+            long acumulado = 0;
+            for (int i = 0; i < cuentas.length; i++) {
+                acumulado += cuentas[i];
+                if (acumulado >= objetivo) return Math.min(maximo, limiteSuperior(i));
+            }
+            return maximo;
+        }
+    }
+
+    private static int cubeta(long nanos) {
+        if (nanos < 2 * SUB) return (int) nanos;
+        int exponente = 63 - Long.numberOfLeadingZeros(nanos);
+        return 2 * SUB + (exponente - 6) * SUB + (int) (nanos >>> (exponente - 5)) - SUB;
+    }
+
+    private static long limiteSuperior(int cubeta) {
+        if (cubeta < 2 * SUB) return cubeta;
+        int exponente = (cubeta - 2 * SUB) / SUB + 6;
+        int sub = (cubeta - 2 * SUB) % SUB;
+        return ((long) (SUB + sub + 1) << (exponente - 5)) - 1;
+    }
+}
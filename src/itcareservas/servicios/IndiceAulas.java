@@ -0,0 +1,67 @@
+package itcareservas.servicios;
+
+import itcareservas.modelo.Aula;
+import itcareservasmodelo.enums.TipoAula;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+// Aulas agrupadas por tipo y ordenadas por capacidad, para que el buscador de
+// aulas libres salte directo a las que cumplen tipo y capacidad minima. Es
+// inmutable: GestorReservas arma uno nuevo cada vez que cambia el catalogo.
+class IndiceAulas {
+    static final IndiceAulas VACIO = new IndiceAulas(Collections.<Aula>emptyList());
+
+    private final Map<TipoAula, Aula[]> porTipo = new EnumMap<>(TipoAula.class);
+    private final Map<TipoAula, int[]> capacidades = new EnumMap<>(TipoAula.class);
+
+    IndiceAulas(Collection<Aula> aulas) {
+        Map<TipoAula, List<Aula>> agrupadas = new EnumMap<>(TipoAula.class);
+        for (Aula aula : aulas) {
+            agrupadas.computeIfAbsent(aula.getTipo(), k -> new ArrayList<>()).add(aula);
+        }
+        agrupadas.forEach((tipo, lista) -> {
+            Aula[] ordenadas = lista.toArray(new Aula[0]);
+            Arrays.sort(ordenadas, Comparator.comparingInt(Aula::getCapacidad).thenComparing(Aula::getId));
+            int[] caps = new int[ordenadas.length];
+            for (int i = 0; i < ordenadas.length; i++) {
+                caps[i] = ordenadas[i].getCapacidad();
+            }
+            porTipo.put(tipo, ordenadas);
+            capacidades.put(tipo, caps);
+        });
+    }
+
+    // Aulas del tipo (todos si es null) con capacidad >= capacidadMinima,
+    // de menor a mayor capacidad dentro de cada tipo.
+    List<Aula> candidatas(TipoAula tipo, int capacidadMinima) {
+        List<Aula> resultado = new ArrayList<>();
+        for (TipoAula t : tipo == null ? TipoAula.values() : new TipoAula[] { tipo }) {
+            Aula[] ordenadas = porTipo.get(t);
+            if (ordenadas == null) continue;
+            int desde = primeraConCapacidad(capacidades.get(t), capacidadMinima);
+            resultado.addAll(Arrays.asList(ordenadas).subList(desde, ordenadas.length));
+        }
+        return resultado;
+    }
+
+    private static int primeraConCapacidad(int[] caps, int minima) {
+        int bajo = 0;
+        int alto = caps.length;
+        while (bajo < alto) {
+            int medio = (bajo + alto) >>> 1;
+            if (caps[medio] < minima) {
+                bajo = medio + 1;
+            } else {
+                alto = medio;
+            }
+        }
+        return bajo;
+    }
+}
@@ -0,0 +1,69 @@
+package itcareservas.servicios;
+
+import itcareservas.modelo.Reserva;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+// Indice de reservas ACTIVAS por aula, ordenadas por (dia epoch, minuto de
+// inicio) en una sola clave long. Como las reservas activas de un mismo aula
+// nunca se solapan, basta con revisar la ultima que inicia antes del fin
+// buscado; las de dias anteriores terminan antes de la medianoche y no chocan.
+// Las escrituras de un aula llegan con su cerrojo tomado; las lecturas no bloquean.
+class IndiceHorarios {
+    private final Map<String, NavigableMap<Long, Reserva>> porAula = new ConcurrentHashMap<>();
+
+    private static long clave(int diaEpoch, int minuto) {
+        return (long) diaEpoch * Reserva.MINUTOS_DIA + minuto;
+    }
+
+    // No reemplaza: si el aula ya tiene una reserva activa que empieza en ese
+    // mismo minuto la devuelve y no agrega nada.
+    Reserva agregar(Reserva reserva) {
+        return porAula.computeIfAbsent(reserva.getAula().getId(), k -> new ConcurrentSkipListMap<>())
+                      .putIfAbsent(clave(reserva.getDiaEpoch(), reserva.getMinutoInicio()), reserva);
+    }
+
+    void quitar(Reserva reserva) {
+        NavigableMap<Long, Reserva> horarios = porAula.get(reserva.getAula().getId());
+        if (horarios == null) return;
+        horarios.remove(clave(reserva.getDiaEpoch(), reserva.getMinutoInicio()), reserva);
+        if (horarios.isEmpty()) porAula.remove(reserva.getAula().getId(), horarios);
+    }
+
+    // Reservas activas del aula en ese dia, ordenadas por hora de inicio.
+    Collection<Reserva> delDia(String aulaId, int diaEpoch) {
+        NavigableMap<Long, Reserva> horarios = porAula.get(aulaId);
+        if (horarios == null) return Collections.emptyList();
+        return horarios.subMap(clave(diaEpoch, 0), true, clave(diaEpoch + 1, 0), false).values();
+    }
+
+    // 'excluida' se ignora (es la version anterior de la reserva que se modifica);
+    // en ese caso se revisa tambien la anterior a ella.
+    Reserva buscarConflicto(String aulaId, int diaEpoch, int minutoInicio, int minutoFin, Reserva excluida) {
+        NavigableMap<Long, Reserva> horarios = porAula.get(aulaId);
+        if (horarios == null) return null;
+        Map.Entry<Long, Reserva> anterior = horarios.lowerEntry(clave(diaEpoch, minutoFin));
+        if (anterior != null && anterior.getValue() == excluida) {
+            anterior = horarios.lowerEntry(anterior.getKey());
+        }
+        if (anterior != null && anterior.getValue().getDiaEpoch() == diaEpoch
+                && anterior.getValue().getMinutoFin() > minutoInicio) {
+            return anterior.getValue();
+        }
+        return null;
+    }
+
+    // Cuantas reservas compara buscarConflicto con estos argumentos (0 a 2).
+    int candidatosRevisados(String aulaId, int diaEpoch, int minutoFin, Reserva excluida) {
+        NavigableMap<Long, Reserva> horarios = porAula.get(aulaId);
+        if (horarios == null) return 0;
+        Map.Entry<Long, Reserva> anterior = horarios.lowerEntry(clave(diaEpoch, minutoFin));
+        if (anterior == null) return 0;
+        return anterior.getValue() == excluida && horarios.lowerKey(anterior.getKey()) != null ? 2 : 1;
+    }
+}
@@ -0,0 +1,182 @@
+package itcareservas.servicios;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.regex.Pattern;
+
+// Indice de responsables sin distinguir mayusculas ni acentos. Cada nombre
+// normalizado se parte en bigramas y trigramas, y cada uno apunta a los IDs de
+// reserva que lo contienen. Una busqueda recorre solo la lista mas corta de
+// los n-gramas del texto buscado y confirma cada candidato con contains, asi
+// que el costo depende de las coincidencias y no del total de reservas. Un
+// texto de un caracter no tiene n-grama: se recorren los nombres, que es lo
+// que cuesta de todos modos una respuesta que trae casi todas las reservas.
+//
+// Para autocompletar se guarda, en orden, cada nombre distinto a partir del
+// inicio de cada palabra ("lopez\0maria lopez"), con el nombre original.
+//
+// Las escrituras de una reserva llegan con el cerrojo de su aula tomado; cada
+// lista se modifica con compute, asi que dos aulas pueden escribir el mismo
+// n-grama a la vez. Las lecturas no bloquean.
+class IndiceResponsables {
+    private static final Pattern MARCAS = Pattern.compile("\\p{M}+");
+    private static final char SEPARADOR = '\0';
+    // El n-grama mas corto del indice.
+    private static final int MIN_NGRAMA = 2;
+
+    private static final class Nombre {
+        final String original;
+        final int reservas;
+
+        Nombre(String original, int reservas) {
+            this.original = original;
+            this.reservas = reservas;
+        }
+    }
+
+    private final Map<String, String> textos = new ConcurrentHashMap<>();
+    private final Map<String, Set<String>> listas = new ConcurrentHashMap<>();
+    private final Map<String, Nombre> nombres = new ConcurrentHashMap<>();
+    private final NavigableSet<String> prefijos = new ConcurrentSkipListSet<>();
+
+    static String normalizar(String texto) {
+        if (texto == null) return "";
+        String sinMarcas = MARCAS.matcher(Normalizer.normalize(texto, Normalizer.Form.NFD)).replaceAll("");
+        return sinMarcas.toLowerCase(Locale.ROOT);
+    }
+
+    int cantidadNgramas() {
+        return listas.size();
+    }
+
+    int cantidadNombres() {
+        return nombres.size();
+    }
+
+    // Idempotente: si la reserva ya estaba con el mismo responsable no toca nada.
+    void agregar(String id, String responsable) {
+        String normalizado = normalizar(responsable);
+        String anterior = textos.put(id, normalizado);
+        if (normalizado.equals(anterior)) return;
+        if (anterior != null) {
+            quitarTexto(id, anterior);
+        }
+        for (String ngrama : ngramas(normalizado)) {
+            listas.compute(ngrama, (k, ids) -> {
+                if (ids == null) ids = ConcurrentHashMap.newKeySet();
+                ids.add(id);
+                return ids;
+            });
+        }
+        nombres.compute(normalizado, (k, nombre) -> {
+            if (nombre == null) {
+                for (String entrada : entradasPrefijo(normalizado)) prefijos.add(entrada);
+                return new Nombre(responsable, 1);
+            }
+            return new Nombre(nombre.original, nombre.reservas + 1);
+        });
+    }
+
+    void quitar(String id) {
+        String anterior = textos.remove(id);
+        if (anterior != null) {
+            quitarTexto(id, anterior);
+        }
+    }
+
+    private void quitarTexto(String id, String normalizado) {
+        for (String ngrama : ngramas(normalizado)) {
+            listas.computeIfPresent(ngrama, (k, ids) -> {
+                ids.remove(id);
+                return ids.isEmpty() ? null : ids;
+            });
+        }
+        nombres.computeIfPresent(normalizado, (k, nombre) -> {
+            if (nombre.reservas > 1) return new Nombre(nombre.original, nombre.reservas - 1);
+            for (String entrada : entradasPrefijo(normalizado)) prefijos.remove(entrada);
+            return null;
+        });
+    }
+
+    // IDs cuyo responsable contiene el texto.
+    List<String> buscar(String texto) {
+        String buscado = normalizar(texto);
+        List<String> encontrados = new ArrayList<>();
+        if (buscado.length() < MIN_NGRAMA) {
+            for (Map.Entry<String, String> entrada : textos.entrySet()) {
+                if (entrada.getValue().contains(buscado)) encontrados.add(entrada.getKey());
+            }
+            return encontrados;
+        }
+        Set<String> menor = null;
+        for (String ngrama : ngramasConsulta(buscado)) {
+            Set<String> ids = listas.get(ngrama);
+            if (ids == null) return encontrados;
+            if (menor == null || ids.size() < menor.size()) menor = ids;
+        }
+        for (String id : menor) {
+            String normalizado = textos.get(id);
+            if (normalizado != null && normalizado.contains(buscado)) encontrados.add(id);
+        }
+        return encontrados;
+    }
+
+    // Nombres (tal como se escribieron la primera vez) que empiezan con el
+    // prefijo, o que tienen una palabra que empieza con el; en orden alfabetico.
+    List<String> sugerir(String prefijo, int limite) {
+        String buscado = normalizar(prefijo).trim();
+        if (buscado.isEmpty() || limite <= 0) return Collections.emptyList();
+        Set<String> vistos = new HashSet<>();
+        Set<String> sugerencias = new LinkedHashSet<>();
+        for (String entrada : prefijos.subSet(buscado, true, buscado + Character.MAX_VALUE, false)) {
+            String normalizado = entrada.substring(entrada.indexOf(SEPARADOR) + 1);
+            if (!vistos.add(normalizado)) continue;
+            Nombre nombre = nombres.get(normalizado);
+            if (nombre == null) continue;
+            sugerencias.add(nombre.original);
+            if (sugerencias.size() >= limite) break;
+        }
+        return new ArrayList<>(sugerencias);
+    }
+
+    private static Set<String> ngramas(String normalizado) {
+        Set<String> ngramas = new HashSet<>();
+        for (int i = 0; i + 2 <= normalizado.length(); i++) {
+            ngramas.add(normalizado.substring(i, i + 2));
+            if (i + 3 <= normalizado.length()) ngramas.add(normalizado.substring(i, i + 3));
+        }
+        return ngramas;
+    }
+
+    // Un texto de dos letras es su propio bigrama; si es mas largo bastan sus trigramas.
+    private static Set<String> ngramasConsulta(String buscado) {
+        if (buscado.length() == 2) return Collections.singleton(buscado);
+        Set<String> trigramas = new HashSet<>();
+        for (int i = 0; i + 3 <= buscado.length(); i++) {
+            trigramas.add(buscado.substring(i, i + 3));
+        }
+        return trigramas;
+    }
+
+    private static List<String> entradasPrefijo(String normalizado) {
+        List<String> entradas = new ArrayList<>();
+        for (int i = 0; i < normalizado.length(); i++) {
+            boolean inicioPalabra = !Character.isWhitespace(normalizado.charAt(i))
+                                    && (i == 0 || Character.isWhitespace(normalizado.charAt(i - 1)));
+            if (inicioPalabra) {
+                entradas.add(normalizado.substring(i) + SEPARADOR + normalizado);
+            }
+        }
+        return entradas;
+    }
+}
@@ -0,0 +1,65 @@
+package itcareservas.servicios;
+
+import itcareservas.modelo.SerieReservas;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+// Series vigentes agrupadas por aula. Un aula tiene pocas series (su horario
+// semanal), asi que las consultas por dia las recorren y preguntan a cada una
+// si ocurre ese dia, sin expandir ninguna ocurrencia.
+// Las escrituras de un aula llegan con su cerrojo tomado; las lecturas no bloquean.
+class IndiceSeries {
+    private final Map<String, List<SerieReservas>> porAula = new ConcurrentHashMap<>();
+
+    void agregar(SerieReservas serie) {
+        porAula.computeIfAbsent(serie.getAula().getId(), k -> new CopyOnWriteArrayList<>()).add(serie);
+    }
+
+    void quitar(SerieReservas serie) {
+        List<SerieReservas> delAula = porAula.get(serie.getAula().getId());
+        if (delAula == null) return;
+        delAula.remove(serie);
+        if (delAula.isEmpty()) porAula.remove(serie.getAula().getId(), delAula);
+    }
+
+    List<SerieReservas> delAula(String aulaId) {
+        List<SerieReservas> delAula = porAula.get(aulaId);
+        return delAula == null ? Collections.<SerieReservas>emptyList() : delAula;
+    }
+
+    boolean tieneSeries(String aulaId) {
+        return porAula.containsKey(aulaId);
+    }
+
+    SerieReservas buscarConflicto(String aulaId, int diaEpoch, int minutoInicio, int minutoFin) {
+        for (SerieReservas serie : delAula(aulaId)) {
+            if (serie.seSolapaCon(diaEpoch, minutoInicio, minutoFin)) return serie;
+        }
+        return null;
+    }
+
+    // Cuantas series del aula recorrio buscarConflicto hasta dar con 'encontrada' (o todas).
+    int candidatosRevisados(String aulaId, SerieReservas encontrada) {
+        List<SerieReservas> delAula = delAula(aulaId);
+        return encontrada == null ? delAula.size() : delAula.indexOf(encontrada) + 1;
+    }
+
+    SerieReservas buscarConflicto(SerieReservas nueva) {
+        for (SerieReservas serie : delAula(nueva.getAula().getId())) {
+            if (serie.seSolapaCon(nueva)) return serie;
+        }
+        return null;
+    }
+
+    int minutosOcupados(String aulaId, int diaEpoch) {
+        int minutos = 0;
+        for (SerieReservas serie : delAula(aulaId)) {
+            if (serie.ocurreEl(diaEpoch)) minutos += serie.calcularDuracionMinutos();
+        }
+        return minutos;
+    }
+}
@@ -0,0 +1,286 @@
+package itcareservas.servicios;
+
+import itcareservas.modelo.Aula;
+import itcareservas.modelo.Reserva;
+import itcareservas.modelo.ReservaClase;
+import itcareservas.modelo.ReservaEvento;
+import itcareservas.modelo.ReservaPractica;
+import itcareservas.modelo.SerieReservas;
+import itcareservasmodelo.enums.EstadoReserva;
+import itcareservasmodelo.enums.TipoAula;
+import itcareservasmodelo.enums.TipoEvento;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+// Instantanea binaria del estado completo, pensada para arrancar rapido.
+//
+// Formato (version 2, big endian):
+//   int MAGICO, short VERSION
+//   int nAulas, por aula: texto id, texto nombre, int capacidad, byte tipo
+//   int nResponsables, por responsable: texto
+//   int nReservas, por reserva:
+//     byte subtipo, texto id, int indiceAula, int epochDay,
+//     short minutoInicio, short minutoFin, int indiceResponsable, byte estado,
+//     CLASE: texto materia, texto grupo | PRACTICA: texto equipo |
+//     EVENTO: byte tipoEvento, int aforo
+//   int nSeries, por serie (solo desde la version 2):
+//     texto id, int indiceAula, int epochDayDesde, int epochDayHasta,
+//     byte diasSemana (bit 0 = lunes), short minutoInicio, short minutoFin,
+//     texto responsable, texto materia, texto grupo,
+//     int nExcepciones, por excepcion: int epochDay
+//   int MAGICO (marca de archivo completo)
+// Los textos son un short sin signo con el largo seguido de los bytes UTF-8.
+// Aulas y responsables van como diccionario y cada reserva guarda su indice.
+class InstantaneaBinaria {
+    private static final int MAGICO = 0x49544341;
+    private static final short VERSION = 2;
+    private static final byte CLASE = 1;
+    private static final byte PRACTICA = 2;
+    private static final byte EVENTO = 3;
+
+    final List<Aula> aulas;
+    final List<Reserva> reservas;
+    final List<SerieReservas> series;
+
+    private InstantaneaBinaria(List<Aula> aulas, List<Reserva> reservas, List<SerieReservas> series) {
+        this.aulas = aulas;
+        this.reservas = reservas;
+        this.series = series;
+    }
+
+    static void escribir(Path archivo, Collection<Aula> aulas, Collection<Reserva> reservas,
+                         Collection<SerieReservas> series) throws IOException {
+        Path temporal = archivo.resolveSibling(archivo.getFileName() + ".tmp");
+        try (FileOutputStream salida = new FileOutputStream(temporal.toFile());
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(salida, 1 << 16))) {
+            out.writeInt(MAGICO);
+            out.writeShort(VERSION);
+
+            Map<String, Integer> indiceAulas = new HashMap<>();
+            out.writeInt(aulas.size());
+            for (Aula aula : aulas) {
+                indiceAulas.put(aula.getId(), indiceAulas.size());
+                escribirTexto(out, aula.getId());
+                escribirTexto(out, aula.getNombre());
+                out.writeInt(aula.getCapacidad());
+                out.writeByte(aula.getTipo().ordinal());
+            }
+
+            Map<String, Integer> indiceResponsables = new HashMap<>();
+            List<String> responsables = new ArrayList<>();
+            for (Reserva reserva : reservas) {
+                if (indiceResponsables.putIfAbsent(reserva.getResponsable(), responsables.size()) == null) {
+                    responsables.add(reserva.getResponsable());
+                }
+            }
+            out.writeInt(responsables.size());
+            for (String responsable : responsables) {
+                escribirTexto(out, responsable);
+            }
+
+            out.writeInt(reservas.size());
+            for (Reserva reserva : reservas) {
+                Integer aula = indiceAulas.get(reserva.getAula().getId());
+                if (aula == null) {
+                    throw new IOException("La reserva " + reserva.getId() + " referencia un aula inexistente");
+                }
+                out.writeByte(subtipo(reserva));
+                escribirTexto(out, reserva.getId());
+                out.writeInt(aula);
+                out.writeInt(reserva.getDiaEpoch());
+                out.writeShort(reserva.getMinutoInicio());
+                out.writeShort(reserva.getMinutoFin());
+                out.writeInt(indiceResponsables.get(reserva.getResponsable()));
+                out.writeByte(reserva.getEstado().ordinal());
+                if (reserva instanceof ReservaClase) {
+                    escribirTexto(out, ((ReservaClase) reserva).getMateria());
+                    escribirTexto(out, ((ReservaClase) reserva).getGrupo());
+                } else if (reserva instanceof ReservaPractica) {
+                    escribirTexto(out, ((ReservaPractica) reserva).getEquipoNecesario());
+                } else {
+                    out.writeByte(((ReservaEvento) reserva).getTipoEvento().ordinal());
+                    out.writeInt(((ReservaEvento) reserva).getAforoEsperado());
+                }
+            }
+
+            out.writeInt(series.size());
+            for (SerieReservas serie : series) {
+                Integer aula = indiceAulas.get(serie.getAula().getId());
+                if (aula == null) {
+                    throw new IOException("La serie " + serie.getId() + " referencia un aula inexistente");
+                }
+                escribirTexto(out, serie.getId());
+                out.writeInt(aula);
+                out.writeInt(serie.getDiaDesde());
+                out.writeInt(serie.getDiaHasta());
+                int dias = 0;
+                for (DayOfWeek dia : serie.getDiasSemana()) {
+                    dias |= 1 << dia.ordinal();
+                }
+                out.writeByte(dias);
+                out.writeShort(serie.getMinutoInicio());
+                out.writeShort(serie.getMinutoFin());
+                escribirTexto(out, serie.getResponsable());
+                escribirTexto(out, serie.getMateria());
+                escribirTexto(out, serie.getGrupo());
+                List<LocalDate> excepciones = serie.getExcepciones();
+                out.writeInt(excepciones.size());
+                for (LocalDate fecha : excepciones) {
+                    out.writeInt((int) fecha.toEpochDay());
+                }
+            }
+            out.writeInt(MAGICO);
+            out.flush();
+            salida.getFD().sync();
+        }
+        Files.move(temporal, archivo, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    static InstantaneaBinaria leer(Path archivo) throws IOException {
+        try (FileChannel canal = FileChannel.open(archivo, StandardOpenOption.READ)) {
+            if (canal.size() > Integer.MAX_VALUE) {
+                throw new IOException("Instantanea demasiado grande para mapear: " + canal.size() + " bytes");
+            }
+            ByteBuffer in = canal.map(FileChannel.MapMode.READ_ONLY, 0, canal.size());
+            if (in.remaining() < 6 || in.getInt() != MAGICO) {
+                throw new IOException("Archivo de instantanea no valido");
+            }
+            short version = in.getShort();
+            if (version != 1 && version != VERSION) {
+                throw new IOException("Version de instantanea no soportada: " + version);
+            }
+            if (in.getInt(in.limit() - 4) != MAGICO) {
+                throw new IOException("Instantanea incompleta");
+            }
+
+            TipoAula[] tiposAula = TipoAula.values();
+            Aula[] aulas = new Aula[in.getInt()];
+            for (int i = 0; i < aulas.length; i++) {
+                aulas[i] = new Aula(leerTexto(in), leerTexto(in), in.getInt(), tiposAula[in.get()]);
+            }
+
+            String[] responsables = new String[in.getInt()];
+            for (int i = 0; i < responsables.length; i++) {
+                responsables[i] = leerTexto(in);
+            }
+
+            EstadoReserva[] estados = EstadoReserva.values();
+            TipoEvento[] tiposEvento = TipoEvento.values();
+            int cantidad = in.getInt();
+            List<Reserva> reservas = new ArrayList<>(cantidad);
+            long ultimoDia = Long.MIN_VALUE;
+            LocalDate fecha = null;
+            for (int i = 0; i < cantidad; i++) {
+                byte subtipo = in.get();
+                String id = leerTexto(in);
+                Aula aula = aulas[in.getInt()];
+                int dia = in.getInt();
+                if (dia != ultimoDia) {
+                    fecha = LocalDate.ofEpochDay(dia);
+                    ultimoDia = dia;
+                }
+                LocalTime inicio = Reserva.horaDelDia(in.getShort());
+                LocalTime fin = Reserva.horaDelDia(in.getShort());
+                String responsable = responsables[in.getInt()];
+                EstadoReserva estado = estados[in.get()];
+
+                Reserva reserva;
+                switch (subtipo) {
+                    case CLASE:
+                        reserva = new ReservaClase(id, aula, fecha, inicio, fin, responsable, leerTexto(in), leerTexto(in));
+                        break;
+                    case PRACTICA:
+                        reserva = new ReservaPractica(id, aula, fecha, inicio, fin, responsable, leerTexto(in));
+                        break;
+                    case EVENTO:
+                        reserva = new ReservaEvento(id, aula, fecha, inicio, fin, responsable,
+                                                    tiposEvento[in.get()], in.getInt());
+                        break;
+                    default:
+                        throw new IOException("Subtipo de reserva desconocido: " + subtipo);
+                }
+                if (estado != EstadoReserva.ACTIVA) {
+                    reserva = reserva.conCambios(null, null, null, null, estado);
+                }
+                reservas.add(reserva);
+            }
+
+            // La version 1 no tenia series.
+            List<SerieReservas> series = new ArrayList<>();
+            int cantidadSeries = version >= 2 ? in.getInt() : 0;
+            DayOfWeek[] diasSemana = DayOfWeek.values();
+            for (int i = 0; i < cantidadSeries; i++) {
+                String id = leerTexto(in);
+                Aula aula = aulas[in.getInt()];
+                LocalDate desde = LocalDate.ofEpochDay(in.getInt());
+                LocalDate hasta = LocalDate.ofEpochDay(in.getInt());
+                int mascara = in.get();
+                Set<DayOfWeek> dias = EnumSet.noneOf(DayOfWeek.class);
+                for (DayOfWeek dia : diasSemana) {
+                    if ((mascara & (1 << dia.ordinal())) != 0) dias.add(dia);
+                }
+                LocalTime inicio = Reserva.horaDelDia(in.getShort());
+                LocalTime fin = Reserva.horaDelDia(in.getShort());
+                String responsable = leerTexto(in);
+                String materia = leerTexto(in);
+                String grupo = leerTexto(in);
+                List<LocalDate> excepciones = new ArrayList<>();
+                for (int n = in.getInt(); n > 0; n--) {
+                    excepciones.add(LocalDate.ofEpochDay(in.getInt()));
+                }
+                series.add(new SerieReservas(id, aula, desde, hasta, dias, inicio, fin, responsable,
+                                             materia, grupo, excepciones));
+            }
+
+            List<Aula> listaAulas = new ArrayList<>(aulas.length);
+            for (Aula aula : aulas) {
+                listaAulas.add(aula);
+            }
+            return new InstantaneaBinaria(listaAulas, reservas, series);
+        } catch (RuntimeException e) {
+            throw new IOException("Instantanea corrupta: " + e, e);
+        }
+    }
+
+    private static byte subtipo(Reserva reserva) {
+        if (reserva instanceof ReservaClase) return CLASE;
+        if (reserva instanceof ReservaPractica) return PRACTICA;
+        return EVENTO;
+    }
+
+    private static void escribirTexto(DataOutputStream out, String texto) throws IOException {
+        byte[] bytes = texto.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > 0xFFFF) {
+            throw new IOException("Texto demasiado largo para la instantanea");
+        }
+        out.writeShort(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String leerTexto(ByteBuffer in) {
+        int largo = in.getShort() & 0xFFFF;
+        byte[] bytes = new byte[largo];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,138 @@
+package itcareservas.servicios;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+// Lector de CSV grandes: mapea el archivo en memoria, lo divide en bloques
+// alineados a fin de linea y los procesa en paralelo. El orden de las lineas
+// se conserva y una linea con error no detiene la carga.
+class LectorCsv {
+    private static final long TAMANO_MINIMO_BLOQUE = 1L << 20;
+    private static final long TAMANO_MAXIMO_BLOQUE = 1L << 30;
+
+    interface ParserLinea<T> {
+        T parsear(CamposCsv campos) throws Exception;
+    }
+
+    interface ManejadorError {
+        void error(long numeroLinea, String linea, Exception causa);
+    }
+
+    private static class ErrorLinea {
+        final long numero;
+        final String linea;
+        final Exception causa;
+
+        ErrorLinea(long numero, String linea, Exception causa) {
+            this.numero = numero;
+            this.linea = linea;
+            this.causa = causa;
+        }
+    }
+
+    private static class Bloque<T> {
+        final List<T> elementos = new ArrayList<>();
+        final List<ErrorLinea> errores = new ArrayList<>();
+        long lineas;
+    }
+
+    static <T> List<T> leer(Path archivo, ParserLinea<T> parser, ManejadorError manejador) throws IOException {
+        return leer(archivo, 0, Long.MAX_VALUE, parser, manejador);
+    }
+
+    // Solo los bytes [desde, hasta) del archivo; ambos deben caer en un
+    // comienzo de linea. Los numeros de linea de los errores son relativos a 'desde'.
+    static <T> List<T> leer(Path archivo, long desde, long hasta, ParserLinea<T> parser,
+                            ManejadorError manejador) throws IOException {
+        try (FileChannel canal = FileChannel.open(archivo, StandardOpenOption.READ)) {
+            long[] limites = dividir(canal, desde, Math.min(hasta, canal.size()));
+            List<Bloque<T>> bloques;
+            try {
+                bloques = IntStream.range(0, limites.length - 1)
+                        .parallel()
+                        .mapToObj(i -> leerBloque(canal, limites[i], limites[i + 1], limites[i] == 0, parser))
+                        .collect(Collectors.toList());
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+
+            List<T> resultado = new ArrayList<>();
+            long lineasPrevias = 0;
+            for (Bloque<T> bloque : bloques) {
+                resultado.addAll(bloque.elementos);
+                for (ErrorLinea error : bloque.errores) {
+                    manejador.error(lineasPrevias + error.numero, error.linea, error.causa);
+                }
+                lineasPrevias += bloque.lineas;
+            }
+            return resultado;
+        }
+    }
+
+    private static long[] dividir(FileChannel canal, long desde, long hasta) throws IOException {
+        long tamano = Math.max(0, hasta - desde);
+        int procesadores = Runtime.getRuntime().availableProcessors();
+        long porBloque = Math.max(TAMANO_MINIMO_BLOQUE, tamano / (procesadores * 4L) + 1);
+        porBloque = Math.min(porBloque, TAMANO_MAXIMO_BLOQUE);
+
+        List<Long> limites = new ArrayList<>();
+        limites.add(desde);
+        long actual = desde;
+        while (actual < hasta) {
+            long siguiente = actual + porBloque >= hasta ? hasta : Math.min(hasta, finDeLinea(canal, actual + porBloque));
+            limites.add(siguiente);
+            actual = siguiente;
+        }
+        if (limites.size() == 1) limites.add(desde);
+        return limites.stream().mapToLong(Long::longValue).toArray();
+    }
+
+    // Posicion siguiente al primer salto de linea a partir de 'desde'.
+    private static long finDeLinea(FileChannel canal, long desde) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(4096);
+        long posicion = desde;
+        while (true) {
+            buffer.clear();
+            int leidos = canal.read(buffer, posicion);
+            if (leidos <= 0) return canal.size();
+            for (int i = 0; i < leidos; i++) {
+                if (buffer.get(i) == '\n') return posicion + i + 1;
+            }
+            posicion += leidos;
+        }
+    }
+
+    private static <T> Bloque<T> leerBloque(FileChannel canal, long inicio, long fin, boolean primero,
+                                            ParserLinea<T> parser) {
+        Bloque<T> bloque = new Bloque<>();
+        if (fin <= inicio) return bloque;
+        MappedByteBuffer buffer;
+        try {
+            buffer = canal.map(FileChannel.MapMode.READ_ONLY, inicio, fin - inicio);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        CamposCsv campos = new CamposCsv(buffer);
+        if (primero) campos.saltarBom();
+        while (campos.siguienteLinea()) {
+            bloque.lineas++;
+            if (campos.vacia()) continue;
+            try {
+                T elemento = parser.parsear(campos);
+                if (elemento != null) bloque.elementos.add(elemento);
+            } catch (Exception e) {
+                bloque.errores.add(new ErrorLinea(bloque.lineas, campos.linea(), e));
+            }
+        }
+        return bloque;
+    }
+}
@@ -0,0 +1,213 @@
+package itcareservas.servicios;
+
+import itcareservas.excepciones.ConflictoHorarioException;
+import itcareservas.excepciones.NoEncontradoException;
+import itcareservas.excepciones.ReglaNegocioException;
+import itcareservas.excepciones.VersionObsoletaException;
+
+import java.beans.ConstructorProperties;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.LongSupplier;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+// Metricas de GestorReservas y PersistenciaUtil: un histograma de latencias
+// por operacion, excepciones por operacion y causa, y tamanos de colecciones
+// e indices. Registrar una medicion no toma cerrojos ni asigna memoria
+// (System.nanoTime y contadores atomicos); todo el calculo se hace al leer,
+// desde JMX o en el volcado periodico de PersistenciaUtil.
+public class MetricasReservas implements MetricasReservasMXBean {
+    public static final String NOMBRE_JMX = "itcareservas:type=GestorReservas,name=Metricas";
+
+    enum Operacion {
+        REGISTRAR_RESERVA("registrarReserva"),
+        REGISTRAR_LOTE("registrarReservas"),
+        VALIDAR_SOLAPAMIENTO("validarSolapamiento"),
+        MODIFICAR_RESERVA("modificarReserva"),
+        CANCELAR_RESERVA("cancelarReserva"),
+        ELIMINAR_RESERVA("eliminarReserva"),
+        REGISTRAR_SERIE("registrarSerie"),
+        BUSCAR_DISPONIBLES("buscarAulasDisponibles"),
+        BUSCAR_RESPONSABLE("buscarPorResponsable"),
+        LISTAR_RESERVAS("listarReservas"),
+        REPORTE_TOP_AULAS("reporteTopAulasPorHoras"),
+        REPORTE_HORAS_TIPO("reporteHorasPorTipoAula"),
+        REPORTE_DISTRIBUCION("reporteDistribucionPorTipo"),
+        REPORTE_OCUPACION("reporteOcupacionDia"),
+        ARCHIVAR("archivarAnterioresA"),
+        CARGAR_DATOS("cargarDatos"),
+        GUARDAR_CSV("guardarCsv"),
+        GUARDAR_INSTANTANEA("guardarInstantanea"),
+        COMPACTAR("compactar"),
+        EXPORTAR_REPORTE("exportarReporte");
+
+        final String nombre;
+
+        Operacion(String nombre) {
+            this.nombre = nombre;
+        }
+    }
+
+    private enum Causa {
+        CONFLICTO_HORARIO("ConflictoHorario"),
+        VERSION_OBSOLETA("VersionObsoleta"),
+        REGLA_NEGOCIO("ReglaNegocio"),
+        NO_ENCONTRADO("NoEncontrado"),
+        ENTRADA_SALIDA("EntradaSalida"),
+        OTRA("Otra");
+
+        final String nombre;
+
+        Causa(String nombre) {
+            this.nombre = nombre;
+        }
+    }
+
+    private static final Operacion[] OPERACIONES = Operacion.values();
+    private static final Causa[] CAUSAS = Causa.values();
+
+    private final HistogramaLatencias[] latencias = new HistogramaLatencias[OPERACIONES.length];
+    private final AtomicLongArray errores = new AtomicLongArray(OPERACIONES.length * CAUSAS.length);
+    private final Map<String, LongSupplier> tamanos = new LinkedHashMap<>();
+
+    MetricasReservas() {
+        for (int i = 0; i < latencias.length; i++) {
+            latencias[i] = new HistogramaLatencias();
+        }
+    }
+
+    // Se usa con el valor de System.nanoTime() tomado al empezar la operacion.
+    void registrar(Operacion operacion, long inicio) {
+        latencias[operacion.ordinal()].registrar(System.nanoTime() - inicio);
+    }
+
+    void contarError(Operacion operacion, Throwable error) {
+        errores.incrementAndGet(operacion.ordinal() * CAUSAS.length + causa(error).ordinal());
+    }
+
+    private static Causa causa(Throwable error) {
+        if (error instanceof ConflictoHorarioException) return Causa.CONFLICTO_HORARIO;
+        if (error instanceof VersionObsoletaException) return Causa.VERSION_OBSOLETA;
+        if (error instanceof ReglaNegocioException) return Causa.REGLA_NEGOCIO;
+        if (error instanceof NoEncontradoException) return Causa.NO_ENCONTRADO;
+        if (error instanceof IOException) return Causa.ENTRADA_SALIDA;
+        return Causa.OTRA;
+    }
+
+    // El valor se calcula solo al leer las metricas.
+    void medir(String nombre, LongSupplier valor) {
+        synchronized (tamanos) {
+            tamanos.put(nombre, valor);
+        }
+    }
+
+    // Lo publica en el servidor JMX de la plataforma; si ya habia uno (otro
+    // gestor en la misma JVM) lo reemplaza.
+    public void registrarEnJmx() {
+        try {
+            MBeanServer servidor = ManagementFactory.getPlatformMBeanServer();
+            ObjectName nombre = new ObjectName(NOMBRE_JMX);
+            if (servidor.isRegistered(nombre)) servidor.unregisterMBean(nombre);
+            servidor.registerMBean(this, nombre);
+        } catch (JMException e) {
+            System.err.println("No se pudieron publicar las metricas por JMX: " + e.getMessage());
+        }
+    }
+
+    public static final class ResumenLatencia {
+        private final long cantidad;
+        private final double promedioUs;
+        private final double p50Us;
+        private final double p99Us;
+        private final double p999Us;
+        private final double maximoUs;
+
+        @ConstructorProperties({ "cantidad", "promedioUs", "p50Us", "p99Us", "p999Us", "maximoUs" })
+        public ResumenLatencia(long cantidad, double promedioUs, double p50Us, double p99Us, double p999Us,
+                               double maximoUs) {
+            this.cantidad = cantidad;
+            this.promedioUs = promedioUs;
+            this.p50Us = p50Us;
+            this.p99Us = p99Us;
+            this.p999Us = p999Us;
+            this.maximoUs = maximoUs;
+        }
+
+        public long getCantidad() { return cantidad; }
+        public double getPromedioUs() { return promedioUs; }
+        public double getP50Us() { return p50Us; }
+        public double getP99Us() { return p99Us; }
+        public double getP999Us() { return p999Us; }
+        public double getMaximoUs() { return maximoUs; }
+    }
+
+    @Override
+    public Map<String, ResumenLatencia> getLatencias() {
+        Map<String, ResumenLatencia> resumen = new LinkedHashMap<>();
+        for (Operacion operacion : OPERACIONES) {
+            HistogramaLatencias.Foto foto = latencias[operacion.ordinal()].foto();
+            if (foto.cantidad == 0) continue;
+            resumen.put(operacion.nombre, new ResumenLatencia(foto.cantidad, foto.promedio() / 1e3,
+                                                              foto.percentil(50) / 1e3, foto.percentil(99) / 1e3,
+                                                              foto.percentil(99.9) / 1e3, foto.maximo / 1e3));
+        }
+        return resumen;
+    }
+
+    @Override
+    public Map<String, Long> getErrores() {
+        Map<String, Long> conteo = new LinkedHashMap<>();
+        for (Operacion operacion : OPERACIONES) {
+            for (Causa causa : CAUSAS) {
+                long cantidad = errores.get(operacion.ordinal() * CAUSAS.length + causa.ordinal());
+                if (cantidad > 0) conteo.put(operacion.nombre + "." + causa.nombre, cantidad);
+            }
+        }
+        return conteo;
+    }
+
+    @Override
+    public Map<String, Long> getTamanos() {
+        Map<String, Long> valores = new LinkedHashMap<>();
+        synchronized (tamanos) {
+            tamanos.forEach((nombre, valor) -> valores.put(nombre, valor.getAsLong()));
+        }
+        return valores;
+    }
+
+    @Override
+    public String volcar() {
+        StringBuilder texto = new StringBuilder();
+        texto.append("Metricas de GestorReservas al ").append(LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS))
+             .append('\n');
+        texto.append(String.format("%-28s %10s %10s %10s %10s %10s %12s%n", "Operacion", "Cantidad", "Prom (us)",
+                                   "p50 (us)", "p99 (us)", "p99.9 (us)", "Max (us)"));
+        getLatencias().forEach((nombre, resumen) -> texto.append(String.format(Locale.ROOT,
+            "%-28s %10d %10.1f %10.1f %10.1f %10.1f %12.1f%n", nombre, resumen.getCantidad(), resumen.getPromedioUs(),
+            resumen.getP50Us(), resumen.getP99Us(), resumen.getP999Us(), resumen.getMaximoUs())));
+        Map<String, Long> conteo = getErrores();
+        texto.append("Errores").append(conteo.isEmpty() ? ": ninguno" : "").append('\n');
+        conteo.forEach((nombre, cantidad) -> texto.append(String.format("  %-44s %10d%n", nombre, cantidad)));
+        texto.append("Tamanos\n");
+        getTamanos().forEach((nombre, valor) -> texto.append(String.format("  %-44s %10d%n", nombre, valor)));
+        return texto.toString();
+    }
+
+    @Override
+    public void reiniciar() {
+        for (HistogramaLatencias histograma : latencias) {
+            histograma.reiniciar();
+        }
+        for (int i = 0; i < errores.length(); i++) {
+            errores.set(i, 0);
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package itcareservas.servicios;
+
+import java.util.Map;
+
+// Vista JMX de MetricasReservas (jconsole, VisualVM o cualquier cliente JMX).
+public interface MetricasReservasMXBean {
+    // Latencias por operacion, solo de las que ya se ejecutaron.
+    Map<String, MetricasReservas.ResumenLatencia> getLatencias();
+
+    // Excepciones por operacion y causa ("registrarReserva.ConflictoHorario").
+    Map<String, Long> getErrores();
+
+    // Tamanos de las colecciones e indices del gestor.
+    Map<String, Long> getTamanos();
+
+    // Todo lo anterior como texto, igual que el volcado periodico.
+    String volcar();
+
+    void reiniciar();
+}
@@ -0,0 +1,116 @@
+package itcareservas.servicios;
+
+import itcareservas.modelo.Reserva;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Mapa de bits de ocupacion por aula y dia: 96 franjas de 15 minutos en dos
+// long, mas los minutos ocupados. Una franja se marca si alguna reserva ACTIVA
+// la toca, aunque sea en parte, asi que un AND en cero garantiza que no hay
+// choque sin mirar ninguna reserva; si da distinto de cero el llamador revisa
+// los intervalos exactos (horas no alineadas o la propia reserva modificada).
+//
+// Cada dia es un valor inmutable que se reemplaza entero; las escrituras de un
+// aula llegan con su cerrojo tomado y las lecturas no bloquean.
+class OcupacionDiaria {
+    static final int MINUTOS_FRANJA = 15;
+    private static final int FRANJAS = Reserva.MINUTOS_DIA / MINUTOS_FRANJA;
+
+    private static final class Dia {
+        final long bajos;
+        final long altos;
+        final int minutos;
+
+        Dia(long bajos, long altos, int minutos) {
+            this.bajos = bajos;
+            this.altos = altos;
+            this.minutos = minutos;
+        }
+    }
+
+    private final Map<String, Map<Integer, Dia>> porAula = new ConcurrentHashMap<>();
+
+    void agregar(Reserva reserva) {
+        Map<Integer, Dia> dias = porAula.computeIfAbsent(reserva.getAula().getId(), k -> new ConcurrentHashMap<>());
+        Dia dia = dias.get(reserva.getDiaEpoch());
+        int desde = franjaInicial(reserva.getMinutoInicio());
+        int hasta = franjaFinal(reserva.getMinutoFin());
+        long bajos = mascara(desde, hasta, 0);
+        long altos = mascara(desde, hasta, 64);
+        int minutos = reserva.calcularDuracionMinutos();
+        if (dia != null) {
+            bajos |= dia.bajos;
+            altos |= dia.altos;
+            minutos += dia.minutos;
+        }
+        dias.put(reserva.getDiaEpoch(), new Dia(bajos, altos, minutos));
+    }
+
+    // Una franja puede estar tocada por mas de una reserva, asi que al quitar
+    // se rearma el dia con las que quedan (ya sin la quitada).
+    void recalcular(String aulaId, int diaEpoch, Iterable<Reserva> restantes) {
+        long bajos = 0;
+        long altos = 0;
+        int minutos = 0;
+        for (Reserva reserva : restantes) {
+            int desde = franjaInicial(reserva.getMinutoInicio());
+            int hasta = franjaFinal(reserva.getMinutoFin());
+            bajos |= mascara(desde, hasta, 0);
+            altos |= mascara(desde, hasta, 64);
+            minutos += reserva.calcularDuracionMinutos();
+        }
+        Map<Integer, Dia> dias = porAula.get(aulaId);
+        if (minutos > 0) {
+            if (dias == null) {
+                dias = porAula.computeIfAbsent(aulaId, k -> new ConcurrentHashMap<>());
+            }
+            dias.put(diaEpoch, new Dia(bajos, altos, minutos));
+        } else if (dias != null) {
+            dias.remove(diaEpoch);
+            if (dias.isEmpty()) porAula.remove(aulaId, dias);
+        }
+    }
+
+    // true si ninguna reserva activa toca las franjas del intervalo.
+    boolean libre(String aulaId, int diaEpoch, int minutoInicio, int minutoFin) {
+        Map<Integer, Dia> dias = porAula.get(aulaId);
+        Dia dia = dias == null ? null : dias.get(diaEpoch);
+        if (dia == null) return true;
+        int desde = franjaInicial(minutoInicio);
+        int hasta = franjaFinal(minutoFin);
+        return (dia.bajos & mascara(desde, hasta, 0)) == 0 && (dia.altos & mascara(desde, hasta, 64)) == 0;
+    }
+
+    int minutosOcupados(String aulaId, int diaEpoch) {
+        Map<Integer, Dia> dias = porAula.get(aulaId);
+        Dia dia = dias == null ? null : dias.get(diaEpoch);
+        return dia == null ? 0 : dia.minutos;
+    }
+
+    // Dias con alguna reserva, sumando todas las aulas.
+    long cantidadDias() {
+        long total = 0;
+        for (Map<Integer, Dia> dias : porAula.values()) {
+            total += dias.size();
+        }
+        return total;
+    }
+
+    private static int franjaInicial(int minuto) {
+        return minuto / MINUTOS_FRANJA;
+    }
+
+    private static int franjaFinal(int minuto) {
+        return Math.min(FRANJAS, (minuto + MINUTOS_FRANJA - 1) / MINUTOS_FRANJA);
+    }
+
+    // Bits de las franjas [desde, hasta) que caen en el long que empieza en 'base'.
+    private static long mascara(int desde, int hasta, int base) {
+        int inicio = Math.max(desde - base, 0);
+        int fin = Math.min(hasta - base, 64);
+        if (inicio >= fin) return 0;
+        long alto = fin == 64 ? -1L : (1L << fin) - 1;
+        return alto & (-1L << inicio);
+    }
+}
@@ -0,0 +1,21 @@
+package itcareservas.servicios;
+
+import itcareservas.modelo.Reserva;
+
+import java.util.List;
+
+// Una pagina de GestorReservas.listarReservas(orden, despuesDe, limite).
+// 'siguiente' es el cursor para pedir la pagina que sigue, o null si es la ultima.
+public class PaginaReservas {
+    private final List<Reserva> reservas;
+    private final String siguiente;
+
+    PaginaReservas(List<Reserva> reservas, String siguiente) {
+        this.reservas = reservas;
+        this.siguiente = siguiente;
+    }
+
+    public List<Reserva> getReservas() { return reservas; }
+    public String getSiguiente() { return siguiente; }
+    public boolean hayMas() { return siguiente != null; }
+}
@@ -6,105 +6,515 @@ import itcareservas.modelo.Reserva;
 import itcareservas.modelo.ReservaClase;
 import itcareservas.modelo.ReservaEvento;
 import itcareservas.modelo.ReservaPractica;
+import itcareservas.modelo.SerieReservas;
+import itcareservas.servicios.MetricasReservas.Operacion;
 import itcareservasmodelo.enums.EstadoReserva;
+import itcareservasmodelo.enums.TipoAula;
 import itcareservasmodelo.enums.TipoEvento;
 
 import java.io.*;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.DayOfWeek;
 import java.time.LocalDate;
 import java.time.LocalTime;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumSet;
 import java.util.List;
+import java.util.Set;
 
 public class PersistenciaUtil {
     private static final String AULAS_FILE = "aulas.csv";
     private static final String RESERVAS_FILE = "reservas.csv";
+    private static final String SERIES_FILE = "series.csv";
+    private static final String INSTANTANEA_FILE = "reservas.bin";
+    private static final String DIARIO_FILE = "cambios.log";
+    private static final int UMBRAL_COMPACTACION = 10000;
+    private static final String HISTORICO_FILE = "historico.csv";
+    // Dias hacia atras que se conservan en memoria; 0 o menos desactiva el archivado.
+    private static final int HORIZONTE_ARCHIVO_DIAS = Integer.getInteger("itcareservas.horizonteArchivo", 365);
+    private static final long INTERVALO_ARCHIVO_MS = 60 * 60 * 1000L;
+    private static final String METRICAS_FILE = "metricas.txt";
+    // Segundos entre volcados de metricas a disco; 0 o menos los desactiva.
+    private static final int INTERVALO_METRICAS_S = Integer.getInteger("itcareservas.intervaloMetricas", 60);
     private GestorReservas gestor;
+    private final Path directorio;
+    private final MetricasReservas metricas;
+    private Diario diario;
+    private ArchivoHistorico historico;
+    private Thread archivador;
+    private final Object senalArchivador = new Object();
+    private volatile boolean archivando;
+    private Thread volcador;
+    private final Object senalVolcador = new Object();
+    private volatile boolean volcando;
 
     public PersistenciaUtil(GestorReservas gestor) {
+        this(gestor, Paths.get(""));
+    }
+
+    // Los archivos de datos van en 'directorio' (por defecto, el de trabajo).
+    PersistenciaUtil(GestorReservas gestor, Path directorio) {
         this.gestor = gestor;
+        this.directorio = directorio;
+        this.metricas = gestor.getMetricas();
     }
 
     public void guardarAulas(List<Aula> aulas) {
-        try (PrintWriter pw = new PrintWriter(new FileWriter(AULAS_FILE))) {
-            aulas.forEach(aula -> pw.println(aula.toCSV()));
+        long comienzo = System.nanoTime();
+        EventosReservas.Persistencia evento = EventosReservas.persistencia();
+        boolean exito = false;
+        Path temporal = directorio.resolve(AULAS_FILE + ".tmp");
+        try {
+            try (PrintWriter pw = new PrintWriter(Files.newBufferedWriter(temporal))) {
+                aulas.forEach(aula -> pw.println(aula.toCSV()));
+            }
+            Files.move(temporal, directorio.resolve(AULAS_FILE), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            exito = true;
         } catch (IOException e) {
+            metricas.contarError(Operacion.GUARDAR_CSV, e);
             System.err.println("Error al guardar aulas: " + e.getMessage());
+        } finally {
+            metricas.registrar(Operacion.GUARDAR_CSV, comienzo);
+            terminarEvento(evento, "guardarCsv", directorio.resolve(AULAS_FILE), aulas.size(), exito);
         }
     }
 
     public List<Aula> cargarAulas() {
-        List<Aula> aulas = new ArrayList<>();
+        EventosReservas.Persistencia evento = EventosReservas.persistencia();
         try {
-            Files.lines(Paths.get(AULAS_FILE))
-                 .map(line -> Aula.fromString(line))
-                 .forEach(aulas::add);
+            return cargado(evento, directorio.resolve(AULAS_FILE), LectorCsv.leer(directorio.resolve(AULAS_FILE),
+                campos -> new Aula(campos.texto(0), campos.texto(1), campos.entero(2),
+                                   campos.enumeracion(3, TipoAula.values())),
+                (numero, linea, ex) -> System.err.println("Error al cargar aula en linea " + numero + ": " + linea)));
         } catch (IOException e) {
+            terminarEvento(evento, "cargarCsv", directorio.resolve(AULAS_FILE), 0, false);
             System.out.println("No se encontro archivo de aulas. Iniciando con lista vacia.");
+            return new ArrayList<>();
         }
-        return aulas;
     }
 
-    public void guardarReservas(List<Reserva> reservas) {
-        try (PrintWriter pw = new PrintWriter(new FileWriter(RESERVAS_FILE))) {
-            reservas.forEach(reserva -> pw.println(reserva.toCSV()));
+    public void guardarReservas(Collection<Reserva> reservas) {
+        long comienzo = System.nanoTime();
+        EventosReservas.Persistencia evento = EventosReservas.persistencia();
+        boolean exito = false;
+        Path temporal = directorio.resolve(RESERVAS_FILE + ".tmp");
+        try {
+            try (PrintWriter pw = new PrintWriter(Files.newBufferedWriter(temporal))) {
+                reservas.forEach(reserva -> pw.println(reserva.toCSV()));
+            }
+            Files.move(temporal, directorio.resolve(RESERVAS_FILE), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            exito = true;
         } catch (IOException e) {
+            metricas.contarError(Operacion.GUARDAR_CSV, e);
             System.err.println("Error al guardar reservas: " + e.getMessage());
+        } finally {
+            metricas.registrar(Operacion.GUARDAR_CSV, comienzo);
+            terminarEvento(evento, "guardarCsv", directorio.resolve(RESERVAS_FILE), reservas.size(), exito);
         }
     }
 
+    // Las aulas se resuelven contra una tabla armada una sola vez (hash join)
+    // en lugar de buscar en el gestor por cada linea.
     public List<Reserva> cargarReservas() {
-        List<Reserva> reservas = new ArrayList<>();
-        try {
-            Files.lines(Paths.get(RESERVAS_FILE))
-                 .forEach(line -> {
-                     try {
-                         reservas.add(reconstruirReserva(line));
-                     } catch (NoEncontradoException ex) {
-                         System.err.println("Error al cargar reserva (Aula no existe): " + ex.getMessage() + " Linea: " + line);
-                     } catch (Exception ex) {
-                         System.err.println("Error desconocido al cargar reserva. Linea: " + line);
-                     }
-                 });
+        EventosReservas.Persistencia evento = EventosReservas.persistencia();
+        TablaAulas tablaAulas = new TablaAulas(gestor.getAulas());
+        try {
+            return cargado(evento, directorio.resolve(RESERVAS_FILE), LectorCsv.leer(directorio.resolve(RESERVAS_FILE), campos -> {
+                Aula aula = tablaAulas.buscar(campos, 2);
+                if (aula == null) {
+                    throw new NoEncontradoException("Aula no encontrada con ID: " + campos.texto(2));
+                }
+                return reconstruirReserva(campos, aula);
+            }, (numero, linea, ex) -> {
+                if (ex instanceof NoEncontradoException) {
+                    System.err.println("Error al cargar reserva (Aula no existe): " + ex.getMessage() + " Linea " + numero + ": " + linea);
+                } else {
+                    System.err.println("Error desconocido al cargar reserva. Linea " + numero + ": " + linea);
+                }
+            }));
         } catch (IOException e) {
+            terminarEvento(evento, "cargarCsv", directorio.resolve(RESERVAS_FILE), 0, false);
             System.out.println("No se encontro archivo de reservas. Iniciando con lista vacia.");
+            return new ArrayList<>();
         }
-        return reservas;
     }
     
-    private Reserva reconstruirReserva(String line) throws NoEncontradoException {
-        String[] parts = line.split(",");
-        String tipo = parts[0];
-        String id = parts[1];
-        Aula aula = gestor.buscarAulaPorId(parts[2]); 
-        LocalDate fecha = LocalDate.parse(parts[3]);
-        LocalTime hInicio = LocalTime.parse(parts[4]);
-        LocalTime hFin = LocalTime.parse(parts[5]);
-        String responsable = parts[6];
-        EstadoReserva estado = EstadoReserva.valueOf(parts[7]);
+    public void guardarSeries(Collection<SerieReservas> series) {
+        long comienzo = System.nanoTime();
+        EventosReservas.Persistencia evento = EventosReservas.persistencia();
+        boolean exito = false;
+        Path temporal = directorio.resolve(SERIES_FILE + ".tmp");
+        try {
+            try (PrintWriter pw = new PrintWriter(Files.newBufferedWriter(temporal))) {
+                series.forEach(serie -> pw.println(serie.toCSV()));
+            }
+            Files.move(temporal, directorio.resolve(SERIES_FILE), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            exito = true;
+        } catch (IOException e) {
+            metricas.contarError(Operacion.GUARDAR_CSV, e);
+            System.err.println("Error al guardar series: " + e.getMessage());
+        } finally {
+            metricas.registrar(Operacion.GUARDAR_CSV, comienzo);
+            terminarEvento(evento, "guardarCsv", directorio.resolve(SERIES_FILE), series.size(), exito);
+        }
+    }
 
-        Reserva reserva = null;
+    // El archivo de series es opcional: versiones anteriores no lo escribian.
+    public List<SerieReservas> cargarSeries() {
+        Path archivo = directorio.resolve(SERIES_FILE);
+        if (!Files.exists(archivo)) {
+            return new ArrayList<>();
+        }
+        EventosReservas.Persistencia evento = EventosReservas.persistencia();
+        TablaAulas tablaAulas = new TablaAulas(gestor.getAulas());
+        try {
+            return cargado(evento, archivo, LectorCsv.leer(archivo, campos -> {
+                Aula aula = tablaAulas.buscar(campos, 2);
+                if (aula == null) {
+                    throw new NoEncontradoException("Aula no encontrada con ID: " + campos.texto(2));
+                }
+                return reconstruirSerie(campos, aula);
+            }, (numero, linea, ex) -> System.err.println("Error al cargar serie en linea " + numero + ": " + linea)));
+        } catch (IOException e) {
+            terminarEvento(evento, "cargarCsv", archivo, 0, false);
+            System.err.println("Error al leer series: " + e.getMessage());
+            return new ArrayList<>();
+        }
+    }
+    
+    // Carga el estado desde la instantanea binaria si es la version mas
+    // reciente; si no existe o los CSV fueron editados despues, importa los CSV.
+    public void cargarDatos() {
+        long comienzo = System.nanoTime();
+        try {
+            Path instantanea = directorio.resolve(INSTANTANEA_FILE);
+            if (instantaneaVigente(instantanea)) {
+                EventosReservas.Persistencia evento = EventosReservas.persistencia();
+                try {
+                    InstantaneaBinaria datos = InstantaneaBinaria.leer(instantanea);
+                    terminarEvento(evento, "cargarInstantanea", instantanea,
+                                   datos.aulas.size() + datos.reservas.size() + datos.series.size(), true);
+                    gestor.cargarAulas(datos.aulas);
+                    gestor.cargarReservas(datos.reservas);
+                    gestor.cargarSeries(datos.series);
+                    return;
+                } catch (IOException e) {
+                    metricas.contarError(Operacion.CARGAR_DATOS, e);
+                    terminarEvento(evento, "cargarInstantanea", instantanea, 0, false);
+                    System.err.println("No se pudo leer la instantanea (" + e.getMessage() + "). Se cargan los CSV.");
+                }
+            }
+            gestor.cargarAulas(cargarAulas());
+            gestor.cargarReservas(cargarReservas());
+            gestor.cargarSeries(cargarSeries());
+        } finally {
+            metricas.registrar(Operacion.CARGAR_DATOS, comienzo);
+        }
+    }
+
+    private boolean instantaneaVigente(Path instantanea) {
+        try {
+            if (!Files.exists(instantanea)) return false;
+            long modificada = Files.getLastModifiedTime(instantanea).toMillis();
+            for (String csv : new String[] { AULAS_FILE, RESERVAS_FILE, SERIES_FILE }) {
+                Path archivo = directorio.resolve(csv);
+                if (Files.exists(archivo) && Files.getLastModifiedTime(archivo).toMillis() > modificada) {
+                    return false;
+                }
+            }
+            return true;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    public boolean guardarInstantanea() {
+        long comienzo = System.nanoTime();
+        EventosReservas.Persistencia evento = EventosReservas.persistencia();
+        boolean exito = false;
+        List<Aula> aulas = gestor.getAulas();
+        Collection<Reserva> reservas = gestor.getReservas();
+        Collection<SerieReservas> series = gestor.getSeries();
+        try {
+            InstantaneaBinaria.escribir(directorio.resolve(INSTANTANEA_FILE), aulas, reservas, series);
+            exito = true;
+            return true;
+        } catch (IOException e) {
+            metricas.contarError(Operacion.GUARDAR_INSTANTANEA, e);
+            System.err.println("Error al guardar instantanea: " + e.getMessage());
+            return false;
+        } finally {
+            metricas.registrar(Operacion.GUARDAR_INSTANTANEA, comienzo);
+            terminarEvento(evento, "guardarInstantanea", directorio.resolve(INSTANTANEA_FILE),
+                           aulas.size() + reservas.size() + series.size(), exito);
+        }
+    }
+
+    // Reaplica sobre el estado cargado los cambios registrados despues de la
+    // ultima instantanea y deja el diario abierto para las siguientes mutaciones.
+    public void iniciarDiario() {
+        Path archivo = directorio.resolve(DIARIO_FILE);
+        try {
+            for (String[] entrada : Diario.leer(archivo)) {
+                try {
+                    aplicarEntrada(entrada[0], entrada[1]);
+                } catch (Exception ex) {
+                    System.err.println("Error al aplicar entrada del diario: " + entrada[0] + "|" + entrada[1]);
+                }
+            }
+            Diario abierto = new Diario(archivo, UMBRAL_COMPACTACION);
+            diario = abierto;
+            compactar();
+            abierto.setCompactador(this::compactar);
+            gestor.setDiario(abierto);
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                try {
+                    abierto.sincronizar();
+                } catch (IOException e) {
+                    System.err.println("Error al sincronizar diario: " + e.getMessage());
+                }
+            }));
+        } catch (IOException e) {
+            System.err.println("Error al abrir diario de cambios: " + e.getMessage());
+        }
+    }
+
+    private void aplicarEntrada(String tipo, String datos) throws NoEncontradoException {
         switch (tipo) {
-            case "CLASE":
-                reserva = new ReservaClase(id, aula, fecha, hInicio, hFin, responsable, parts[8], parts[9]);
+            case Diario.AULA:
+                gestor.aplicarAula(Aula.fromString(datos));
                 break;
-            case "PRACTICA":
-                reserva = new ReservaPractica(id, aula, fecha, hInicio, hFin, responsable, parts[8]);
+            case Diario.BAJA_AULA:
+                gestor.aplicarBajaAula(datos);
                 break;
-            case "EVENTO":
-                TipoEvento tipoEv = TipoEvento.valueOf(parts[8]);
-                int aforo = Integer.parseInt(parts[9]);
-                reserva = new ReservaEvento(id, aula, fecha, hInicio, hFin, responsable, tipoEv, aforo);
+            case Diario.RESERVA:
+                Reserva reserva = reconstruirReserva(datos);
+                if (reserva != null) gestor.aplicarReserva(reserva);
                 break;
+            case Diario.BAJA_RESERVA:
+            case Diario.ARCHIVADA:
+                gestor.aplicarBajaReserva(datos);
+                break;
+            case Diario.SERIE:
+                CamposCsv campos = CamposCsv.de(datos);
+                gestor.aplicarSerie(reconstruirSerie(campos, gestor.buscarAulaPorId(campos.texto(2))));
+                break;
+            case Diario.BAJA_SERIE:
+                gestor.aplicarBajaSerie(datos);
+                break;
+        }
+    }
+
+    // Abre el archivo historico y arranca el archivador, que cada hora saca de
+    // memoria las reservas anteriores al horizonte. Se llama despues de
+    // iniciarDiario para que cada archivado quede en el diario.
+    public void iniciarArchivo() {
+        iniciarArchivo(HORIZONTE_ARCHIVO_DIAS, INTERVALO_ARCHIVO_MS);
+    }
+
+    void iniciarArchivo(int horizonteDias, long intervaloMs) {
+        try {
+            historico = new ArchivoHistorico(directorio.resolve(HISTORICO_FILE));
+        } catch (IOException e) {
+            System.err.println("Error al abrir el archivo historico: " + e.getMessage());
+            return;
+        }
+        gestor.setArchivo(historico);
+        if (horizonteDias <= 0) return;
+
+        archivando = true;
+        archivador = new Thread(() -> {
+            while (archivando) {
+                try {
+                    gestor.archivarAnterioresA(LocalDate.now().minusDays(horizonteDias));
+                } catch (RuntimeException e) {
+                    System.err.println("Error al archivar reservas: " + e.getMessage());
+                }
+                synchronized (senalArchivador) {
+                    if (!archivando) return;
+                    try {
+                        senalArchivador.wait(intervaloMs);
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                }
+            }
+        }, "archivador-reservas");
+        archivador.setDaemon(true);
+        archivador.start();
+    }
+
+    // Se espera a que termine el lote en curso (no se interrumpe: cerraria el canal).
+    private void detenerArchivador() {
+        if (archivador == null) return;
+        synchronized (senalArchivador) {
+            archivando = false;
+            senalArchivador.notifyAll();
+        }
+        try {
+            archivador.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        archivador = null;
+    }
+
+    // Publica las metricas del gestor por JMX y cada INTERVALO_METRICAS_S
+    // segundos las vuelca como texto en metricas.txt (reemplazo atomico).
+    public void iniciarMetricas() {
+        metricas.registrarEnJmx();
+        if (INTERVALO_METRICAS_S <= 0) return;
+
+        volcando = true;
+        volcador = new Thread(() -> {
+            while (volcando) {
+                synchronized (senalVolcador) {
+                    try {
+                        senalVolcador.wait(INTERVALO_METRICAS_S * 1000L);
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                    if (!volcando) return;
+                }
+                volcarMetricas();
+            }
+        }, "volcado-metricas");
+        volcador.setDaemon(true);
+        volcador.start();
+    }
+
+    public void volcarMetricas() {
+        Path temporal = directorio.resolve(METRICAS_FILE + ".tmp");
+        try {
+            Files.write(temporal, metricas.volcar().getBytes(StandardCharsets.UTF_8));
+            Files.move(temporal, directorio.resolve(METRICAS_FILE), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            System.err.println("Error al volcar metricas: " + e.getMessage());
+        }
+    }
+
+    private void detenerVolcador() {
+        if (volcador == null) return;
+        synchronized (senalVolcador) {
+            volcando = false;
+            senalVolcador.notifyAll();
+        }
+        try {
+            volcador.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        volcador = null;
+    }
+
+    // Escribe una instantanea completa y vacia el diario, que ya esta contenido
+    // en ella. Mientras tanto el gestor no admite mutaciones, asi ningun cambio
+    // queda fuera de la instantanea y a la vez descartado del diario.
+    public void compactar() {
+        long comienzo = System.nanoTime();
+        try {
+            gestor.ejecutarSinCambios(() -> {
+                if (!guardarInstantanea()) return;
+                if (diario != null) {
+                    try {
+                        diario.reiniciar();
+                    } catch (IOException e) {
+                        metricas.contarError(Operacion.COMPACTAR, e);
+                        System.err.println("Error al compactar diario: " + e.getMessage());
+                    }
+                }
+            });
+        } finally {
+            metricas.registrar(Operacion.COMPACTAR, comienzo);
+        }
+    }
+
+    // Al salir se exportan tambien los CSV; la instantanea se escribe despues
+    // para que quede como la version mas reciente.
+    public void cerrar() {
+        detenerArchivador();
+        guardarAulas(gestor.getAulas());
+        guardarReservas(gestor.getReservas());
+        guardarSeries(gestor.getSeries());
+        compactar();
+        if (diario != null) {
+            try {
+                diario.cerrar();
+            } catch (IOException e) {
+                System.err.println("Error al cerrar diario: " + e.getMessage());
+            }
+            diario = null;
         }
-        if (reserva != null) {
-            reserva.setEstado(estado); 
+        if (historico != null) {
+            try {
+                historico.cerrar();
+            } catch (IOException e) {
+                System.err.println("Error al cerrar el archivo historico: " + e.getMessage());
+            }
+            historico = null;
+        }
+        if (volcador != null) {
+            detenerVolcador();
+            volcarMetricas();
+        }
+    }
+    
+    private Reserva reconstruirReserva(String line) throws NoEncontradoException {
+        CamposCsv campos = CamposCsv.de(line);
+        return reconstruirReserva(campos, gestor.buscarAulaPorId(campos.texto(2)));
+    }
+
+    static Reserva reconstruirReserva(CamposCsv campos, Aula aula) {
+        String id = campos.texto(1);
+        LocalDate fecha = campos.fecha(3);
+        LocalTime hInicio = campos.hora(4);
+        LocalTime hFin = campos.hora(5);
+        String responsable = campos.texto(6);
+        EstadoReserva estado = campos.enumeracion(7, EstadoReserva.values());
+
+        Reserva reserva = null;
+        if (campos.es(0, "CLASE")) {
+            reserva = new ReservaClase(id, aula, fecha, hInicio, hFin, responsable, campos.texto(8), campos.texto(9));
+        } else if (campos.es(0, "PRACTICA")) {
+            reserva = new ReservaPractica(id, aula, fecha, hInicio, hFin, responsable, campos.texto(8));
+        } else if (campos.es(0, "EVENTO")) {
+            TipoEvento tipoEv = campos.enumeracion(8, TipoEvento.values());
+            int aforo = campos.entero(9);
+            reserva = new ReservaEvento(id, aula, fecha, hInicio, hFin, responsable, tipoEv, aforo);
+        }
+        // Las reservas nacen ACTIVAS; otro estado se aplica con una copia.
+        if (reserva != null && estado != EstadoReserva.ACTIVA) {
+            reserva = reserva.conCambios(null, null, null, null, estado);
         }
         return reserva;
     }
     
+    // SERIE,id,aula,desde,hasta,DIAS;...,inicio,fin,responsable,materia,grupo,EXCEPCIONES;...
+    private SerieReservas reconstruirSerie(CamposCsv campos, Aula aula) {
+        Set<DayOfWeek> dias = EnumSet.noneOf(DayOfWeek.class);
+        for (String dia : campos.texto(5).split(";")) {
+            if (!dia.isEmpty()) dias.add(DayOfWeek.valueOf(dia));
+        }
+        List<LocalDate> excepciones = new ArrayList<>();
+        if (campos.cantidad() > 11) {
+            for (String fecha : campos.texto(11).split(";")) {
+                if (!fecha.isEmpty()) excepciones.add(LocalDate.parse(fecha));
+            }
+        }
+        return new SerieReservas(campos.texto(1), aula, campos.fecha(3), campos.fecha(4), dias,
+                                 campos.hora(6), campos.hora(7), campos.texto(8), campos.texto(9),
+                                 campos.texto(10), excepciones);
+    }
+    
     public void exportarReporte(String nombreReporte, String contenido) {
+        long comienzo = System.nanoTime();
+        EventosReservas.Persistencia evento = EventosReservas.persistencia();
+        boolean exito = false;
         String filename = nombreReporte.replaceAll("\\s+", "_").toLowerCase() + "_" + LocalDate.now() + ".txt";
         try (PrintWriter pw = new PrintWriter(new FileWriter(filename))) {
             pw.println("--- REPORTE ITCA: " + nombreReporte.toUpperCase() + " ---");
@@ -112,8 +522,41 @@ public class PersistenciaUtil {
             pw.println("----------------------------------------");
             pw.println(contenido);
             System.out.println("Reporte exportado exitosamente a: " + filename);
+            exito = true;
         } catch (IOException e) {
+            metricas.contarError(Operacion.EXPORTAR_REPORTE, e);
             System.err.println("Error al exportar reporte: " + e.getMessage());
+        } finally {
+            metricas.registrar(Operacion.EXPORTAR_REPORTE, comienzo);
+            if (evento.grabar()) {
+                terminarEvento(evento, "exportarReporte", Paths.get(filename), 3 + contarLineas(contenido), exito);
+            }
+        }
+    }
+
+    private static int contarLineas(String texto) {
+        int lineas = 1;
+        for (int i = 0; i < texto.length(); i++) {
+            if (texto.charAt(i) == '\n') lineas++;
+        }
+        return lineas;
+    }
+
+    private static <T> List<T> cargado(EventosReservas.Persistencia evento, Path archivo, List<T> filas) {
+        terminarEvento(evento, "cargarCsv", archivo, filas.size(), true);
+        return filas;
+    }
+
+    // El tamano del archivo se consulta solo si el evento se va a grabar.
+    private static void terminarEvento(EventosReservas.Persistencia evento, String operacion, Path archivo,
+                                       long filas, boolean exito) {
+        if (!evento.grabar()) return;
+        long bytes;
+        try {
+            bytes = Files.size(archivo);
+        } catch (IOException e) {
+            bytes = 0;
         }
+        evento.confirmar(operacion, archivo.toString(), bytes, filas, exito);
     }
 }
\ No newline at end of file
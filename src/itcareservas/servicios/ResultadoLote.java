@@ -0,0 +1,56 @@
+package itcareservas.servicios;
+
+import itcareservas.modelo.Reserva;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+// Resultado de GestorReservas.registrarReservas: una entrada por reserva, en
+// el mismo orden en que se recibieron, indicando si se acepto y por que no.
+public class ResultadoLote {
+
+    public static class Item {
+        private final Reserva reserva;
+        private String motivoRechazo;
+
+        Item(Reserva reserva) {
+            this.reserva = reserva;
+        }
+
+        public Reserva getReserva() { return reserva; }
+        public boolean isAceptada() { return motivoRechazo == null; }
+        public String getMotivoRechazo() { return motivoRechazo; }
+
+        void rechazar(String motivo) {
+            this.motivoRechazo = motivo;
+        }
+    }
+
+    private final List<Item> items = new ArrayList<>();
+
+    Item agregar(Reserva reserva) {
+        Item item = new Item(reserva);
+        items.add(item);
+        return item;
+    }
+
+    public List<Item> getItems() {
+        return Collections.unmodifiableList(items);
+    }
+
+    public List<Reserva> getAceptadas() {
+        return items.stream().filter(Item::isAceptada).map(Item::getReserva).collect(Collectors.toList());
+    }
+
+    public List<Item> getRechazadas() {
+        return items.stream().filter(i -> !i.isAceptada()).collect(Collectors.toList());
+    }
+
+    @Override
+    public String toString() {
+        long aceptadas = items.stream().filter(Item::isAceptada).count();
+        return String.format("Aceptadas: %d, Rechazadas: %d", aceptadas, items.size() - aceptadas);
+    }
+}
@@ -0,0 +1,47 @@
+package itcareservas.servicios;
+
+import itcareservas.modelo.Aula;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+
+// Tabla hash de solo lectura para resolver el aula de cada linea del CSV
+// comparando los bytes del campo, sin crear un String por busqueda.
+class TablaAulas {
+    private final byte[][] claves;
+    private final Aula[] aulas;
+    private final int mascara;
+
+    TablaAulas(Collection<Aula> origen) {
+        int capacidad = Integer.highestOneBit(Math.max(origen.size(), 1) * 2) * 2;
+        this.claves = new byte[capacidad][];
+        this.aulas = new Aula[capacidad];
+        this.mascara = capacidad - 1;
+        for (Aula aula : origen) {
+            byte[] clave = aula.getId().getBytes(StandardCharsets.UTF_8);
+            int h = hash(clave) & mascara;
+            while (claves[h] != null) {
+                h = (h + 1) & mascara;
+            }
+            claves[h] = clave;
+            aulas[h] = aula;
+        }
+    }
+
+    Aula buscar(CamposCsv campos, int campo) {
+        int h = campos.hash(campo) & mascara;
+        while (claves[h] != null) {
+            if (campos.igual(campo, claves[h])) return aulas[h];
+            h = (h + 1) & mascara;
+        }
+        return null;
+    }
+
+    private static int hash(byte[] valor) {
+        int h = 1;
+        for (byte b : valor) {
+            h = 31 * h + b;
+        }
+        return h;
+    }
+}
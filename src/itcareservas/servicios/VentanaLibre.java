@@ -0,0 +1,37 @@
+package itcareservas.servicios;
+
+import itcareservas.modelo.Aula;
+import itcareservas.modelo.Reserva;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+
+// Horario libre de un aula con la duracion pedida, lo mas cerca posible de
+// la hora solicitada. Lo devuelve GestorReservas.buscarVentanasLibres.
+public class VentanaLibre {
+    private final Aula aula;
+    private final LocalDate fecha;
+    private final int minutoInicio;
+    private final int minutoFin;
+    private final int distanciaMinutos;
+
+    VentanaLibre(Aula aula, LocalDate fecha, int minutoInicio, int minutoFin, int distanciaMinutos) {
+        this.aula = aula;
+        this.fecha = fecha;
+        this.minutoInicio = minutoInicio;
+        this.minutoFin = minutoFin;
+        this.distanciaMinutos = distanciaMinutos;
+    }
+
+    public Aula getAula() { return aula; }
+    public LocalDate getFecha() { return fecha; }
+    public LocalTime getHoraInicio() { return Reserva.horaDelDia(minutoInicio); }
+    public LocalTime getHoraFin() { return Reserva.horaDelDia(minutoFin); }
+    public int getDistanciaMinutos() { return distanciaMinutos; }
+
+    @Override
+    public String toString() {
+        return String.format("%s (%s) %s de %s a %s", aula.getId(), aula.getNombre(), fecha,
+                             getHoraInicio(), getHoraFin());
+    }
+}
@@ -0,0 +1,158 @@
+package itcareservas.servicios;
+
+import itcareservas.modelo.Reserva;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+// Reservas ya ordenadas por cada criterio de listado (id, fecha y hora,
+// responsable, aula y fecha), mantenidas en cada alta, cambio y baja. Listar
+// no ordena nada, y una pagina se toma con un tailMap a partir del cursor:
+// O(log n + tamano de pagina). Las vistas por fecha y por aula y fecha sirven
+// tambien para consultar un rango de dias con un subMap.
+//
+// El cursor es la clave de orden de la ultima reserva devuelta (no su ID), asi
+// que sigue valiendo aunque esa reserva cambie o se borre entre dos paginas.
+// Las escrituras de una reserva llegan con el cerrojo de su aula tomado; las
+// lecturas no bloquean.
+class VistasOrdenadas {
+    private enum Orden { ID, FECHA, RESPONSABLE, AULA }
+
+    // Se compara por texto, luego por numero y al final por ID, para que
+    // ninguna clave se repita.
+    private static final class Clave implements Comparable<Clave> {
+        final String texto;
+        final long numero;
+        final String id;
+
+        Clave(String texto, long numero, String id) {
+            this.texto = texto;
+            this.numero = numero;
+            this.id = id;
+        }
+
+        @Override
+        public int compareTo(Clave otra) {
+            int c = texto.compareTo(otra.texto);
+            if (c != 0) return c;
+            c = Long.compare(numero, otra.numero);
+            if (c != 0) return c;
+            return id.compareTo(otra.id);
+        }
+
+        String codificar() {
+            String plano = numero + "\0" + id + "\0" + texto;
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(plano.getBytes(StandardCharsets.UTF_8));
+        }
+
+        static Clave decodificar(String cursor) {
+            String plano;
+            try {
+                plano = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Cursor de pagina no valido.");
+            }
+            String[] partes = plano.split("\0", 3);
+            if (partes.length != 3) {
+                throw new IllegalArgumentException("Cursor de pagina no valido.");
+            }
+            try {
+                return new Clave(partes[2], Long.parseLong(partes[0]), partes[1]);
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Cursor de pagina no valido.");
+            }
+        }
+    }
+
+    private final Map<Orden, NavigableMap<Clave, Reserva>> vistas = new EnumMap<>(Orden.class);
+
+    VistasOrdenadas() {
+        for (Orden orden : Orden.values()) {
+            vistas.put(orden, new ConcurrentSkipListMap<>());
+        }
+    }
+
+    // "fecha", "responsable", "aula"; cualquier otro valor ordena por ID.
+    private static Orden orden(String ordenarPor) {
+        switch (ordenarPor == null ? "" : ordenarPor.toLowerCase(Locale.ROOT)) {
+            case "fecha": return Orden.FECHA;
+            case "responsable": return Orden.RESPONSABLE;
+            case "aula": return Orden.AULA;
+            default: return Orden.ID;
+        }
+    }
+
+    private static Clave clave(Orden orden, Reserva reserva) {
+        switch (orden) {
+            case FECHA:
+                return new Clave("", minutoAbsoluto(reserva.getDiaEpoch(), reserva.getMinutoInicio()), reserva.getId());
+            case RESPONSABLE:
+                return new Clave(reserva.getResponsable(), 0, reserva.getId());
+            case AULA:
+                return new Clave(reserva.getAula().getId(), minutoAbsoluto(reserva.getDiaEpoch(), reserva.getMinutoInicio()),
+                                 reserva.getId());
+            default:
+                return new Clave("", 0, reserva.getId());
+        }
+    }
+
+    private static long minutoAbsoluto(int diaEpoch, int minuto) {
+        return (long) diaEpoch * Reserva.MINUTOS_DIA + minuto;
+    }
+
+    void agregar(Reserva reserva) {
+        for (Orden orden : Orden.values()) {
+            vistas.get(orden).put(clave(orden, reserva), reserva);
+        }
+    }
+
+    void quitar(Reserva reserva) {
+        for (Orden orden : Orden.values()) {
+            vistas.get(orden).remove(clave(orden, reserva), reserva);
+        }
+    }
+
+    Collection<Reserva> todas(String ordenarPor) {
+        return vistas.get(orden(ordenarPor)).values();
+    }
+
+    // Reservas de los dias [diaDesde, diaHasta] por fecha y hora; con aulaId
+    // solo las de esa aula. Es una vista en vivo del rango, no una copia.
+    Collection<Reserva> rango(String aulaId, int diaDesde, int diaHasta) {
+        if (diaDesde > diaHasta) return Collections.emptyList();
+        String texto = aulaId == null ? "" : aulaId;
+        Clave desde = new Clave(texto, minutoAbsoluto(diaDesde, 0), "");
+        Clave hasta = new Clave(texto, minutoAbsoluto(diaHasta + 1, 0), "");
+        Orden orden = aulaId == null ? Orden.FECHA : Orden.AULA;
+        return vistas.get(orden).subMap(desde, true, hasta, false).values();
+    }
+
+    PaginaReservas pagina(String ordenarPor, String despuesDe, int limite) {
+        if (limite <= 0) {
+            throw new IllegalArgumentException("El tamano de pagina debe ser mayor que cero.");
+        }
+        NavigableMap<Clave, Reserva> vista = vistas.get(orden(ordenarPor));
+        if (despuesDe != null && !despuesDe.isEmpty()) {
+            vista = vista.tailMap(Clave.decodificar(despuesDe), false);
+        }
+        List<Reserva> reservas = new ArrayList<>(Math.min(limite, 256));
+        Clave ultima = null;
+        Iterator<NavigableMap.Entry<Clave, Reserva>> it = vista.entrySet().iterator();
+        while (it.hasNext() && reservas.size() < limite) {
+            NavigableMap.Entry<Clave, Reserva> entrada = it.next();
+            reservas.add(entrada.getValue());
+            ultima = entrada.getKey();
+        }
+        return new PaginaReservas(reservas, it.hasNext() ? ultima.codificar() : null);
+    }
+}
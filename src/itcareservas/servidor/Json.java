@@ -0,0 +1,248 @@
+package itcareservas.servidor;
+
+import itcareservas.modelo.Aula;
+import itcareservas.modelo.Reserva;
+import itcareservas.modelo.ReservaClase;
+import itcareservas.modelo.ReservaEvento;
+import itcareservas.modelo.ReservaPractica;
+import itcareservas.modelo.SerieReservas;
+import itcareservas.servicios.VentanaLibre;
+
+import java.io.IOException;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.Map;
+
+// Codificacion JSON minima para el servicio: escribe aulas, reservas y mapas
+// directo sobre la salida (sin armar el documento en memoria) y lee los
+// cuerpos de las solicitudes, que son objetos planos de texto y numeros.
+final class Json {
+    private Json() {}
+
+    static void aula(Appendable salida, Aula aula) throws IOException {
+        salida.append("{\"id\":");
+        texto(salida, aula.getId());
+        salida.append(",\"nombre\":");
+        texto(salida, aula.getNombre());
+        salida.append(",\"capacidad\":").append(Integer.toString(aula.getCapacidad()));
+        salida.append(",\"tipo\":\"").append(aula.getTipo().name()).append("\"}");
+    }
+
+    static void reserva(Appendable salida, Reserva reserva) throws IOException {
+        salida.append("{\"id\":");
+        texto(salida, reserva.getId());
+        salida.append(",\"tipo\":\"").append(tipo(reserva)).append('"');
+        salida.append(",\"aulaId\":");
+        texto(salida, reserva.getAula().getId());
+        salida.append(",\"fecha\":\"").append(reserva.getFecha().toString()).append('"');
+        salida.append(",\"horaInicio\":\"").append(reserva.getHoraInicio().toString()).append('"');
+        salida.append(",\"horaFin\":\"").append(reserva.getHoraFin().toString()).append('"');
+        salida.append(",\"responsable\":");
+        texto(salida, reserva.getResponsable());
+        salida.append(",\"estado\":\"").append(reserva.getEstado().name()).append('"');
+        salida.append(",\"version\":").append(Long.toString(reserva.getVersion()));
+        if (reserva instanceof ReservaClase) {
+            ReservaClase clase = (ReservaClase) reserva;
+            salida.append(",\"materia\":");
+            texto(salida, clase.getMateria());
+            salida.append(",\"grupo\":");
+            texto(salida, clase.getGrupo());
+        } else if (reserva instanceof ReservaPractica) {
+            salida.append(",\"equipoNecesario\":");
+            texto(salida, ((ReservaPractica) reserva).getEquipoNecesario());
+        } else if (reserva instanceof ReservaEvento) {
+            ReservaEvento evento = (ReservaEvento) reserva;
+            salida.append(",\"tipoEvento\":\"").append(evento.getTipoEvento().name()).append('"');
+            salida.append(",\"aforoEsperado\":").append(Integer.toString(evento.getAforoEsperado()));
+        }
+        salida.append('}');
+    }
+
+    static void serie(Appendable salida, SerieReservas serie) throws IOException {
+        salida.append("{\"id\":");
+        texto(salida, serie.getId());
+        salida.append(",\"aulaId\":");
+        texto(salida, serie.getAula().getId());
+        salida.append(",\"desde\":\"").append(serie.getDesde().toString()).append('"');
+        salida.append(",\"hasta\":\"").append(serie.getHasta().toString()).append('"');
+        salida.append(",\"dias\":[");
+        boolean primero = true;
+        for (DayOfWeek dia : serie.getDiasSemana()) {
+            if (!primero) salida.append(',');
+            primero = false;
+            salida.append('"').append(dia.name()).append('"');
+        }
+        salida.append("],\"horaInicio\":\"").append(serie.getHoraInicio().toString()).append('"');
+        salida.append(",\"horaFin\":\"").append(serie.getHoraFin().toString()).append('"');
+        salida.append(",\"responsable\":");
+        texto(salida, serie.getResponsable());
+        salida.append(",\"materia\":");
+        texto(salida, serie.getMateria());
+        salida.append(",\"grupo\":");
+        texto(salida, serie.getGrupo());
+        salida.append(",\"excepciones\":[");
+        primero = true;
+        for (LocalDate fecha : serie.getExcepciones()) {
+            if (!primero) salida.append(',');
+            primero = false;
+            salida.append('"').append(fecha.toString()).append('"');
+        }
+        salida.append("],\"ocurrencias\":").append(Integer.toString(serie.contarOcurrencias())).append('}');
+    }
+
+    static void ventana(Appendable salida, VentanaLibre ventana) throws IOException {
+        salida.append("{\"aula\":");
+        aula(salida, ventana.getAula());
+        salida.append(",\"fecha\":\"").append(ventana.getFecha().toString()).append('"');
+        salida.append(",\"horaInicio\":\"").append(ventana.getHoraInicio().toString()).append('"');
+        salida.append(",\"horaFin\":\"").append(ventana.getHoraFin().toString()).append('"');
+        salida.append(",\"distanciaMinutos\":").append(Integer.toString(ventana.getDistanciaMinutos())).append('}');
+    }
+
+    static String tipo(Reserva reserva) {
+        if (reserva instanceof ReservaClase) return "CLASE";
+        if (reserva instanceof ReservaPractica) return "PRACTICA";
+        return "EVENTO";
+    }
+
+    static void mapa(Appendable salida, Map<?, Long> valores) throws IOException {
+        salida.append('{');
+        boolean primero = true;
+        for (Map.Entry<?, Long> entrada : valores.entrySet()) {
+            if (!primero) salida.append(',');
+            primero = false;
+            texto(salida, String.valueOf(entrada.getKey()));
+            salida.append(':').append(Long.toString(entrada.getValue()));
+        }
+        salida.append('}');
+    }
+
+    static void error(Appendable salida, String mensaje) throws IOException {
+        salida.append("{\"error\":");
+        texto(salida, mensaje);
+        salida.append('}');
+    }
+
+    static void texto(Appendable salida, String valor) throws IOException {
+        if (valor == null) {
+            salida.append("null");
+            return;
+        }
+        salida.append('"');
+        for (int i = 0; i < valor.length(); i++) {
+            char c = valor.charAt(i);
+            switch (c) {
+                case '"': salida.append("\\\""); break;
+                case '\\': salida.append("\\\\"); break;
+                case '\n': salida.append("\\n"); break;
+                case '\r': salida.append("\\r"); break;
+                case '\t': salida.append("\\t"); break;
+                default:
+                    if (c < 0x20) {
+                        salida.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        salida.append(c);
+                    }
+            }
+        }
+        salida.append('"');
+    }
+
+    // Lee un objeto plano {"clave": valor, ...}. Los valores se devuelven como
+    // texto (null para null); objetos y listas anidados no se aceptan.
+    static Map<String, String> leerObjeto(String cuerpo) {
+        Lector lector = new Lector(cuerpo);
+        Map<String, String> valores = new HashMap<>();
+        lector.esperar('{');
+        if (!lector.consumir('}')) {
+            do {
+                String clave = lector.cadena();
+                lector.esperar(':');
+                valores.put(clave, lector.valor());
+            } while (lector.consumir(','));
+            lector.esperar('}');
+        }
+        lector.saltarEspacios();
+        if (!lector.fin()) {
+            throw new IllegalArgumentException("Contenido sobrante despues del objeto JSON");
+        }
+        return valores;
+    }
+
+    private static final class Lector {
+        private final String texto;
+        private int pos;
+
+        Lector(String texto) {
+            this.texto = texto;
+        }
+
+        boolean fin() {
+            return pos >= texto.length();
+        }
+
+        void saltarEspacios() {
+            while (!fin() && Character.isWhitespace(texto.charAt(pos))) pos++;
+        }
+
+        boolean consumir(char c) {
+            saltarEspacios();
+            if (!fin() && texto.charAt(pos) == c) {
+                pos++;
+                return true;
+            }
+            return false;
+        }
+
+        void esperar(char c) {
+            if (!consumir(c)) {
+                throw new IllegalArgumentException("JSON no valido: se esperaba '" + c + "' en la posicion " + pos);
+            }
+        }
+
+        String valor() {
+            saltarEspacios();
+            if (fin()) throw new IllegalArgumentException("JSON no valido: falta un valor");
+            char c = texto.charAt(pos);
+            if (c == '"') return cadena();
+            int inicio = pos;
+            while (!fin() && ",}] \t\r\n".indexOf(texto.charAt(pos)) < 0) pos++;
+            String literal = texto.substring(inicio, pos);
+            if (literal.equals("null")) return null;
+            if (literal.equals("true") || literal.equals("false") || literal.matches("-?\\d+(\\.\\d+)?")) {
+                return literal;
+            }
+            throw new IllegalArgumentException("JSON no valido: valor '" + literal + "'");
+        }
+
+        String cadena() {
+            esperar('"');
+            StringBuilder sb = new StringBuilder();
+            while (true) {
+                if (fin()) throw new IllegalArgumentException("JSON no valido: texto sin cerrar");
+                char c = texto.charAt(pos++);
+                if (c == '"') return sb.toString();
+                if (c != '\\') {
+                    sb.append(c);
+                    continue;
+                }
+                if (fin()) throw new IllegalArgumentException("JSON no valido: escape incompleto");
+                char e = texto.charAt(pos++);
+                switch (e) {
+                    case 'n': sb.append('\n'); break;
+                    case 'r': sb.append('\r'); break;
+                    case 't': sb.append('\t'); break;
+                    case 'b': sb.append('\b'); break;
+                    case 'f': sb.append('\f'); break;
+                    case 'u':
+                        if (pos + 4 > texto.length()) throw new IllegalArgumentException("JSON no valido: escape \\u incompleto");
+                        sb.append((char) Integer.parseInt(texto.substring(pos, pos + 4), 16));
+                        pos += 4;
+                        break;
+                    default: sb.append(e);
+                }
+            }
+        }
+    }
+}
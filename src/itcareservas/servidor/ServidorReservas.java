@@ -0,0 +1,664 @@
+package itcareservas.servidor;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import itcareservas.excepciones.ConflictoHorarioException;
+import itcareservas.excepciones.NoEncontradoException;
+import itcareservas.excepciones.ReglaNegocioException;
+import itcareservas.excepciones.VersionObsoletaException;
+import itcareservas.modelo.Aula;
+import itcareservas.modelo.Reserva;
+import itcareservas.modelo.ReservaClase;
+import itcareservas.modelo.ReservaEvento;
+import itcareservas.modelo.ReservaPractica;
+import itcareservas.modelo.SerieReservas;
+import itcareservas.modelo.Validable;
+import itcareservas.servicios.GestorReservas;
+import itcareservas.servicios.PaginaReservas;
+import itcareservas.servicios.VentanaLibre;
+import itcareservasmodelo.enums.TipoAula;
+import itcareservasmodelo.enums.TipoEvento;
+
+import java.io.BufferedWriter;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UnsupportedEncodingException;
+import java.io.Writer;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.DateTimeException;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+// Servicio HTTP/JSON sobre GestorReservas, con el servidor HTTP del JDK.
+//
+//   GET    /aulas                    GET /aulas/{id}
+//   POST   /aulas                    PUT /aulas/{id}       DELETE /aulas/{id}
+//   GET    /aulas/{id}/ocupacion?fecha=yyyy-MM-dd
+//   GET    /aulas/{id}/calendario?fecha=yyyy-MM-dd   (semana de lunes a domingo)
+//   GET    /reservas?aula=&responsable=&orden=
+//   GET    /reservas?desde=&hasta=[&aula=]   (por fecha y hora)
+//   GET    /agenda?fecha=
+//   GET    /reservas?orden=&limite=&despues=   (pagina: {"reservas":[...],"siguiente":cursor})
+//   GET    /responsables?prefijo=&limite=   (autocompletar)
+//   POST   /reservas                 GET /reservas/{id}
+//   PUT    /reservas/{id}            (If-Match: version esperada, opcional)
+//   POST   /reservas/{id}/cancelar   DELETE /reservas/{id}
+//   GET    /reportes/top-aulas | horas-por-tipo-aula | distribucion-por-tipo
+//   GET    /disponibilidad?fecha=&horaInicio=&horaFin=&tipo=&capacidad=
+//   GET    /series                   POST /series          GET /series/{id}
+//   DELETE /series/{id}              POST /series/{id}/excepciones
+//   GET    /series/{id}/ocurrencias?desde=&hasta=
+//
+// Cada solicitud corre en su propio hilo virtual cuando la JVM los tiene
+// (Java 21+); si no, en un pool fijo de hilos de plataforma. Los listados se
+// escriben a medida que se recorren, con transferencia por partes, y cada
+// solicitud deja una linea con su latencia en el log "itcareservas.servidor".
+public class ServidorReservas {
+    private static final Logger LOG = Logger.getLogger("itcareservas.servidor");
+    private static final int HILOS_PLATAFORMA = 256;
+    private static final int COLA_CONEXIONES = 1024;
+    private static final int BUFFER_SALIDA = 16 * 1024;
+    private static final int MAX_CUERPO = 64 * 1024;
+    private static final int VENTANAS_SUGERIDAS = 5;
+    private static final int SUGERENCIAS = 10;
+    private static final String JSON = "application/json; charset=utf-8";
+
+    @FunctionalInterface
+    private interface Ruta {
+        void atender(HttpExchange intercambio, String[] segmentos) throws Exception;
+    }
+
+    @FunctionalInterface
+    private interface EscritorElemento<T> {
+        void escribir(Appendable salida, T elemento) throws IOException;
+    }
+
+    private final GestorReservas gestor;
+    private final HttpServer servidor;
+    private final ExecutorService ejecutor;
+
+    public ServidorReservas(GestorReservas gestor, int puerto) throws IOException {
+        this.gestor = gestor;
+        this.servidor = HttpServer.create(new InetSocketAddress(puerto), COLA_CONEXIONES);
+        this.ejecutor = crearEjecutor();
+        servidor.setExecutor(ejecutor);
+        servidor.createContext("/aulas", manejador("/aulas", this::aulas));
+        servidor.createContext("/reservas", manejador("/reservas", this::reservas));
+        servidor.createContext("/reportes", manejador("/reportes", this::reportes));
+        servidor.createContext("/disponibilidad", manejador("/disponibilidad", this::disponibilidad));
+        servidor.createContext("/series", manejador("/series", this::series));
+        servidor.createContext("/agenda", manejador("/agenda", this::agenda));
+        servidor.createContext("/responsables", manejador("/responsables", this::responsables));
+    }
+
+    public void iniciar() {
+        servidor.start();
+    }
+
+    public int getPuerto() {
+        return servidor.getAddress().getPort();
+    }
+
+    // Deja de aceptar conexiones y espera hasta 'segundos' a las solicitudes en curso.
+    public void detener(int segundos) {
+        servidor.stop(segundos);
+        ejecutor.shutdown();
+        try {
+            ejecutor.awaitTermination(segundos, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // Executors.newVirtualThreadPerTaskExecutor existe desde Java 21; se busca
+    // por reflexion para seguir compilando y corriendo en versiones anteriores.
+    private static ExecutorService crearEjecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            AtomicInteger contador = new AtomicInteger();
+            return Executors.newFixedThreadPool(HILOS_PLATAFORMA, tarea -> {
+                Thread hilo = new Thread(tarea, "http-reservas-" + contador.incrementAndGet());
+                hilo.setDaemon(true);
+                return hilo;
+            });
+        }
+    }
+
+    private HttpHandler manejador(String contexto, Ruta ruta) {
+        return intercambio -> {
+            long inicio = System.nanoTime();
+            try {
+                ruta.atender(intercambio, segmentos(intercambio.getRequestURI().getPath(), contexto));
+            } catch (NoEncontradoException e) {
+                responderError(intercambio, 404, e.getMessage());
+            } catch (VersionObsoletaException e) {
+                intercambio.getResponseHeaders().set("ETag", etiqueta(e.getVersionActual()));
+                responderError(intercambio, 412, e.getMessage());
+            } catch (ConflictoHorarioException e) {
+                responderError(intercambio, 409, e.getMessage());
+            } catch (ReglaNegocioException e) {
+                responderError(intercambio, 422, e.getMessage());
+            } catch (IllegalArgumentException | DateTimeException e) {
+                responderError(intercambio, 400, e.getMessage());
+            } catch (Exception e) {
+                LOG.log(Level.SEVERE, "Error al atender " + intercambio.getRequestURI(), e);
+                responderError(intercambio, 500, "Error interno del servidor");
+            } finally {
+                intercambio.close();
+                if (LOG.isLoggable(Level.INFO)) {
+                    LOG.info(String.format("%s %s %d %.3f ms", intercambio.getRequestMethod(),
+                                           intercambio.getRequestURI(), intercambio.getResponseCode(),
+                                           (System.nanoTime() - inicio) / 1_000_000.0));
+                }
+            }
+        };
+    }
+
+    private static String[] segmentos(String ruta, String contexto) {
+        String resto = ruta.substring(contexto.length());
+        while (resto.startsWith("/")) resto = resto.substring(1);
+        while (resto.endsWith("/")) resto = resto.substring(0, resto.length() - 1);
+        return resto.isEmpty() ? new String[0] : resto.split("/");
+    }
+
+    // AULAS
+
+    private void aulas(HttpExchange intercambio, String[] segmentos) throws Exception {
+        String metodo = intercambio.getRequestMethod();
+        if (segmentos.length == 0) {
+            switch (metodo) {
+                case "GET": responderLista(intercambio, gestor.listarAulas(), Json::aula); return;
+                case "POST": crearAula(intercambio); return;
+            }
+        } else if (segmentos.length == 1) {
+            String id = segmentos[0].toUpperCase();
+            switch (metodo) {
+                case "GET": responderAula(intercambio, 200, gestor.buscarAulaPorId(id)); return;
+                case "PUT": modificarAula(intercambio, id); return;
+                case "DELETE": gestor.eliminarAula(id); responderVacio(intercambio); return;
+            }
+        } else if (segmentos.length == 2 && segmentos[1].equals("ocupacion") && metodo.equals("GET")) {
+            String id = segmentos[0].toUpperCase();
+            String fecha = requerido(parametros(intercambio), "fecha");
+            double porcentaje = gestor.reporteOcupacionDia(id, LocalDate.parse(fecha));
+            StringBuilder cuerpo = new StringBuilder("{\"aulaId\":");
+            Json.texto(cuerpo, id);
+            cuerpo.append(",\"fecha\":\"").append(fecha).append("\",\"porcentaje\":").append(porcentaje).append('}');
+            responder(intercambio, 200, cuerpo);
+            return;
+        } else if (segmentos.length == 2 && segmentos[1].equals("calendario") && metodo.equals("GET")) {
+            Map<LocalDate, List<Reserva>> semana = gestor.calendarioSemanal(
+                segmentos[0].toUpperCase(), LocalDate.parse(requerido(parametros(intercambio), "fecha")));
+            StringBuilder cuerpo = new StringBuilder("{");
+            boolean primerDia = true;
+            for (Map.Entry<LocalDate, List<Reserva>> dia : semana.entrySet()) {
+                if (!primerDia) cuerpo.append(',');
+                primerDia = false;
+                cuerpo.append('"').append(dia.getKey().toString()).append("\":[");
+                boolean primera = true;
+                for (Reserva reserva : dia.getValue()) {
+                    if (!primera) cuerpo.append(',');
+                    primera = false;
+                    Json.reserva(cuerpo, reserva);
+                }
+                cuerpo.append(']');
+            }
+            responder(intercambio, 200, cuerpo.append('}'));
+            return;
+        }
+        responderNoPermitido(intercambio);
+    }
+
+    private void crearAula(HttpExchange intercambio) throws Exception {
+        Map<String, String> datos = leerCuerpo(intercambio);
+        Aula aula = new Aula(texto(datos, "id").toUpperCase(), texto(datos, "nombre"),
+                             Integer.parseInt(requerido(datos, "capacidad")),
+                             TipoAula.valueOf(requerido(datos, "tipo").toUpperCase()));
+        if (aula.getCapacidad() <= 0) {
+            throw new IllegalArgumentException("La capacidad debe ser mayor que cero.");
+        }
+        if (!gestor.registrarAula(aula)) {
+            responderError(intercambio, 409, "Aula con ID " + aula.getId() + " ya existe.");
+            return;
+        }
+        intercambio.getResponseHeaders().set("Location", "/aulas/" + aula.getId());
+        responderAula(intercambio, 201, aula);
+    }
+
+    private void modificarAula(HttpExchange intercambio, String id) throws Exception {
+        Map<String, String> datos = leerCuerpo(intercambio);
+        String capacidad = datos.get("capacidad");
+        String tipo = datos.get("tipo");
+        String nombre = datos.get("nombre");
+        if (!Validable.esTextoPlano(nombre)) {
+            throw new IllegalArgumentException(mensajeTextoNoPlano("nombre"));
+        }
+        gestor.modificarAula(id, nombre,
+                             capacidad == null ? null : Integer.valueOf(capacidad),
+                             tipo == null ? null : TipoAula.valueOf(tipo.toUpperCase()));
+        responderAula(intercambio, 200, gestor.buscarAulaPorId(id));
+    }
+
+    // RESERVAS
+
+    private void reservas(HttpExchange intercambio, String[] segmentos) throws Exception {
+        String metodo = intercambio.getRequestMethod();
+        if (segmentos.length == 0) {
+            switch (metodo) {
+                case "GET": listarReservas(intercambio); return;
+                case "POST": crearReserva(intercambio); return;
+            }
+        } else if (segmentos.length == 1) {
+            String id = segmentos[0];
+            switch (metodo) {
+                case "GET": responderReserva(intercambio, 200, gestor.buscarReservaPorId(id)); return;
+                case "PUT": modificarReserva(intercambio, id); return;
+                case "DELETE": gestor.eliminarReserva(id); responderVacio(intercambio); return;
+            }
+        } else if (segmentos.length == 2 && segmentos[1].equals("cancelar") && metodo.equals("POST")) {
+            gestor.cancelarReserva(segmentos[0]);
+            responderReserva(intercambio, 200, gestor.buscarReservaPorId(segmentos[0]));
+            return;
+        }
+        responderNoPermitido(intercambio);
+    }
+
+    // Sin filtros ni orden se recorre la vista en vivo de GestorReservas, sin copiarla.
+    private void listarReservas(HttpExchange intercambio) throws IOException {
+        Map<String, String> parametros = parametros(intercambio);
+        String aulaId = parametros.get("aula");
+        String responsable = parametros.get("responsable");
+        String orden = parametros.get("orden");
+        String limite = parametros.get("limite");
+
+        String desde = parametros.get("desde");
+        String hasta = parametros.get("hasta");
+        if (desde != null || hasta != null) {
+            LocalDate inicio = LocalDate.parse(requerido(parametros, "desde"));
+            LocalDate fin = LocalDate.parse(requerido(parametros, "hasta"));
+            Stream<Reserva> rango = aulaId == null ? gestor.reservasEntre(inicio, fin)
+                                                   : gestor.reservasEntre(aulaId.toUpperCase(), inicio, fin);
+            responderLista(intercambio, rango::iterator, Json::reserva);
+            return;
+        }
+        if (limite != null && aulaId == null && responsable == null) {
+            PaginaReservas pagina = gestor.listarReservas(orden, parametros.get("despues"), Integer.parseInt(limite));
+            StringBuilder cuerpo = new StringBuilder("{\"reservas\":[");
+            boolean primero = true;
+            for (Reserva reserva : pagina.getReservas()) {
+                if (!primero) cuerpo.append(',');
+                primero = false;
+                Json.reserva(cuerpo, reserva);
+            }
+            cuerpo.append("],\"siguiente\":");
+            Json.texto(cuerpo, pagina.getSiguiente());
+            responder(intercambio, 200, cuerpo.append('}'));
+            return;
+        }
+
+        Collection<Reserva> lista;
+        if (aulaId != null && responsable != null) {
+            String aula = aulaId.toUpperCase();
+            lista = gestor.buscarPorResponsable(responsable).stream()
+                          .filter(r -> r.getAula().getId().equals(aula))
+                          .collect(Collectors.toList());
+        } else if (aulaId != null) {
+            lista = gestor.buscarReservasPorAula(aulaId.toUpperCase());
+        } else if (responsable != null) {
+            lista = gestor.buscarPorResponsable(responsable);
+        } else if (orden != null) {
+            lista = gestor.listarReservas(orden);
+        } else {
+            lista = gestor.getReservas();
+        }
+        responderLista(intercambio, lista, Json::reserva);
+    }
+
+    private void crearReserva(HttpExchange intercambio) throws Exception {
+        Map<String, String> datos = leerCuerpo(intercambio);
+        String id = UUID.randomUUID().toString().substring(0, 8).toUpperCase();
+        Aula aula = gestor.buscarAulaPorId(requerido(datos, "aulaId").toUpperCase());
+        LocalDate fecha = LocalDate.parse(requerido(datos, "fecha"));
+        LocalTime horaInicio = LocalTime.parse(requerido(datos, "horaInicio"));
+        LocalTime horaFin = LocalTime.parse(requerido(datos, "horaFin"));
+        String responsable = texto(datos, "responsable");
+
+        Reserva reserva;
+        switch (requerido(datos, "tipo").toUpperCase()) {
+            case "CLASE":
+                reserva = new ReservaClase(id, aula, fecha, horaInicio, horaFin, responsable,
+                                           texto(datos, "materia"), texto(datos, "grupo"));
+                break;
+            case "PRACTICA":
+                reserva = new ReservaPractica(id, aula, fecha, horaInicio, horaFin, responsable,
+                                              texto(datos, "equipoNecesario"));
+                break;
+            case "EVENTO":
+                reserva = new ReservaEvento(id, aula, fecha, horaInicio, horaFin, responsable,
+                                            TipoEvento.valueOf(requerido(datos, "tipoEvento").toUpperCase()),
+                                            Integer.parseInt(requerido(datos, "aforoEsperado")));
+                break;
+            default:
+                throw new IllegalArgumentException("Tipo de reserva no valido (CLASE, PRACTICA, EVENTO).");
+        }
+        gestor.registrarReserva(reserva);
+        intercambio.getResponseHeaders().set("Location", "/reservas/" + id);
+        responderReserva(intercambio, 201, reserva);
+    }
+
+    // La version esperada llega en If-Match (la ETag de un GET previo) o en el
+    // campo "version"; sin ninguna de las dos se aplica sobre la version vigente.
+    private void modificarReserva(HttpExchange intercambio, String id) throws Exception {
+        Map<String, String> datos = leerCuerpo(intercambio);
+        String esperada = intercambio.getRequestHeaders().getFirst("If-Match");
+        if (esperada == null) {
+            esperada = datos.get("version");
+        }
+        long version = -1;
+        if (esperada != null && !esperada.trim().equals("*")) {
+            version = Long.parseLong(esperada.trim().replace("W/", "").replace("\"", ""));
+        }
+        String fecha = datos.get("fecha");
+        String horaInicio = datos.get("horaInicio");
+        String horaFin = datos.get("horaFin");
+        String aulaId = datos.get("aulaId");
+        gestor.modificarReserva(id, version,
+                                fecha == null ? null : LocalDate.parse(fecha),
+                                horaInicio == null ? null : LocalTime.parse(horaInicio),
+                                horaFin == null ? null : LocalTime.parse(horaFin),
+                                aulaId == null ? null : aulaId.toUpperCase());
+        responderReserva(intercambio, 200, gestor.buscarReservaPorId(id));
+    }
+
+    // REPORTES
+
+    private void reportes(HttpExchange intercambio, String[] segmentos) throws Exception {
+        if (segmentos.length != 1 || !intercambio.getRequestMethod().equals("GET")) {
+            responderNoPermitido(intercambio);
+            return;
+        }
+        Map<?, Long> reporte;
+        switch (segmentos[0]) {
+            case "top-aulas": reporte = gestor.reporteTopAulasPorHoras(); break;
+            case "horas-por-tipo-aula": reporte = gestor.reporteHorasPorTipoAula(); break;
+            case "distribucion-por-tipo": reporte = gestor.reporteDistribucionPorTipo(); break;
+            default: throw new NoEncontradoException("Reporte no encontrado: " + segmentos[0]);
+        }
+        StringBuilder cuerpo = new StringBuilder();
+        Json.mapa(cuerpo, reporte);
+        responder(intercambio, 200, cuerpo);
+    }
+
+    // DISPONIBILIDAD
+
+    // Aulas libres en el horario pedido; si no hay ninguna, los horarios libres
+    // mas cercanos en las aulas que cumplen tipo y capacidad.
+    private void disponibilidad(HttpExchange intercambio, String[] segmentos) throws Exception {
+        if (segmentos.length != 0 || !intercambio.getRequestMethod().equals("GET")) {
+            responderNoPermitido(intercambio);
+            return;
+        }
+        Map<String, String> parametros = parametros(intercambio);
+        LocalDate fecha = LocalDate.parse(requerido(parametros, "fecha"));
+        LocalTime horaInicio = LocalTime.parse(requerido(parametros, "horaInicio"));
+        LocalTime horaFin = LocalTime.parse(requerido(parametros, "horaFin"));
+        String tipo = parametros.get("tipo");
+        String capacidad = parametros.get("capacidad");
+        TipoAula tipoAula = tipo == null || tipo.isEmpty() ? null : TipoAula.valueOf(tipo.toUpperCase());
+        int capacidadMinima = capacidad == null || capacidad.isEmpty() ? 0 : Integer.parseInt(capacidad);
+
+        StringBuilder cuerpo = new StringBuilder("{\"aulas\":[");
+        List<Aula> libres = gestor.buscarAulasDisponibles(fecha, horaInicio, horaFin, tipoAula, capacidadMinima);
+        for (int i = 0; i < libres.size(); i++) {
+            if (i > 0) cuerpo.append(',');
+            Json.aula(cuerpo, libres.get(i));
+        }
+        cuerpo.append("],\"ventanas\":[");
+        if (libres.isEmpty()) {
+            List<VentanaLibre> ventanas = gestor.buscarVentanasLibres(fecha, horaInicio, horaFin, tipoAula,
+                                                                     capacidadMinima, VENTANAS_SUGERIDAS);
+            for (int i = 0; i < ventanas.size(); i++) {
+                if (i > 0) cuerpo.append(',');
+                Json.ventana(cuerpo, ventanas.get(i));
+            }
+        }
+        cuerpo.append("]}");
+        responder(intercambio, 200, cuerpo);
+    }
+
+    private void agenda(HttpExchange intercambio, String[] segmentos) throws Exception {
+        if (segmentos.length != 0 || !intercambio.getRequestMethod().equals("GET")) {
+            responderNoPermitido(intercambio);
+            return;
+        }
+        LocalDate fecha = LocalDate.parse(requerido(parametros(intercambio), "fecha"));
+        responderLista(intercambio, gestor.agendaDelDia(fecha), Json::reserva);
+    }
+
+    private void responsables(HttpExchange intercambio, String[] segmentos) throws Exception {
+        if (segmentos.length != 0 || !intercambio.getRequestMethod().equals("GET")) {
+            responderNoPermitido(intercambio);
+            return;
+        }
+        Map<String, String> parametros = parametros(intercambio);
+        String limite = parametros.get("limite");
+        List<String> nombres = gestor.sugerirResponsables(requerido(parametros, "prefijo"),
+                                                          limite == null ? SUGERENCIAS : Integer.parseInt(limite));
+        responderLista(intercambio, nombres, Json::texto);
+    }
+
+    // SERIES
+
+    private void series(HttpExchange intercambio, String[] segmentos) throws Exception {
+        String metodo = intercambio.getRequestMethod();
+        if (segmentos.length == 0) {
+            switch (metodo) {
+                case "GET": responderLista(intercambio, gestor.listarSeries(), Json::serie); return;
+                case "POST": crearSerie(intercambio); return;
+            }
+        } else if (segmentos.length == 1) {
+            String id = segmentos[0].toUpperCase();
+            switch (metodo) {
+                case "GET": responderSerie(intercambio, 200, gestor.buscarSeriePorId(id)); return;
+                case "DELETE": gestor.eliminarSerie(id); responderVacio(intercambio); return;
+            }
+        } else if (segmentos.length == 2 && segmentos[1].equals("excepciones") && metodo.equals("POST")) {
+            String id = segmentos[0].toUpperCase();
+            gestor.cancelarOcurrencia(id, LocalDate.parse(requerido(leerCuerpo(intercambio), "fecha")));
+            responderSerie(intercambio, 200, gestor.buscarSeriePorId(id));
+            return;
+        } else if (segmentos.length == 2 && segmentos[1].equals("ocurrencias") && metodo.equals("GET")) {
+            SerieReservas serie = gestor.buscarSeriePorId(segmentos[0].toUpperCase());
+            Map<String, String> parametros = parametros(intercambio);
+            String desde = parametros.get("desde");
+            String hasta = parametros.get("hasta");
+            Stream<ReservaClase> ocurrencias = serie.ocurrencias(
+                desde == null ? serie.getDesde() : LocalDate.parse(desde),
+                hasta == null ? serie.getHasta() : LocalDate.parse(hasta));
+            responderLista(intercambio, ocurrencias::iterator, Json::reserva);
+            return;
+        }
+        responderNoPermitido(intercambio);
+    }
+
+    // Los dias van como "MONDAY,WEDNESDAY" y las excepciones como fechas separadas por coma.
+    private void crearSerie(HttpExchange intercambio) throws Exception {
+        Map<String, String> datos = leerCuerpo(intercambio);
+        String id = "S" + UUID.randomUUID().toString().substring(0, 7).toUpperCase();
+        Aula aula = gestor.buscarAulaPorId(requerido(datos, "aulaId").toUpperCase());
+        Set<DayOfWeek> dias = EnumSet.noneOf(DayOfWeek.class);
+        for (String dia : requerido(datos, "dias").split(",")) {
+            if (!dia.trim().isEmpty()) dias.add(DayOfWeek.valueOf(dia.trim().toUpperCase()));
+        }
+        List<LocalDate> excepciones = new ArrayList<>();
+        String fechas = datos.get("excepciones");
+        if (fechas != null) {
+            for (String fecha : fechas.split(",")) {
+                if (!fecha.trim().isEmpty()) excepciones.add(LocalDate.parse(fecha.trim()));
+            }
+        }
+        SerieReservas serie = new SerieReservas(id, aula, LocalDate.parse(requerido(datos, "desde")),
+                                                LocalDate.parse(requerido(datos, "hasta")), dias,
+                                                LocalTime.parse(requerido(datos, "horaInicio")),
+                                                LocalTime.parse(requerido(datos, "horaFin")),
+                                                texto(datos, "responsable"), texto(datos, "materia"),
+                                                texto(datos, "grupo"), excepciones);
+        gestor.registrarSerie(serie);
+        intercambio.getResponseHeaders().set("Location", "/series/" + id);
+        responderSerie(intercambio, 201, serie);
+    }
+
+    // SOLICITUD
+
+    private static Map<String, String> leerCuerpo(HttpExchange intercambio) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        byte[] buffer = new byte[4096];
+        try (InputStream entrada = intercambio.getRequestBody()) {
+            int leidos;
+            while ((leidos = entrada.read(buffer)) > 0) {
+                bytes.write(buffer, 0, leidos);
+                if (bytes.size() > MAX_CUERPO) {
+                    throw new IllegalArgumentException("El cuerpo de la solicitud excede " + MAX_CUERPO + " bytes.");
+                }
+            }
+        }
+        if (bytes.size() == 0) {
+            return Collections.emptyMap();
+        }
+        return Json.leerObjeto(new String(bytes.toByteArray(), StandardCharsets.UTF_8));
+    }
+
+    private static Map<String, String> parametros(HttpExchange intercambio) throws UnsupportedEncodingException {
+        Map<String, String> parametros = new HashMap<>();
+        String consulta = intercambio.getRequestURI().getRawQuery();
+        if (consulta == null || consulta.isEmpty()) return parametros;
+        for (String par : consulta.split("&")) {
+            int igual = par.indexOf('=');
+            if (igual <= 0) continue;
+            parametros.put(URLDecoder.decode(par.substring(0, igual), "UTF-8"),
+                           URLDecoder.decode(par.substring(igual + 1), "UTF-8"));
+        }
+        return parametros;
+    }
+
+    private static String requerido(Map<String, String> datos, String campo) {
+        String valor = datos.get(campo);
+        if (valor == null || valor.trim().isEmpty()) {
+            throw new IllegalArgumentException("Falta el campo '" + campo + "'.");
+        }
+        return valor.trim();
+    }
+
+    // Texto que se guarda en los CSV y el diario: se rechaza con 400 antes de
+    // llegar al gestor (ver Validable.esTextoPlano).
+    private static String texto(Map<String, String> datos, String campo) {
+        String valor = requerido(datos, campo);
+        if (!Validable.esTextoPlano(valor)) {
+            throw new IllegalArgumentException(mensajeTextoNoPlano(campo));
+        }
+        return valor;
+    }
+
+    private static String mensajeTextoNoPlano(String campo) {
+        return "El campo '" + campo + "' no puede contener ',', '|' ni saltos de linea.";
+    }
+
+    // RESPUESTA
+
+    private static String etiqueta(long version) {
+        return "\"" + version + "\"";
+    }
+
+    private static void responderAula(HttpExchange intercambio, int estado, Aula aula) throws IOException {
+        StringBuilder cuerpo = new StringBuilder();
+        Json.aula(cuerpo, aula);
+        responder(intercambio, estado, cuerpo);
+    }
+
+    private static void responderReserva(HttpExchange intercambio, int estado, Reserva reserva) throws IOException {
+        StringBuilder cuerpo = new StringBuilder();
+        Json.reserva(cuerpo, reserva);
+        intercambio.getResponseHeaders().set("ETag", etiqueta(reserva.getVersion()));
+        responder(intercambio, estado, cuerpo);
+    }
+
+    private static void responderSerie(HttpExchange intercambio, int estado, SerieReservas serie) throws IOException {
+        StringBuilder cuerpo = new StringBuilder();
+        Json.serie(cuerpo, serie);
+        responder(intercambio, estado, cuerpo);
+    }
+
+    // Escribe los elementos a medida que se recorren; la respuesta va por
+    // partes, sin armar el documento completo en memoria.
+    private static <T> void responderLista(HttpExchange intercambio, Iterable<T> elementos,
+                                           EscritorElemento<T> escritor) throws IOException {
+        intercambio.getResponseHeaders().set("Content-Type", JSON);
+        intercambio.sendResponseHeaders(200, 0);
+        try (Writer salida = new BufferedWriter(
+                new OutputStreamWriter(intercambio.getResponseBody(), StandardCharsets.UTF_8), BUFFER_SALIDA)) {
+            salida.write('[');
+            boolean primero = true;
+            for (T elemento : elementos) {
+                if (!primero) salida.write(',');
+                primero = false;
+                escritor.escribir(salida, elemento);
+            }
+            salida.write(']');
+        }
+    }
+
+    private static void responder(HttpExchange intercambio, int estado, CharSequence cuerpo) throws IOException {
+        byte[] bytes = cuerpo.toString().getBytes(StandardCharsets.UTF_8);
+        intercambio.getResponseHeaders().set("Content-Type", JSON);
+        intercambio.sendResponseHeaders(estado, bytes.length);
+        try (OutputStream salida = intercambio.getResponseBody()) {
+            salida.write(bytes);
+        }
+    }
+
+    private static void responderVacio(HttpExchange intercambio) throws IOException {
+        intercambio.sendResponseHeaders(204, -1);
+    }
+
+    private static void responderNoPermitido(HttpExchange intercambio) throws IOException {
+        responderError(intercambio, 405, "Metodo " + intercambio.getRequestMethod() + " no permitido en "
+                                         + intercambio.getRequestURI().getPath());
+    }
+
+    // Si la respuesta ya empezo (un listado que fallo a mitad), solo queda cerrarla.
+    private static void responderError(HttpExchange intercambio, int estado, String mensaje) {
+        if (intercambio.getResponseCode() != -1) return;
+        try {
+            StringBuilder cuerpo = new StringBuilder();
+            Json.error(cuerpo, mensaje == null ? "Error" : mensaje);
+            responder(intercambio, estado, cuerpo);
+        } catch (IOException e) {
+            LOG.log(Level.FINE, "No se pudo enviar la respuesta de error", e);
+        }
+    }
+}
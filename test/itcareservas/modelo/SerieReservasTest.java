@@ -0,0 +1,101 @@
+package itcareservas.modelo;
+
+import itcareservas.excepciones.ReglaNegocioException;
+import itcareservasmodelo.enums.TipoAula;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class SerieReservasTest {
+    private static final LocalDate INICIO = LocalDate.of(2025, 3, 3);
+    private final Aula aula = new Aula("A1", "Aula 1", 30, TipoAula.TEORICA);
+
+    private SerieReservas serie(String id, LocalDate desde, LocalDate hasta, Set<DayOfWeek> dias,
+                                List<LocalDate> excepciones) {
+        return new SerieReservas(id, aula, desde, hasta, dias, LocalTime.of(8, 0), LocalTime.of(10, 0),
+                                 "Ana", "Mat", "G1", excepciones);
+    }
+
+    @Test
+    public void contarOcurrenciasCoincideConRecorrerDiaPorDia() {
+        Random azar = new Random(7);
+        DayOfWeek[] semana = DayOfWeek.values();
+        for (int caso = 0; caso < 500; caso++) {
+            LocalDate desde = INICIO.plusDays(azar.nextInt(60));
+            LocalDate hasta = desde.plusDays(azar.nextInt(120));
+            Set<DayOfWeek> dias = EnumSet.noneOf(DayOfWeek.class);
+            for (DayOfWeek dia : semana) {
+                if (azar.nextBoolean()) dias.add(dia);
+            }
+            List<LocalDate> excepciones = new ArrayList<>();
+            for (int i = azar.nextInt(4); i > 0; i--) {
+                excepciones.add(desde.plusDays(azar.nextInt(150) - 10));
+            }
+            SerieReservas serie = serie("S", desde, hasta, dias, excepciones);
+
+            int esperadas = 0;
+            for (LocalDate d = desde; !d.isAfter(hasta); d = d.plusDays(1)) {
+                if (dias.contains(d.getDayOfWeek()) && !excepciones.contains(d)) esperadas++;
+            }
+            assertEquals(esperadas, serie.contarOcurrencias());
+            assertEquals(esperadas, serie.ocurrencias().count());
+        }
+    }
+
+    @Test
+    public void siguienteOcurrenciaSaltaExcepcionesYTerminaDespuesDeHasta() {
+        LocalDate martes = INICIO.plusDays(1);
+        SerieReservas serie = serie("S", INICIO, INICIO.plusDays(20), EnumSet.of(DayOfWeek.TUESDAY),
+                                    Collections.singletonList(martes.plusDays(7)));
+        int primero = serie.siguienteOcurrencia(serie.getDiaDesde());
+        assertEquals(martes.toEpochDay(), primero);
+        assertEquals(martes.plusDays(14).toEpochDay(), serie.siguienteOcurrencia(primero + 1));
+        assertEquals(serie.getDiaHasta() + 1, serie.siguienteOcurrencia((int) martes.plusDays(15).toEpochDay()));
+    }
+
+    // Con un 'hasta' muy lejano el constructor no recorre el rango y la
+    // validacion lo rechaza antes de que el gestor tome cerrojos.
+    @Test
+    public void rangoMayorAlMaximoSeRechazaSinRecorrerlo() {
+        SerieReservas lejana = serie("S", INICIO, LocalDate.of(999999, 12, 31), EnumSet.allOf(DayOfWeek.class),
+                                     Collections.<LocalDate>emptyList());
+        assertTrue(lejana.contarOcurrencias() > 300_000_000);
+        try {
+            lejana.validarReglasNegocio();
+            fail("Rango de mas de " + SerieReservas.DIAS_MAXIMOS + " dias");
+        } catch (ReglaNegocioException esperada) {
+            // ok
+        }
+    }
+
+    @Test
+    public void seriesSeSolapanSoloSiCompartenUnDiaDeClase() {
+        SerieReservas lunesYMiercoles = serie("S1", INICIO, INICIO.plusDays(27),
+                                              EnumSet.of(DayOfWeek.MONDAY, DayOfWeek.WEDNESDAY),
+                                              Collections.<LocalDate>emptyList());
+        // Solo coinciden el miercoles INICIO+23, que es excepcion de la otra.
+        SerieReservas miercoles = serie("S2", INICIO.plusDays(21), INICIO.plusDays(40), EnumSet.of(DayOfWeek.WEDNESDAY),
+                                        Arrays.asList(INICIO.plusDays(23)));
+        assertFalse(lunesYMiercoles.seSolapaCon(miercoles));
+        assertFalse(miercoles.seSolapaCon(lunesYMiercoles));
+
+        SerieReservas sinExcepcion = serie("S3", INICIO.plusDays(21), INICIO.plusDays(40),
+                                           EnumSet.of(DayOfWeek.WEDNESDAY), Collections.<LocalDate>emptyList());
+        assertTrue(lunesYMiercoles.seSolapaCon(sinExcepcion));
+        assertTrue(sinExcepcion.seSolapaCon(lunesYMiercoles));
+    }
+}
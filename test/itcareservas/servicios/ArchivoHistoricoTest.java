@@ -0,0 +1,183 @@
+package itcareservas.servicios;
+
+import itcareservas.excepciones.NoEncontradoException;
+import itcareservas.modelo.Aula;
+import itcareservas.modelo.Reserva;
+import itcareservas.modelo.ReservaClase;
+import itcareservasmodelo.enums.EstadoReserva;
+import itcareservasmodelo.enums.TipoAula;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.fail;
+
+public class ArchivoHistoricoTest {
+    private static final LocalDate DIA = LocalDate.of(2024, 3, 4);
+    private final Aula aula = new Aula("A1", "Aula 1", 30, TipoAula.TEORICA);
+    private final List<Aula> aulas = Collections.singletonList(aula);
+
+    @Rule
+    public TemporaryFolder carpeta = new TemporaryFolder();
+
+    private Path ruta;
+    private ArchivoHistorico historico;
+
+    @Before
+    public void abrir() throws IOException {
+        ruta = carpeta.getRoot().toPath().resolve("historico.csv");
+        historico = new ArchivoHistorico(ruta);
+    }
+
+    @After
+    public void cerrar() throws IOException {
+        historico.cerrar();
+    }
+
+    private Reserva reserva(String id, int dias, String grupo) {
+        return new ReservaClase(id, aula, DIA.plusDays(dias), LocalTime.of(8, 0), LocalTime.of(10, 0),
+                                "Ana", "Mat", grupo);
+    }
+
+    private int dia(int dias) {
+        return (int) DIA.plusDays(dias).toEpochDay();
+    }
+
+    private List<String> ids(List<Reserva> reservas) {
+        List<String> ids = new ArrayList<>();
+        for (Reserva r : reservas) ids.add(r.getId());
+        return ids;
+    }
+
+    private List<Reserva> recorrer() throws IOException {
+        List<Reserva> vistas = new ArrayList<>();
+        historico.recorrer(aulas, Collections.<String>emptySet(), vistas::add);
+        return vistas;
+    }
+
+    @Test
+    public void leerDevuelveSoloElRangoPedidoEntreVariosLotes() throws IOException {
+        historico.agregar(Arrays.asList(reserva("R1", 0, "G1"), reserva("R2", 1, "G1")));
+        historico.agregar(Arrays.asList(reserva("R3", 7, "G1"), reserva("R4", 8, "G1")));
+        historico.agregar(Arrays.asList(reserva("R5", 14, "G1")));
+
+        assertEquals(Arrays.asList("R2", "R3"), ids(historico.leer(dia(1), dia(7), null, false, aulas)));
+        assertEquals(Arrays.asList("R5"), ids(historico.leer(dia(10), dia(20), null, false, aulas)));
+        assertEquals(0, historico.leer(dia(2), dia(6), null, false, aulas).size());
+        assertEquals(5, recorrer().size());
+    }
+
+    // La misma reserva archivada dos veces (caida entre el historico y el
+    // diario): leer y recorrer deben quedarse las dos con la ultima linea.
+    @Test
+    public void leerYRecorrerSeQuedanConLaUltimaLineaDeUnIdRepetido() throws IOException {
+        historico.agregar(Arrays.asList(reserva("R1", 0, "G1"), reserva("R2", 1, "G1")));
+        historico.agregar(Arrays.asList(reserva("R1", 0, "G2").conCambios(null, null, null, null,
+                                                                         EstadoReserva.CANCELADA)));
+
+        List<Reserva> leidas = historico.leer(dia(0), dia(1), null, false, aulas);
+        assertEquals(Arrays.asList("R1", "R2"), ids(leidas));
+        assertEquals("G2", ((ReservaClase) leidas.get(0)).getGrupo());
+        assertEquals(1, historico.leer(dia(0), dia(1), null, true, aulas).size());
+
+        List<Reserva> recorridas = recorrer();
+        assertEquals(2, recorridas.size());
+        for (Reserva r : recorridas) {
+            if (r.getId().equals("R1")) {
+                assertEquals("G2", ((ReservaClase) r).getGrupo());
+                assertEquals(EstadoReserva.CANCELADA, r.getEstado());
+            }
+        }
+    }
+
+    @Test
+    public void losLotesAgregadosDespuesDeConsultarSeVen() throws IOException {
+        historico.agregar(Arrays.asList(reserva("R1", 0, "G1")));
+        assertEquals(1, historico.leer(dia(0), dia(30), null, false, aulas).size());
+
+        historico.agregar(Arrays.asList(reserva("R2", 20, "G1")));
+        assertEquals(Arrays.asList("R2"), ids(historico.leer(dia(10), dia(30), null, false, aulas)));
+        assertEquals(2, recorrer().size());
+    }
+
+    // Un lote cortado por una caida: sin marca final y con la ultima linea a
+    // medias. Al reabrir se descarta la linea incompleta y el resto se lee.
+    @Test
+    public void reabreUnArchivoSinMarcaFinal() throws IOException {
+        historico.agregar(Arrays.asList(reserva("R1", 0, "G1")));
+        historico.cerrar();
+        String linea = reserva("R2", 5, "G1").conCambios(null, null, null, null, EstadoReserva.HISTORICA).toCSV()
+                       + ",ACTIVA,Aula 1,30,TEORICA\n";
+        Files.write(ruta, (linea + "ReservaClase,R3,A1").getBytes(StandardCharsets.UTF_8),
+                    StandardOpenOption.APPEND);
+
+        historico = new ArchivoHistorico(ruta);
+        assertEquals(dia(5), historico.getDiaMaximo());
+        assertEquals(Arrays.asList("R1", "R2"), ids(historico.leer(dia(0), dia(10), null, false, aulas)));
+        assertEquals(Arrays.asList("R2"), ids(historico.leer(dia(3), dia(10), null, false, aulas)));
+
+        historico.agregar(Arrays.asList(reserva("R4", 9, "G1")));
+        assertEquals(3, recorrer().size());
+    }
+
+    // El archivador de PersistenciaUtil: la primera pasada corre al arrancar
+    // y las siguientes en cada intervalo, sin que nadie llame a archivarAnterioresA.
+    @Test
+    public void elArchivadorSacaDeMemoriaLoAnteriorAlHorizonteEnCadaPasada() throws Exception {
+        Path directorio = carpeta.newFolder("datos").toPath();
+        GestorReservas gestor = new GestorReservas();
+        PersistenciaUtil persistencia = new PersistenciaUtil(gestor, directorio);
+        persistencia.cargarDatos();
+        persistencia.iniciarDiario();
+        LocalDate hoy = LocalDate.now();
+        gestor.registrarAula(aula);
+        gestor.registrarReserva(new ReservaClase("VIEJA1", aula, hoy.minusDays(40), LocalTime.of(8, 0),
+                                                 LocalTime.of(10, 0), "Ana", "Mat", "G1"));
+        gestor.registrarReserva(new ReservaClase("NUEVA", aula, hoy.plusDays(1), LocalTime.of(8, 0),
+                                                 LocalTime.of(10, 0), "Ana", "Mat", "G1"));
+        try {
+            persistencia.iniciarArchivo(30, 20);
+            esperarArchivada(gestor, "VIEJA1");
+
+            gestor.registrarReserva(new ReservaClase("VIEJA2", aula, hoy.minusDays(35), LocalTime.of(8, 0),
+                                                     LocalTime.of(10, 0), "Ana", "Mat", "G1"));
+            esperarArchivada(gestor, "VIEJA2");
+
+            assertNotNull(gestor.buscarReservaPorId("NUEVA"));
+            List<Reserva> archivadas = gestor.buscarHistoricas(hoy.minusDays(60), hoy, null);
+            assertEquals(Arrays.asList("VIEJA1", "VIEJA2"), ids(archivadas));
+            assertEquals(EstadoReserva.HISTORICA, archivadas.get(0).getEstado());
+        } finally {
+            persistencia.cerrar();
+        }
+    }
+
+    private void esperarArchivada(GestorReservas gestor, String id) throws InterruptedException {
+        long limite = System.currentTimeMillis() + 10_000;
+        while (System.currentTimeMillis() < limite) {
+            try {
+                gestor.buscarReservaPorId(id);
+            } catch (NoEncontradoException e) {
+                return;
+            }
+            Thread.sleep(10);
+        }
+        fail("El archivador no saco " + id + " de memoria");
+    }
+}
@@ -0,0 +1,60 @@
+package itcareservas.servicios;
+
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+public class DiarioTest {
+    @Rule
+    public TemporaryFolder carpeta = new TemporaryFolder();
+
+    @Test
+    public void esperarVuelveConElRegistroYaEnDisco() throws Exception {
+        Path archivo = carpeta.getRoot().toPath().resolve("cambios.log");
+        Diario diario = new Diario(archivo, 1000);
+        try {
+            diario.registrar(Diario.BAJA_AULA, "A1");
+            long segunda = diario.registrar(Diario.BAJA_RESERVA, "R1");
+            diario.esperar(segunda);
+
+            List<String[]> entradas = Diario.leer(archivo);
+            assertEquals(2, entradas.size());
+            assertArrayEquals(new String[] { Diario.BAJA_AULA, "A1" }, entradas.get(0));
+            assertArrayEquals(new String[] { Diario.BAJA_RESERVA, "R1" }, entradas.get(1));
+        } finally {
+            diario.cerrar();
+        }
+    }
+
+    @Test
+    public void despuesDeCerrarNingunCambioSeDaPorDurable() throws Exception {
+        Diario diario = new Diario(carpeta.getRoot().toPath().resolve("cambios.log"), 1000);
+        diario.cerrar();
+        long secuencia = diario.registrar(Diario.BAJA_AULA, "A1");
+        try {
+            diario.esperar(secuencia);
+            fail("El diario esta cerrado");
+        } catch (UncheckedIOException esperada) {
+            // ok
+        }
+    }
+
+    @Test
+    public void leerIgnoraLaUltimaLineaCortada() throws Exception {
+        Path archivo = carpeta.getRoot().toPath().resolve("cambios.log");
+        Files.write(archivo, "BAJA_AULA|A1\nBAJA_RESERVA|R1\nRESERVA|R2,CLA".getBytes(StandardCharsets.UTF_8));
+
+        List<String[]> entradas = Diario.leer(archivo);
+        assertEquals(2, entradas.size());
+        assertArrayEquals(new String[] { Diario.BAJA_RESERVA, "R1" }, entradas.get(1));
+    }
+}
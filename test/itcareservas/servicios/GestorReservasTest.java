@@ -0,0 +1,295 @@
+package itcareservas.servicios;
+
+import itcareservas.excepciones.ConflictoHorarioException;
+import itcareservas.excepciones.NoEncontradoException;
+import itcareservas.excepciones.ReglaNegocioException;
+import itcareservas.excepciones.VersionObsoletaException;
+import itcareservas.modelo.Aula;
+import itcareservas.modelo.Reserva;
+import itcareservas.modelo.ReservaClase;
+import itcareservas.modelo.ReservaEvento;
+import itcareservasmodelo.enums.EstadoReserva;
+import itcareservasmodelo.enums.TipoAula;
+import itcareservasmodelo.enums.TipoEvento;
+
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class GestorReservasTest {
+    private static final LocalDate DIA = LocalDate.of(2025, 3, 10);
+    private GestorReservas gestor;
+    private Aula aula;
+
+    @Rule
+    public TemporaryFolder carpeta = new TemporaryFolder();
+
+    @Before
+    public void preparar() throws Exception {
+        gestor = new GestorReservas();
+        aula = new Aula("A1", "Aula 1", 30, TipoAula.TEORICA);
+        gestor.registrarAula(aula);
+    }
+
+    private Reserva reserva(String id, int desde, int hasta) {
+        return new ReservaClase(id, aula, DIA, LocalTime.of(desde, 0), LocalTime.of(hasta, 0), "Ana", "Mat", "G1");
+    }
+
+    @Test
+    public void rechazaSolapamientoYAdmiteContiguas() throws Exception {
+        gestor.registrarReserva(reserva("R1", 8, 10));
+        gestor.registrarReserva(reserva("R2", 10, 12));
+        try {
+            gestor.registrarReserva(reserva("R3", 9, 11));
+            fail("R3 se solapa con R1 y R2");
+        } catch (ConflictoHorarioException esperada) {
+            // ok
+        }
+        assertEquals(2, gestor.getReservas().size());
+    }
+
+    @Test
+    public void cargarOmiteLaActivaQueEmpiezaALaMismaHora() throws Exception {
+        gestor.cargarReservas(Arrays.asList(reserva("R1", 8, 10), reserva("R2", 8, 9), reserva("R3", 10, 12)));
+
+        assertEquals(2, gestor.getReservas().size());
+        assertNotNull(gestor.buscarReservaPorId("R1"));
+        try {
+            gestor.registrarReserva(reserva("R4", 9, 10));
+            fail("R4 se solapa con R1, que debe seguir en el indice");
+        } catch (ConflictoHorarioException esperada) {
+            // ok
+        }
+    }
+
+    @Test
+    public void cargarOmiteLaActivaQueSeSolapa() {
+        gestor.cargarReservas(Arrays.asList(reserva("R1", 8, 10), reserva("R2", 9, 11)));
+
+        assertEquals(1, gestor.getReservas().size());
+    }
+
+    @Test
+    public void modificarConVersionViejaFallaSinTocarLaReserva() throws Exception {
+        gestor.registrarReserva(reserva("R1", 8, 10));
+        Reserva leida = gestor.buscarReservaPorId("R1");
+        gestor.modificarReserva("R1", leida.getVersion(), null, LocalTime.of(9, 0), LocalTime.of(11, 0), null);
+
+        try {
+            gestor.modificarReserva("R1", leida.getVersion(), null, LocalTime.of(14, 0), LocalTime.of(16, 0), null);
+            fail("La version leida ya no es la vigente");
+        } catch (VersionObsoletaException esperada) {
+            assertEquals(leida.getVersion() + 1, esperada.getVersionActual());
+        }
+
+        Reserva vigente = gestor.buscarReservaPorId("R1");
+        assertNotSame(leida, vigente);
+        assertEquals(LocalTime.of(8, 0), leida.getHoraInicio());
+        assertEquals(LocalTime.of(9, 0), vigente.getHoraInicio());
+        // El indice de horarios sigue la version vigente: 8-9 quedo libre.
+        gestor.registrarReserva(reserva("R2", 7, 9));
+        try {
+            gestor.registrarReserva(reserva("R3", 10, 12));
+            fail("R3 se solapa con la version vigente de R1");
+        } catch (ConflictoHorarioException esperada) {
+            // ok
+        }
+    }
+
+    @Test
+    public void modificarAulaPublicaUnaCopiaSinTocarLaAnterior() throws Exception {
+        gestor.modificarAula("A1", "Aula Magna", null, null);
+
+        Aula publicada = gestor.buscarAulaPorId("A1");
+        assertNotSame(aula, publicada);
+        assertEquals("Aula Magna", publicada.getNombre());
+        assertEquals(30, publicada.getCapacidad());
+        assertEquals("Aula 1", aula.getNombre());
+
+        gestor.modificarAula("A1", null, 80, null);
+        assertEquals(80, gestor.buscarAulaPorId("A1").getCapacidad());
+        assertEquals("Aula Magna", gestor.buscarAulaPorId("A1").getNombre());
+        assertEquals(1, gestor.listarAulas().size());
+        assertEquals(1, gestor.buscarAulasDisponibles(DIA, LocalTime.of(8, 0), LocalTime.of(10, 0), null, 50).size());
+    }
+
+    // Lo creado antes de modificar el aula sigue con la copia anterior: se
+    // reconoce por ID, los reportes usan el nombre nuevo y la capacidad se
+    // revisa contra la copia vigente.
+    @Test
+    public void lasReservasConLaCopiaAnteriorDelAulaSiguenValiendo() throws Exception {
+        gestor.registrarReserva(reserva("R1", 8, 10));
+        gestor.cancelarReserva("R1");
+        gestor.modificarAula("A1", "Aula Magna", 20, null);
+
+        gestor.registrarReserva(reserva("R2", 10, 12));
+        assertEquals(Collections.singletonMap("Aula Magna", 2L), gestor.reporteTopAulasPorHoras());
+
+        try {
+            gestor.registrarReserva(new ReservaEvento("E1", aula, DIA, LocalTime.of(14, 0), LocalTime.of(16, 0),
+                                                      "Ana", TipoEvento.CONFERENCIA, 25));
+            fail("El aula vigente tiene capacidad 20");
+        } catch (ReglaNegocioException esperada) {
+            // ok
+        }
+    }
+
+    @Test
+    public void loteRechazaSoloLosItemsInvalidos() throws Exception {
+        gestor.registrarReserva(reserva("E1", 14, 16));
+        Aula inexistente = new Aula("X9", "Sin registrar", 30, TipoAula.TEORICA);
+        Reserva cancelada = new ReservaClase("R5", inexistente, DIA, LocalTime.of(8, 0), LocalTime.of(10, 0),
+                                             "Ana", "Mat", "G1").conCambios(null, null, null, null, EstadoReserva.CANCELADA);
+        Reserva corta = new ReservaClase("R6", aula, DIA, LocalTime.of(18, 0), LocalTime.of(18, 30), "Ana", "Mat", "G1");
+
+        ResultadoLote resultado = gestor.registrarReservas(Arrays.asList(
+            reserva("R1", 8, 10), reserva("R2", 9, 11), reserva("R3", 15, 17), reserva("E1", 20, 21),
+            cancelada, corta, reserva("R7", 11, 13)));
+
+        List<String> aceptadas = new ArrayList<>();
+        for (Reserva r : resultado.getAceptadas()) aceptadas.add(r.getId());
+        assertEquals(Arrays.asList("R1", "R7"), aceptadas);
+        assertEquals(5, resultado.getRechazadas().size());
+        assertEquals("R2", resultado.getItems().get(1).getReserva().getId());
+        assertTrue(resultado.getItems().get(4).getMotivoRechazo().contains("no esta registrada"));
+        assertEquals(3, gestor.getReservas().size());
+    }
+
+    // /dev/full acepta abrir pero falla al escribir: el primer cambio queda
+    // sin confirmar y desde ahi los siguientes se rechazan sin aplicarse.
+    @Test
+    public void conElDiarioCaidoLosCambiosSeRechazanAntesDeAplicarse() throws Exception {
+        Path lleno = Paths.get("/dev/full");
+        Assume.assumeTrue(Files.isWritable(lleno));
+        Diario diario = new Diario(lleno, 1000);
+        gestor.setDiario(diario);
+        try {
+            try {
+                gestor.registrarReserva(reserva("R1", 8, 10));
+                fail("El fsync del diario fallo");
+            } catch (UncheckedIOException esperada) {
+                // ok
+            }
+            try {
+                gestor.registrarReserva(reserva("R2", 10, 12));
+                fail("El diario esta caido");
+            } catch (UncheckedIOException esperada) {
+                // ok
+            }
+            try {
+                gestor.cancelarReserva("R1");
+                fail("El diario esta caido");
+            } catch (UncheckedIOException esperada) {
+                // ok
+            }
+            assertEquals(1, gestor.getReservas().size());
+            assertNotNull(gestor.buscarReservaPorId("R1"));
+            assertEquals(EstadoReserva.ACTIVA, gestor.buscarReservaPorId("R1").getEstado());
+        } finally {
+            gestor.setDiario(null);
+            diario.cerrar();
+        }
+    }
+
+    @Test
+    public void bajasConcurrentesDelMismoAulaRegistranUnaSola() throws Exception {
+        Path archivo = carpeta.getRoot().toPath().resolve("cambios.log");
+        Diario diario = new Diario(archivo, 1000);
+        gestor.setDiario(diario);
+        int hilos = 8;
+        ExecutorService ejecutor = Executors.newFixedThreadPool(hilos);
+        CountDownLatch salida = new CountDownLatch(1);
+        List<Future<Boolean>> resultados = new ArrayList<>();
+        try {
+            for (int h = 0; h < hilos; h++) {
+                resultados.add(ejecutor.submit((Callable<Boolean>) () -> {
+                    salida.await();
+                    try {
+                        gestor.eliminarAula("A1");
+                        return true;
+                    } catch (NoEncontradoException e) {
+                        return false;
+                    }
+                }));
+            }
+            salida.countDown();
+            int eliminadas = 0;
+            for (Future<Boolean> resultado : resultados) {
+                if (resultado.get()) eliminadas++;
+            }
+            assertEquals(1, eliminadas);
+        } finally {
+            ejecutor.shutdownNow();
+            diario.cerrar();
+        }
+        assertEquals(1, Diario.leer(archivo).size());
+    }
+
+    // Muchos hilos piden el mismo bloque (y bloques que se pisan a medias):
+    // por cada franja de dos horas solo una puede quedar activa.
+    @Test
+    public void reservasConcurrentesEnConflictoDejanUnaPorBloque() throws Exception {
+        int hilos = 8;
+        int intentosPorHilo = 200;
+        ExecutorService ejecutor = Executors.newFixedThreadPool(hilos);
+        CountDownLatch salida = new CountDownLatch(1);
+        List<Future<Integer>> resultados = new ArrayList<>();
+        try {
+            for (int h = 0; h < hilos; h++) {
+                final int hilo = h;
+                resultados.add(ejecutor.submit((Callable<Integer>) () -> {
+                    salida.await();
+                    int aceptadas = 0;
+                    for (int i = 0; i < intentosPorHilo; i++) {
+                        int desde = 6 + (i + hilo) % 14;
+                        try {
+                            gestor.registrarReserva(reserva("H" + hilo + "-" + i, desde, desde + 2));
+                            aceptadas++;
+                        } catch (ConflictoHorarioException e) {
+                            // otro hilo gano ese horario
+                        }
+                    }
+                    return aceptadas;
+                }));
+            }
+            salida.countDown();
+            int aceptadas = 0;
+            for (Future<Integer> resultado : resultados) {
+                aceptadas += resultado.get();
+            }
+            assertEquals(aceptadas, gestor.getReservas().size());
+        } finally {
+            ejecutor.shutdownNow();
+        }
+
+        List<Reserva> delDia = gestor.listarReservas("fecha");
+        for (int i = 1; i < delDia.size(); i++) {
+            if (delDia.get(i).getMinutoInicio() < delDia.get(i - 1).getMinutoFin()) {
+                fail(delDia.get(i - 1).getId() + " y " + delDia.get(i).getId() + " se solapan");
+            }
+        }
+    }
+}
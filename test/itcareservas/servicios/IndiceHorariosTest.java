@@ -0,0 +1,62 @@
+package itcareservas.servicios;
+
+import itcareservas.modelo.Aula;
+import itcareservas.modelo.Reserva;
+import itcareservas.modelo.ReservaClase;
+import itcareservasmodelo.enums.TipoAula;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+public class IndiceHorariosTest {
+    private static final LocalDate DIA = LocalDate.of(2025, 3, 10);
+    private final Aula aula = new Aula("A1", "Aula 1", 30, TipoAula.TEORICA);
+    private final IndiceHorarios indice = new IndiceHorarios();
+
+    private Reserva reserva(String id, int desde, int hasta) {
+        return new ReservaClase(id, aula, DIA, LocalTime.of(desde, 0), LocalTime.of(hasta, 0), "Ana", "Mat", "G1");
+    }
+
+    private Reserva conflicto(int desde, int hasta, Reserva excluida) {
+        return indice.buscarConflicto(aula.getId(), (int) DIA.toEpochDay(), desde * 60, hasta * 60, excluida);
+    }
+
+    @Test
+    public void agregarNoReemplazaLaQueEmpiezaALaMismaHora() {
+        Reserva primera = reserva("R1", 8, 10);
+        assertNull(indice.agregar(primera));
+        assertSame(primera, indice.agregar(reserva("R2", 8, 9)));
+        assertSame(primera, conflicto(9, 11, null));
+    }
+
+    @Test
+    public void detectaSolapamientosYAdmiteIntervalosContiguos() {
+        Reserva manana = reserva("R1", 8, 10);
+        Reserva tarde = reserva("R2", 14, 16);
+        indice.agregar(manana);
+        indice.agregar(tarde);
+
+        assertSame(manana, conflicto(9, 11, null));
+        assertSame(tarde, conflicto(12, 15, null));
+        assertSame(manana, conflicto(7, 9, null));
+        assertNull(conflicto(10, 14, null));
+        assertNull(conflicto(16, 18, null));
+    }
+
+    @Test
+    public void ignoraLaReservaExcluidaPeroNoLaAnterior() {
+        Reserva manana = reserva("R1", 8, 10);
+        Reserva mediodia = reserva("R2", 10, 12);
+        indice.agregar(manana);
+        indice.agregar(mediodia);
+
+        assertNull(conflicto(10, 13, mediodia));
+        assertSame(manana, conflicto(9, 13, mediodia));
+        assertEquals(2, indice.candidatosRevisados(aula.getId(), (int) DIA.toEpochDay(), 13 * 60, mediodia));
+    }
+}
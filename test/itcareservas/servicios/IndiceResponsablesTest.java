@@ -0,0 +1,57 @@
+package itcareservas.servicios;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class IndiceResponsablesTest {
+    private final IndiceResponsables indice = new IndiceResponsables();
+
+    private List<String> buscar(String texto) {
+        List<String> ids = indice.buscar(texto);
+        Collections.sort(ids);
+        return ids;
+    }
+
+    @Test
+    public void buscaSinDistinguirMayusculasNiAcentos() {
+        indice.agregar("R1", "José Pérez");
+        indice.agregar("R2", "Ana Lopez");
+        indice.agregar("R3", "Pedro Josefino");
+
+        assertEquals(Arrays.asList("R1", "R3"), buscar("JOSE"));
+        assertEquals(Arrays.asList("R1", "R2"), buscar("ez"));
+        assertEquals(Collections.singletonList("R2"), buscar("ana lóp"));
+        assertEquals(Collections.emptyList(), buscar("xyz"));
+    }
+
+    // Un solo caracter no tiene n-grama en el indice: se responde recorriendo
+    // los nombres, igual que antes del indice.
+    @Test
+    public void buscaTextosDeUnCaracter() {
+        indice.agregar("R1", "Ana");
+        indice.agregar("R2", "Óscar Díaz");
+        indice.agregar("R3", "Luis");
+
+        assertEquals(Arrays.asList("R1", "R2"), buscar("a"));
+        assertEquals(Collections.singletonList("R2"), buscar("Ó"));
+        assertEquals(Collections.singletonList("R2"), buscar(" "));
+        assertEquals(Arrays.asList("R1", "R2", "R3"), buscar(""));
+        assertEquals(Collections.emptyList(), buscar("x"));
+    }
+
+    @Test
+    public void quitarYCambiarDeResponsableActualizanLasListas() {
+        indice.agregar("R1", "Ana Lopez");
+        indice.agregar("R1", "Beatriz Gomez");
+        assertEquals(Collections.emptyList(), buscar("lopez"));
+        assertEquals(Collections.singletonList("R1"), buscar("gomez"));
+
+        indice.quitar("R1");
+        assertEquals(Collections.emptyList(), buscar("gomez"));
+        assertEquals(0, indice.cantidadNgramas());
+    }
+}
@@ -0,0 +1,134 @@
+package itcareservas.servicios;
+
+import itcareservas.modelo.Aula;
+import itcareservas.modelo.Reserva;
+import itcareservas.modelo.ReservaClase;
+import itcareservas.modelo.ReservaEvento;
+import itcareservas.modelo.ReservaPractica;
+import itcareservas.modelo.SerieReservas;
+import itcareservasmodelo.enums.EstadoReserva;
+import itcareservasmodelo.enums.TipoAula;
+import itcareservasmodelo.enums.TipoEvento;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumSet;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class InstantaneaBinariaTest {
+    private static final int MAGICO = 0x49544341;
+    private static final LocalDate DIA = LocalDate.of(2025, 3, 10);
+
+    @Rule
+    public TemporaryFolder carpeta = new TemporaryFolder();
+
+    @Test
+    public void escribirYLeerConservaReservasYSeries() throws Exception {
+        Path archivo = carpeta.getRoot().toPath().resolve("reservas.bin");
+        Aula teoria = new Aula("A1", "Aula 1", 30, TipoAula.TEORICA);
+        Aula lab = new Aula("L1", "Lab 1", 20, TipoAula.LABORATORIO);
+        Reserva clase = new ReservaClase("R1", teoria, DIA, LocalTime.of(8, 0), LocalTime.of(10, 0), "Ana", "Mat", "G1");
+        Reserva practica = new ReservaPractica("R2", lab, DIA, LocalTime.of(9, 30), LocalTime.of(11, 0), "Luis", "PCs");
+        Reserva evento = new ReservaEvento("R3", teoria, DIA.plusDays(1), LocalTime.of(14, 0), LocalTime.of(16, 0),
+                                           "Ana", TipoEvento.TALLER, 25).conCambios(null, null, null, null, EstadoReserva.CANCELADA);
+        SerieReservas serie = new SerieReservas("S1", lab, DIA, DIA.plusDays(30), EnumSet.of(DayOfWeek.TUESDAY),
+                                                LocalTime.of(13, 0), LocalTime.of(15, 0), "Luis", "Redes", "G2",
+                                                Collections.singletonList(DIA.plusDays(8)));
+
+        InstantaneaBinaria.escribir(archivo, Arrays.asList(teoria, lab), Arrays.asList(clase, practica, evento),
+                                    Collections.singletonList(serie));
+        InstantaneaBinaria leida = InstantaneaBinaria.leer(archivo);
+
+        assertEquals(2, leida.aulas.size());
+        assertEquals(3, leida.reservas.size());
+        assertEquals(clase.toCSV(), leida.reservas.get(0).toCSV());
+        assertEquals(practica.toCSV(), leida.reservas.get(1).toCSV());
+        assertEquals(evento.toCSV(), leida.reservas.get(2).toCSV());
+        assertSame(leida.aulas.get(0), leida.reservas.get(2).getAula());
+        assertEquals(1, leida.series.size());
+        assertEquals(serie.toCSV(), leida.series.get(0).toCSV());
+    }
+
+    // Formato de la version 1: igual a la 2 pero sin la seccion de series.
+    @Test
+    public void leeUnaInstantaneaVersion1() throws Exception {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeInt(MAGICO);
+        out.writeShort(1);
+        out.writeInt(1);
+        texto(out, "A1");
+        texto(out, "Aula 1");
+        out.writeInt(30);
+        out.writeByte(TipoAula.TEORICA.ordinal());
+        out.writeInt(1);
+        texto(out, "Ana");
+        out.writeInt(1);
+        out.writeByte(1);
+        texto(out, "R1");
+        out.writeInt(0);
+        out.writeInt((int) DIA.toEpochDay());
+        out.writeShort(8 * 60);
+        out.writeShort(10 * 60);
+        out.writeInt(0);
+        out.writeByte(EstadoReserva.CANCELADA.ordinal());
+        texto(out, "Mat");
+        texto(out, "G1");
+        out.writeInt(MAGICO);
+        Path archivo = carpeta.getRoot().toPath().resolve("v1.bin");
+        Files.write(archivo, bytes.toByteArray());
+
+        InstantaneaBinaria leida = InstantaneaBinaria.leer(archivo);
+
+        assertEquals(1, leida.aulas.size());
+        assertEquals(1, leida.reservas.size());
+        assertTrue(leida.series.isEmpty());
+        Reserva reserva = leida.reservas.get(0);
+        assertEquals("R1", reserva.getId());
+        assertEquals(DIA, reserva.getFecha());
+        assertEquals(LocalTime.of(8, 0), reserva.getHoraInicio());
+        assertEquals(EstadoReserva.CANCELADA, reserva.getEstado());
+        assertEquals("Mat", ((ReservaClase) reserva).getMateria());
+    }
+
+    @Test
+    public void rechazaUnaInstantaneaCortada() throws Exception {
+        Path archivo = carpeta.getRoot().toPath().resolve("reservas.bin");
+        Aula aula = new Aula("A1", "Aula 1", 30, TipoAula.TEORICA);
+        InstantaneaBinaria.escribir(archivo, Collections.singletonList(aula),
+                                    Collections.<Reserva>singletonList(new ReservaClase("R1", aula, DIA, LocalTime.of(8, 0),
+                                                                                        LocalTime.of(10, 0), "Ana", "Mat", "G1")),
+                                    Collections.<SerieReservas>emptyList());
+        byte[] completo = Files.readAllBytes(archivo);
+        Files.write(archivo, Arrays.copyOf(completo, completo.length - 3));
+
+        try {
+            InstantaneaBinaria.leer(archivo);
+            fail("Falta la marca final");
+        } catch (IOException esperada) {
+            // ok
+        }
+    }
+
+    private static void texto(DataOutputStream out, String texto) throws IOException {
+        byte[] utf8 = texto.getBytes(StandardCharsets.UTF_8);
+        out.writeShort(utf8.length);
+        out.write(utf8);
+    }
+}
@@ -0,0 +1,129 @@
+package itcareservas.servicios;
+
+import itcareservas.excepciones.ReglaNegocioException;
+import itcareservas.modelo.Aula;
+import itcareservas.modelo.ReservaClase;
+import itcareservas.modelo.ReservaPractica;
+import itcareservasmodelo.enums.EstadoReserva;
+import itcareservasmodelo.enums.TipoAula;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.fail;
+
+public class PersistenciaUtilTest {
+    private static final LocalDate DIA = LocalDate.of(2025, 3, 10);
+
+    @Rule
+    public TemporaryFolder carpeta = new TemporaryFolder();
+
+    private PersistenciaUtil iniciar(GestorReservas gestor, Path directorio) {
+        PersistenciaUtil persistencia = new PersistenciaUtil(gestor, directorio);
+        persistencia.cargarDatos();
+        persistencia.iniciarDiario();
+        return persistencia;
+    }
+
+    // Sin cerrar (el proceso "cae" despues de confirmar): al reiniciar, la
+    // instantanea mas el diario deben reproducir todo lo confirmado.
+    @Test
+    public void loConfirmadoSobreviveAUnaCaidaSinCerrar() throws Exception {
+        Path directorio = carpeta.getRoot().toPath();
+        GestorReservas gestor = new GestorReservas();
+        iniciar(gestor, directorio);
+        Aula aula = new Aula("A1", "Aula 1", 30, TipoAula.TEORICA);
+        gestor.registrarAula(aula);
+        gestor.registrarReserva(new ReservaClase("R1", aula, DIA, LocalTime.of(8, 0), LocalTime.of(10, 0), "Ana", "Mat", "G1"));
+        gestor.registrarReserva(new ReservaClase("R2", aula, DIA, LocalTime.of(10, 0), LocalTime.of(12, 0), "Ana", "Mat", "G2"));
+        gestor.cancelarReserva("R2");
+
+        assertEquals(4, Diario.leer(directorio.resolve("cambios.log")).size());
+
+        GestorReservas recuperado = new GestorReservas();
+        PersistenciaUtil persistencia = iniciar(recuperado, directorio);
+        try {
+            assertEquals(1, recuperado.getAulas().size());
+            assertEquals(2, recuperado.getReservas().size());
+            assertEquals(EstadoReserva.ACTIVA, recuperado.buscarReservaPorId("R1").getEstado());
+            assertEquals(EstadoReserva.CANCELADA, recuperado.buscarReservaPorId("R2").getEstado());
+        } finally {
+            persistencia.cerrar();
+        }
+    }
+
+    // Los archivos no usan comillas: un texto con separadores se rechaza al
+    // registrarlo, y cualquier otro sale igual del diario y de los CSV.
+    @Test
+    public void textoConSeparadoresSeRechazaYElRestoSobreviveAlReinicio() throws Exception {
+        Path directorio = carpeta.getRoot().toPath();
+        GestorReservas gestor = new GestorReservas();
+        iniciar(gestor, directorio);
+        Aula aula = new Aula("L1", "Lab. redes (norte)", 30, TipoAula.LABORATORIO);
+        gestor.registrarAula(aula);
+        gestor.registrarReserva(new ReservaClase("R1", aula, DIA, LocalTime.of(8, 0), LocalTime.of(10, 0),
+                                                 "Pérez; Juan", "Cálculo \"I\"", "G1/G2"));
+        String[] invalidos = { "Perez, Juan", "Ana\nB", "Ana\r", "Ana|B" };
+        for (String responsable : invalidos) {
+            try {
+                gestor.registrarReserva(new ReservaClase("R2", aula, DIA, LocalTime.of(10, 0), LocalTime.of(12, 0),
+                                                         responsable, "Mat", "G1"));
+                fail("Responsable con separadores aceptado: " + responsable);
+            } catch (ReglaNegocioException esperada) {
+                // ok
+            }
+        }
+        try {
+            gestor.registrarReserva(new ReservaPractica("R3", aula, DIA, LocalTime.of(12, 0), LocalTime.of(14, 0),
+                                                        "Ana", "PC, proyector"));
+            fail("Equipo con coma aceptado");
+        } catch (ReglaNegocioException esperada) {
+            // ok
+        }
+        try {
+            gestor.registrarAula(new Aula("A2", "Aula 2, anexo", 30, TipoAula.TEORICA));
+            fail("Nombre de aula con coma aceptado");
+        } catch (ReglaNegocioException esperada) {
+            // ok
+        }
+        try {
+            gestor.modificarAula("L1", "Lab\nredes", null, null);
+            fail("Nombre de aula con salto de linea aceptado");
+        } catch (ReglaNegocioException esperada) {
+            // ok
+        }
+
+        // Primero desde el diario (sin cerrar), despues desde los CSV.
+        GestorReservas recuperado = new GestorReservas();
+        PersistenciaUtil persistencia = iniciar(recuperado, directorio);
+        verificarTextos(recuperado);
+        persistencia.cerrar();
+        Files.delete(directorio.resolve("reservas.bin"));
+
+        GestorReservas desdeCsv = new GestorReservas();
+        persistencia = iniciar(desdeCsv, directorio);
+        try {
+            verificarTextos(desdeCsv);
+        } finally {
+            persistencia.cerrar();
+        }
+    }
+
+    private void verificarTextos(GestorReservas gestor) throws Exception {
+        assertEquals(1, gestor.getAulas().size());
+        assertEquals("Lab. redes (norte)", gestor.buscarAulaPorId("L1").getNombre());
+        assertEquals(1, gestor.getReservas().size());
+        ReservaClase reserva = (ReservaClase) gestor.buscarReservaPorId("R1");
+        assertEquals("Pérez; Juan", reserva.getResponsable());
+        assertEquals("Cálculo \"I\"", reserva.getMateria());
+        assertEquals("G1/G2", reserva.getGrupo());
+        assertFalse(gestor.buscarPorResponsable("perez").isEmpty());
+    }
+}